@@ -0,0 +1,182 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.ExamSchedule;
+import com.parami.wsims.entity.Grade;
+import com.parami.wsims.entity.ReportTemplate;
+import com.parami.wsims.entity.StudentExamPerformance;
+import com.parami.wsims.entity.Subject;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.repository.ExamScheduleRepository;
+import com.parami.wsims.repository.GradeRepository;
+import com.parami.wsims.repository.ReportTemplateRepository;
+import com.parami.wsims.repository.UserRepository;
+import com.parami.wsims.service.ReportGenerationServiceImpl;
+import com.parami.wsims.service.ReportRenderingContext;
+import com.parami.wsims.service.StudentPerformanceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-document render time and allocation of one report card with eight subjects and a
+ * template, laying every static block out per document (reuseStaticBlocks=false, the old
+ * behaviour) against importing the pre-rendered blocks from ReportRenderingContext.
+ * Repositories are mocked so only rendering is measured. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec}; the gc profiler reports allocation
+ * per operation as gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ReportRenderingBenchmark {
+
+    private static final long STUDENT_ID = 42L;
+    private static final long EXAM_ID = 7L;
+    private static final long TEMPLATE_ID = 1L;
+    private static final int SUBJECTS = 8;
+
+    @Param({"false", "true"})
+    public boolean reuseStaticBlocks;
+
+    private ReportGenerationServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        User student = new User();
+        student.setId(STUDENT_ID);
+        student.setUsername("student42");
+        student.setEmail("student42@example.com");
+        student.setFirstName("Test");
+        student.setLastName("Student");
+
+        ExamSchedule exam = new ExamSchedule();
+        exam.setId(EXAM_ID);
+        exam.setExamName("Term 1 Exam");
+        exam.setAcademicYear("2026");
+        exam.setStartDate(LocalDate.of(2026, 3, 10));
+
+        List<Grade> grades = new ArrayList<>();
+        BigDecimal percentageSum = BigDecimal.ZERO;
+        for (int s = 1; s <= SUBJECTS; s++) {
+            Subject subject = new Subject();
+            subject.setId((long) s);
+            subject.setSubjectName("Subject " + s);
+
+            BigDecimal marks = BigDecimal.valueOf(40 + (s * 13) % 60);
+            BigDecimal total = BigDecimal.valueOf(100);
+            BigDecimal percentage = marks.multiply(BigDecimal.valueOf(100)).divide(total, 2, RoundingMode.HALF_UP);
+            Grade.LetterGrade letter = Grade.calculateLetterGrade(percentage);
+
+            Grade grade = new Grade();
+            grade.setId((long) s);
+            grade.setStudent(student);
+            grade.setSubject(subject);
+            grade.setExamSchedule(exam);
+            grade.setMarksObtained(marks);
+            grade.setTotalMarks(total);
+            grade.setPercentage(percentage);
+            grade.setLetterGrade(letter.getDisplayName());
+            grade.setGradePoint(letter.getPointValue());
+            grade.setComments("Keep up the effort");
+            grades.add(grade);
+            percentageSum = percentageSum.add(percentage);
+        }
+
+        StudentExamPerformance performance = new StudentExamPerformance();
+        performance.setStudentId(STUDENT_ID);
+        performance.setExamScheduleId(EXAM_ID);
+        performance.setGradeCount(SUBJECTS);
+        performance.setGradedCount(SUBJECTS);
+        performance.setPercentageSum(percentageSum);
+        performance.setCountA(2);
+        performance.setCountB(2);
+        performance.setCountC(2);
+        performance.setCountD(1);
+        performance.setCountF(1);
+        performance.setUpdatedAt(LocalDateTime.now());
+
+        ReportTemplate template = new ReportTemplate();
+        template.setId(TEMPLATE_ID);
+        template.setTemplateName("Standard");
+        template.setHeaderText("Excellence in learning, integrity in character");
+        template.setFooterText("Please contact the school office with any questions about this report.");
+        template.setCreatedAt(LocalDateTime.now());
+        template.setUpdatedAt(LocalDateTime.now());
+
+        GradeRepository gradeRepository = mock(GradeRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        ExamScheduleRepository examScheduleRepository = mock(ExamScheduleRepository.class);
+        ReportTemplateRepository templateRepository = mock(ReportTemplateRepository.class);
+        StudentPerformanceService studentPerformanceService = mock(StudentPerformanceService.class);
+        when(gradeRepository.findByStudentIdAndExamScheduleId(STUDENT_ID, EXAM_ID)).thenReturn(grades);
+        when(userRepository.findById(STUDENT_ID)).thenReturn(Optional.of(student));
+        when(examScheduleRepository.findById(EXAM_ID)).thenReturn(Optional.of(exam));
+        when(templateRepository.findById(TEMPLATE_ID)).thenReturn(Optional.of(template));
+        when(studentPerformanceService.getPerformance(STUDENT_ID, EXAM_ID)).thenReturn(Optional.of(performance));
+
+        service = new ReportGenerationServiceImpl(gradeRepository, userRepository, examScheduleRepository,
+                templateRepository, studentPerformanceService, new ReportRenderingContext(reuseStaticBlocks));
+    }
+
+    @Benchmark
+    public long renderReportCard() {
+        CountingOutputStream out = new CountingOutputStream();
+        service.writeStudentReportCard(STUDENT_ID, EXAM_ID, null, TEMPLATE_ID, out);
+        return out.count;
+    }
+
+    /**
+     * Discards the PDF so only rendering is measured, counting bytes so the work is not eliminated
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReportRenderingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.wsims.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Attendance upserts rely on uk_attendance_student_subject_date. ddl-auto=update only logs a
+ * warning when it cannot add that constraint over duplicate rows, so check for it at startup:
+ * add it when the table is clean, and refuse to start when duplicates are in the way.
+ */
+@Component
+public class AttendanceConstraintCheck implements CommandLineRunner {
+
+    static final String CONSTRAINT_NAME = "uk_attendance_student_subject_date";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (constraintExists()) {
+            return;
+        }
+
+        Integer duplicateKeys = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT student_id, subject_id, attendance_date FROM attendance "
+                        + "GROUP BY student_id, subject_id, attendance_date HAVING COUNT(*) > 1) d",
+                Integer.class);
+        if (duplicateKeys != null && duplicateKeys > 0) {
+            throw new IllegalStateException("Unique constraint " + CONSTRAINT_NAME + " is missing and "
+                    + duplicateKeys + " (student, subject, date) keys have duplicate attendance rows. "
+                    + "Run db/dedupe-attendance.sql against the database, then restart.");
+        }
+
+        jdbcTemplate.execute("ALTER TABLE attendance ADD CONSTRAINT " + CONSTRAINT_NAME
+                + " UNIQUE (student_id, subject_id, attendance_date)");
+        System.out.println("Added missing unique constraint " + CONSTRAINT_NAME + " to attendance");
+    }
+
+    private boolean constraintExists() {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : new String[] {"attendance", "ATTENDANCE"}) {
+                try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+                    while (indexes.next()) {
+                        if (CONSTRAINT_NAME.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
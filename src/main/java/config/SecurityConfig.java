@@ -39,6 +39,10 @@ public class SecurityConfig {
                                 .requestMatchers("/student/**").hasAuthority("STUDENT")
                                 .requestMatchers("/parent/**").hasAuthority("PARENT")
                                 .requestMatchers("/admin/**").hasAnyAuthority("PRINCIPAL", "IT_ADMIN", "REGISTRAR")
+                                // Gate kiosks sign in with a staff account
+                                .requestMatchers("/kiosk/**").hasAnyAuthority("TEACHER", "IT_ADMIN", "PRINCIPAL")
+                                // Report cards cover every student, so keep them to staff
+                                .requestMatchers("/reports/**").hasAnyAuthority("PRINCIPAL", "TEACHER", "IT_ADMIN", "REGISTRAR")
                                 .anyRequest().authenticated()
                 ).formLogin(
                         form -> form
@@ -0,0 +1,60 @@
+package com.wsims.controller;
+
+import com.parami.wsims.service.AbsenteeismService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/api/absenteeism")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class AbsenteeismController {
+
+    private final AbsenteeismService absenteeismService;
+
+    @Autowired
+    public AbsenteeismController(AbsenteeismService absenteeismService) {
+        this.absenteeismService = absenteeismService;
+    }
+
+    /**
+     * Students flagged by the last detection run
+     */
+    @GetMapping("/flags")
+    public ResponseEntity<Map<String, Object>> getFlags() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("flags", absenteeismService.getFlags());
+        response.put("lastRun", absenteeismService.getLastRun().orElse(null));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Run detection now instead of waiting for the nightly job
+     */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> runDetection() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("run", absenteeismService.runDetection());
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(createErrorResponse("Error running absenteeism detection: " + e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,91 @@
+package com.wsims.controller;
+
+import com.parami.wsims.dto.AttendanceTrendPoint;
+import com.parami.wsims.service.AttendanceRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/api/analytics/attendance")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class AttendanceTrendController {
+
+    private final AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    public AttendanceTrendController(AttendanceRollupService attendanceRollupService) {
+        this.attendanceRollupService = attendanceRollupService;
+    }
+
+    /**
+     * School-wide attendance trend from the daily rollups
+     * e.g. /admin/api/analytics/attendance/trend?from=2025-01-01&to=2025-06-30&groupBy=week&gradeLevel=Grade 9
+     */
+    @GetMapping("/trend")
+    public ResponseEntity<Map<String, Object>> getTrend(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "day") String groupBy,
+            @RequestParam(required = false) Long subjectId,
+            @RequestParam(required = false) String gradeLevel) {
+        AttendanceRollupService.Granularity granularity;
+        switch (groupBy.toLowerCase(Locale.ROOT)) {
+            case "day" -> granularity = AttendanceRollupService.Granularity.DAY;
+            case "week" -> granularity = AttendanceRollupService.Granularity.WEEK;
+            case "month" -> granularity = AttendanceRollupService.Granularity.MONTH;
+            default -> {
+                return ResponseEntity.badRequest().body(createErrorResponse("groupBy must be one of: day, week, month"));
+            }
+        }
+
+        try {
+            LocalDate fromDate = LocalDate.parse(from);
+            LocalDate toDate = LocalDate.parse(to);
+            List<AttendanceTrendPoint> points = attendanceRollupService.getTrend(fromDate, toDate, subjectId, gradeLevel, granularity);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("from", fromDate);
+            response.put("to", toDate);
+            response.put("groupBy", groupBy);
+            response.put("subjectId", subjectId);
+            response.put("gradeLevel", gradeLevel);
+            response.put("points", points);
+            return ResponseEntity.ok(response);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Invalid date range: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(createErrorResponse("Error loading attendance trend: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Grade levels available as trend filters
+     */
+    @GetMapping("/grade-levels")
+    public ResponseEntity<Map<String, Object>> getGradeLevels() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("gradeLevels", attendanceRollupService.getGradeLevels());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,156 @@
+package com.wsims.controller;
+
+import com.parami.wsims.dto.ClassRanking;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.service.ClassRankingService;
+import com.parami.wsims.service.ParentLinkService;
+import com.parami.wsims.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/rankings")
+public class ClassRankingController {
+
+    private static final Set<String> STAFF_ROLES = Set.of("PRINCIPAL", "TEACHER", "IT_ADMIN", "REGISTRAR");
+
+    private final ClassRankingService classRankingService;
+    private final UserService userService;
+    private final ParentLinkService parentLinkService;
+
+    @Autowired
+    public ClassRankingController(ClassRankingService classRankingService,
+                                  UserService userService,
+                                  ParentLinkService parentLinkService) {
+        this.classRankingService = classRankingService;
+        this.userService = userService;
+        this.parentLinkService = parentLinkService;
+    }
+
+    /**
+     * Full class ranking with distribution (staff only). Method security is not enabled
+     * and no path rule covers /api/**, so the role is checked here as well.
+     */
+    @GetMapping("/course/{courseId}/exam/{examScheduleId}")
+    @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'TEACHER', 'IT_ADMIN', 'REGISTRAR')")
+    public ResponseEntity<Map<String, Object>> getClassRanking(@PathVariable Long courseId,
+                                                               @PathVariable Long examScheduleId,
+                                                               @RequestParam(required = false) Long subjectId) {
+        try {
+            User currentUser = getCurrentUser();
+            if (currentUser == null) {
+                return ResponseEntity.status(401).body(createErrorResponse("User not authenticated"));
+            }
+            if (!isStaff(currentUser)) {
+                return ResponseEntity.status(403).body(createErrorResponse("Access denied"));
+            }
+
+            ClassRanking ranking = classRankingService.getRanking(courseId, examScheduleId, subjectId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("courseId", courseId);
+            response.put("examScheduleId", examScheduleId);
+            response.put("subjectId", subjectId);
+            response.put("classSize", ranking.getClassSize());
+            response.put("mean", ranking.getMean());
+            response.put("median", ranking.getMedian());
+            response.put("highest", ranking.getHighest());
+            response.put("lowest", ranking.getLowest());
+            response.put("histogram", ranking.getHistogram());
+            response.put("studentIds", ranking.getStudentIds());
+            response.put("scores", ranking.getScores());
+            response.put("ranks", ranking.getRanks());
+            response.put("percentiles", ranking.getPercentiles());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Error loading class ranking: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * One student's position in class (staff, the student, or a linked parent)
+     */
+    @GetMapping("/course/{courseId}/exam/{examScheduleId}/student/{studentId}")
+    public ResponseEntity<Map<String, Object>> getStudentStanding(@PathVariable Long courseId,
+                                                                  @PathVariable Long examScheduleId,
+                                                                  @PathVariable Long studentId,
+                                                                  @RequestParam(required = false) Long subjectId) {
+        try {
+            User currentUser = getCurrentUser();
+            if (currentUser == null) {
+                return ResponseEntity.status(401).body(createErrorResponse("User not authenticated"));
+            }
+            if (!canViewStudent(currentUser, studentId)) {
+                return ResponseEntity.status(403).body(createErrorResponse("Access denied"));
+            }
+
+            ClassRanking ranking = classRankingService.getRanking(courseId, examScheduleId, subjectId);
+            ClassRanking.Standing standing = ranking.getStanding(studentId);
+            if (standing == null) {
+                return ResponseEntity.status(404).body(createErrorResponse("No graded marks for this student in the selected class"));
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("studentId", studentId);
+            response.put("score", standing.score());
+            response.put("rank", standing.rank());
+            response.put("percentile", standing.percentile());
+            response.put("classSize", standing.classSize());
+            response.put("classMean", ranking.getMean());
+            response.put("histogram", ranking.getHistogram());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Error loading class position: " + e.getMessage()));
+        }
+    }
+
+    private boolean isStaff(User currentUser) {
+        String role = currentUser.getRole() != null ? currentUser.getRole().getName() : null;
+        return role != null && STAFF_ROLES.contains(role);
+    }
+
+    private boolean canViewStudent(User currentUser, Long studentId) {
+        if (isStaff(currentUser)) {
+            return true;
+        }
+        if (currentUser.getId().equals(studentId)) {
+            return true;
+        }
+        try {
+            return parentLinkService.isParentLinkedToStudent(currentUser.getId(), studentId);
+        } catch (Exception e) {
+            System.err.println("Error checking parent relationship: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() &&
+            !authentication.getName().equals("anonymousUser")) {
+            return userService.findByUsername(authentication.getName()).orElse(null);
+        }
+        return null;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,69 @@
+package com.wsims.controller;
+
+import com.parami.wsims.dto.GradeDistribution;
+import com.parami.wsims.service.GradeAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/api/analytics")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class GradeAnalyticsController {
+
+    private final GradeAnalyticsService gradeAnalyticsService;
+
+    @Autowired
+    public GradeAnalyticsController(GradeAnalyticsService gradeAnalyticsService) {
+        this.gradeAnalyticsService = gradeAnalyticsService;
+    }
+
+    /**
+     * Letter-grade distribution per subject, exam or grade level
+     * e.g. /admin/api/analytics/grades?groupBy=gradeLevel&examScheduleId=3
+     */
+    @GetMapping("/grades")
+    public ResponseEntity<Map<String, Object>> getGradeDistribution(
+            @RequestParam(defaultValue = "subject") String groupBy,
+            @RequestParam(required = false) Long examScheduleId,
+            @RequestParam(required = false) Long subjectId) {
+        GradeAnalyticsService.Dimension dimension;
+        switch (groupBy.toLowerCase(Locale.ROOT)) {
+            case "subject" -> dimension = GradeAnalyticsService.Dimension.SUBJECT;
+            case "exam" -> dimension = GradeAnalyticsService.Dimension.EXAM;
+            case "gradelevel", "grade_level", "grade-level" -> dimension = GradeAnalyticsService.Dimension.GRADE_LEVEL;
+            default -> {
+                Map<String, Object> error = new HashMap<>();
+                error.put("success", false);
+                error.put("message", "groupBy must be one of: subject, exam, gradeLevel");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+
+        try {
+            List<GradeDistribution> distribution = gradeAnalyticsService.getDistribution(dimension, examScheduleId, subjectId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("groupBy", groupBy);
+            response.put("examScheduleId", examScheduleId);
+            response.put("subjectId", subjectId);
+            response.put("groups", distribution);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", "Error loading grade distribution: " + e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.wsims.controller;
 
+import com.parami.wsims.dto.GradeUpsertReport;
 import com.parami.wsims.entity.*;
 import com.parami.wsims.service.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -164,15 +165,22 @@ public class GradeEntryController {
                 throw new IllegalArgumentException("You don't teach this course");
             }
 
-            // Save grades
-            System.out.println("Calling gradeService.saveBulkGrades...");
-            List<Grade> savedGrades = gradeService.saveBulkGrades(gradeEntries, courseId, examScheduleId);
-            System.out.println("GradeService returned " + savedGrades.size() + " saved grades");
+            // Save grades as one set-based upsert
+            GradeUpsertReport report = gradeService.upsertBulkGrades(gradeEntries, courseId, examScheduleId);
+            System.out.println("Grade upsert finished - created: " + report.getCreatedCount() +
+                             ", updated: " + report.getUpdatedCount() +
+                             ", skipped: " + report.getSkippedCount() +
+                             ", failed: " + report.getFailedCount());
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Grades saved successfully!");
-            response.put("savedCount", savedGrades.size());
+            response.put("savedCount", report.getSavedCount());
+            response.put("createdCount", report.getCreatedCount());
+            response.put("updatedCount", report.getUpdatedCount());
+            response.put("skippedCount", report.getSkippedCount());
+            response.put("failedCount", report.getFailedCount());
+            response.put("results", report.getRows());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             System.err.println("=== GradeEntryController: Exception caught ===");
@@ -235,6 +243,40 @@ public class GradeEntryController {
         }
     }
 
+    /**
+     * Get existing grades for a course and exam schedule as a compact students x subjects matrix
+     */
+    @GetMapping("/api/course/{courseId}/exam/{examScheduleId}/matrix")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getGradebookMatrix(@PathVariable Long courseId,
+                                                                  @PathVariable Long examScheduleId) {
+        try {
+            User currentUser = getCurrentUser();
+            if (currentUser == null) {
+                throw new IllegalArgumentException("User not authenticated");
+            }
+
+            // Verify teacher teaches this course
+            List<Course> teacherCourses = courseService.getCoursesByTeacher(currentUser.getId());
+            boolean teachesCourse = teacherCourses.stream()
+                    .anyMatch(course -> course.getId().equals(courseId));
+            
+            if (!teachesCourse) {
+                throw new IllegalArgumentException("You don't teach this course");
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("matrix", gradeService.getGradebookMatrix(courseId, examScheduleId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error fetching gradebook: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Delete a specific grade
      */
@@ -0,0 +1,93 @@
+package com.wsims.controller;
+
+import com.parami.wsims.dto.GradeImportJob;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.service.GradeImportService;
+import com.parami.wsims.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * School-wide marks sheet import for the registrar. Uploads are processed in the
+ * background; the status endpoint reports progress while the job runs.
+ *
+ * Job status lives in memory for 24 hours after a job finishes and does not survive
+ * a restart: the status URL then answers 404 and any import that was running stopped
+ * part-way. Uploading the sheet again is safe, as rows are upserted by key.
+ */
+@Controller
+@RequestMapping("/admin/grades/import")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class GradeImportController {
+
+    private final GradeImportService gradeImportService;
+    private final UserService userService;
+
+    @Autowired
+    public GradeImportController(GradeImportService gradeImportService, UserService userService) {
+        this.gradeImportService = gradeImportService;
+        this.userService = userService;
+    }
+
+    /**
+     * Upload a CSV or XLSX marks sheet. Expected columns: studentId, courseId,
+     * subjectId, examScheduleId, marksObtained and optionally totalMarks, comments.
+     */
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importGrades(@RequestParam("file") MultipartFile file) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            GradeImportJob job = gradeImportService.submitImport(file, currentUser.getId());
+
+            response.put("success", true);
+            response.put("message", "Import started");
+            response.put("jobId", job.getJobId());
+            response.put("statusUrl", "/admin/grades/import/" + job.getJobId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("Error starting grade import: " + e.getMessage());
+            response.put("success", false);
+            response.put("message", "Error starting import: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Get the progress of an import job
+     */
+    @GetMapping("/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getImportStatus(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        Optional<GradeImportJob> job = gradeImportService.getJob(jobId);
+        if (job.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Import job not found: " + jobId +
+                    " (job status is not kept across restarts; re-upload the sheet if it did not finish)");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        response.put("job", job.get());
+        return ResponseEntity.ok(response);
+    }
+}
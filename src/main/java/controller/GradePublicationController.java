@@ -0,0 +1,82 @@
+package com.wsims.controller;
+
+import com.parami.wsims.entity.GradeSnapshot;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.service.GradeSnapshotService;
+import com.parami.wsims.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/api/grade-publications")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class GradePublicationController {
+
+    private final GradeSnapshotService gradeSnapshotService;
+    private final UserService userService;
+
+    @Autowired
+    public GradePublicationController(GradeSnapshotService gradeSnapshotService, UserService userService) {
+        this.gradeSnapshotService = gradeSnapshotService;
+        this.userService = userService;
+    }
+
+    /**
+     * Publication status and snapshot versions of an exam schedule
+     */
+    @GetMapping("/{examScheduleId}")
+    public ResponseEntity<Map<String, Object>> getPublication(@PathVariable Long examScheduleId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("examScheduleId", examScheduleId);
+        response.put("published", gradeSnapshotService.isPublished(examScheduleId));
+        response.put("unpublishedChanges", gradeSnapshotService.hasUnpublishedChanges(examScheduleId));
+        response.put("versions", gradeSnapshotService.getVersions(examScheduleId));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Publish an exam schedule's grades to students and parents; later edits stay unpublished until this is called again
+     */
+    @PostMapping("/{examScheduleId}")
+    public ResponseEntity<Map<String, Object>> publish(@PathVariable Long examScheduleId) {
+        try {
+            User currentUser = getCurrentUser();
+            GradeSnapshot snapshot = gradeSnapshotService.publish(examScheduleId,
+                    currentUser != null ? currentUser.getId() : null);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Published " + snapshot.getEntryCount() + " grades as version " + snapshot.getVersion());
+            response.put("snapshot", snapshot);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(createErrorResponse("Error publishing grades: " + e.getMessage()));
+        }
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() &&
+            !authentication.getName().equals("anonymousUser")) {
+            return userService.findByUsername(authentication.getName()).orElse(null);
+        }
+        return null;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,110 @@
+package com.wsims.controller;
+
+import com.parami.wsims.dto.GradingScaleRequest;
+import com.parami.wsims.entity.GradingScale;
+import com.parami.wsims.service.GradingScaleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/api/grading-scales")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class GradingScaleController {
+
+    private final GradingScaleService gradingScaleService;
+
+    @Autowired
+    public GradingScaleController(GradingScaleService gradingScaleService) {
+        this.gradingScaleService = gradingScaleService;
+    }
+
+    /**
+     * List configured grading scales
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getScales() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("scales", gradingScaleService.getAllScales());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Scale in effect for an academic year (the default scale if none is configured) and recompute status
+     */
+    @GetMapping("/{academicYear}")
+    public ResponseEntity<Map<String, Object>> getScale(@PathVariable String academicYear) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("academicYear", academicYear);
+        response.put("configured", gradingScaleService.getScale(academicYear).isPresent());
+        response.put("bands", gradingScaleService.getCompiledScale(academicYear).getBands());
+        response.put("recompute", gradingScaleService.getRecomputeStatus(academicYear));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Create or replace the scale for an academic year; existing grades are recomputed in the background
+     */
+    @PutMapping("/{academicYear}")
+    public ResponseEntity<Map<String, Object>> saveScale(@PathVariable String academicYear,
+                                                         @RequestBody GradingScaleRequest request) {
+        try {
+            List<GradingScale.Band> bands = request.bands() == null ? List.of() : request.bands().stream()
+                    .map(band -> new GradingScale.Band(band.minPercentage(), band.letterGrade(), band.gradePoint()))
+                    .toList();
+            GradingScale saved = gradingScaleService.saveScale(academicYear, request.name(), bands);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Grading scale saved; grades for " + academicYear + " are being recomputed");
+            response.put("scale", saved);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(createErrorResponse("Error saving grading scale: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Remove a year's scale; its grades revert to the default scale
+     */
+    @DeleteMapping("/{academicYear}")
+    public ResponseEntity<Map<String, Object>> deleteScale(@PathVariable String academicYear) {
+        try {
+            gradingScaleService.deleteScale(academicYear);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Grading scale removed; grades for " + academicYear + " are being recomputed");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Re-run the recompute for an academic year, e.g. after grades were imported outside the application
+     */
+    @PostMapping("/{academicYear}/recompute")
+    public ResponseEntity<Map<String, Object>> recompute(@PathVariable String academicYear) {
+        gradingScaleService.recomputeGrades(academicYear);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("recompute", gradingScaleService.getRecomputeStatus(academicYear));
+        return ResponseEntity.accepted().body(response);
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,135 @@
+package com.wsims.controller;
+
+import com.parami.wsims.service.KioskCheckInService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ingest endpoint for gate kiosks. Kiosks sign in with a staff account and post each
+ * scan (or a small batch of scans) here; the response only confirms that the scans
+ * were buffered, not that the attendance rows have been written. A batch is queued
+ * all-or-nothing: a 429 means none of its scans were taken, so the kiosk can resend
+ * the whole batch.
+ */
+@RestController
+@RequestMapping("/kiosk/api")
+@PreAuthorize("hasAnyAuthority('TEACHER', 'IT_ADMIN', 'PRINCIPAL')")
+public class KioskCheckInController {
+
+    private final KioskCheckInService kioskCheckInService;
+
+    @Autowired
+    public KioskCheckInController(KioskCheckInService kioskCheckInService) {
+        this.kioskCheckInService = kioskCheckInService;
+    }
+
+    /**
+     * Accept one scan ({"studentId": 1, "scannedAt": "..."}) or several ({"checkIns": [...]}).
+     * scannedAt is optional and defaults to the time the request arrives. The response
+     * lists the outcome of each scan in request order.
+     */
+    @PostMapping("/check-ins")
+    public ResponseEntity<Map<String, Object>> checkIn(@RequestBody Map<String, Object> request) {
+        List<Map<String, Object>> checkIns = new ArrayList<>();
+        try {
+            Object batch = request.get("checkIns");
+            if (batch instanceof List<?> list) {
+                for (Object item : list) {
+                    if (!(item instanceof Map<?, ?>)) {
+                        throw new IllegalArgumentException("Each check-in must be an object");
+                    }
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> checkIn = (Map<String, Object>) item;
+                    checkIns.add(checkIn);
+                }
+            } else {
+                checkIns.add(request);
+            }
+
+            // Validate the whole request before queueing any of it
+            LocalDateTime now = LocalDateTime.now();
+            List<KioskCheckInService.Scan> scans = new ArrayList<>();
+            for (Map<String, Object> checkIn : checkIns) {
+                Object studentIdObj = checkIn.get("studentId");
+                if (studentIdObj == null) {
+                    throw new IllegalArgumentException("Missing studentId");
+                }
+                Object scannedAtObj = checkIn.get("scannedAt");
+                scans.add(new KioskCheckInService.Scan(Long.valueOf(studentIdObj.toString()),
+                        scannedAtObj != null ? LocalDateTime.parse(scannedAtObj.toString()) : now));
+            }
+
+            List<KioskCheckInService.Outcome> outcomes = kioskCheckInService.submitAll(scans);
+            Map<KioskCheckInService.Outcome, Integer> counts = new EnumMap<>(KioskCheckInService.Outcome.class);
+            List<Map<String, Object>> results = new ArrayList<>();
+            List<Long> unknownStudents = new ArrayList<>();
+            for (int i = 0; i < scans.size(); i++) {
+                KioskCheckInService.Outcome outcome = outcomes.get(i);
+                counts.merge(outcome, 1, Integer::sum);
+                if (outcome == KioskCheckInService.Outcome.UNKNOWN_STUDENT) {
+                    unknownStudents.add(scans.get(i).studentId());
+                }
+                Map<String, Object> result = new HashMap<>();
+                result.put("studentId", scans.get(i).studentId());
+                result.put("outcome", outcome.name());
+                results.add(result);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("results", results);
+            response.put("accepted", counts.getOrDefault(KioskCheckInService.Outcome.ACCEPTED, 0));
+            response.put("duplicates", counts.getOrDefault(KioskCheckInService.Outcome.DUPLICATE, 0));
+            response.put("unknown", unknownStudents.size());
+            if (counts.containsKey(KioskCheckInService.Outcome.UNAVAILABLE)) {
+                response.put("success", false);
+                response.put("message", "Check-in is not available right now");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+            if (counts.containsKey(KioskCheckInService.Outcome.QUEUE_FULL)) {
+                response.put("success", false);
+                response.put("message", "Check-in queue is full, retry shortly");
+                response.put("rejected", counts.get(KioskCheckInService.Outcome.QUEUE_FULL));
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", "2").body(response);
+            }
+            if (!unknownStudents.isEmpty()) {
+                response.put("success", false);
+                response.put("message", "Unknown students: " + unknownStudents);
+                if (counts.getOrDefault(KioskCheckInService.Outcome.ACCEPTED, 0) == 0) {
+                    return ResponseEntity.badRequest().body(response);
+                }
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Invalid check-in: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Queue depth and counters, for monitoring the kiosks during the morning rush
+     */
+    @GetMapping("/check-ins/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("status", kioskCheckInService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -6,6 +6,8 @@ import com.parami.wsims.service.ParentLinkService;
 import com.parami.wsims.service.UserService;
 import com.parami.wsims.service.AttendanceService;
 import com.parami.wsims.service.AnnouncementService;
+import com.parami.wsims.service.AbsenteeismService;
+import com.parami.wsims.service.AttendanceCalendarService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -21,6 +23,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -35,16 +38,22 @@ public class ParentDashboardController {
     private final UserService userService;
     private final AttendanceService attendanceService;
     private final AnnouncementService announcementService;
+    private final AbsenteeismService absenteeismService;
+    private final AttendanceCalendarService attendanceCalendarService;
 
     @Autowired
     public ParentDashboardController(ParentLinkService parentLinkService,
                                    UserService userService,
                                    AttendanceService attendanceService,
-                                   AnnouncementService announcementService) {
+                                   AnnouncementService announcementService,
+                                   AbsenteeismService absenteeismService,
+                                   AttendanceCalendarService attendanceCalendarService) {
         this.parentLinkService = parentLinkService;
         this.userService = userService;
         this.attendanceService = attendanceService;
         this.announcementService = announcementService;
+        this.absenteeismService = absenteeismService;
+        this.attendanceCalendarService = attendanceCalendarService;
     }
 
     // Parent dashboard page
@@ -392,6 +401,67 @@ public class ParentDashboardController {
         }
     }
 
+    // API: Get child's chronic absenteeism flag, if any
+    @GetMapping("/api/child/{childUserId}/attendance/absenteeism")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getChildAbsenteeism(@PathVariable Long childUserId) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            if (!parentLinkService.isParentLinkedToStudent(currentUser.getId(), childUserId)) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("error", "Access denied: Child not linked to parent");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            var flag = absenteeismService.getFlag(childUserId);
+            response.put("flagged", flag.isPresent());
+            response.put("flag", flag.orElse(null));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "Error retrieving absenteeism status: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // API: Get child's calendar of day x status counts for one month (month=yyyy-MM) or a term (from/to=yyyy-MM)
+    @GetMapping("/api/child/{childUserId}/attendance/calendar")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getChildAttendanceCalendar(
+            @PathVariable Long childUserId,
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+
+            if (!parentLinkService.isParentLinkedToStudent(currentUser.getId(), childUserId)) {
+                response.put("error", "Access denied: Child not linked to parent");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+
+            YearMonth start = YearMonth.parse(from != null ? from : month != null ? month : YearMonth.now().toString());
+            YearMonth end = to != null ? YearMonth.parse(to) : start;
+
+            response.put("statuses", Attendance.AttendanceStatus.values());
+            response.put("months", attendanceCalendarService.getCalendar(childUserId, start, end));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            response.put("error", "Invalid calendar range: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("error", "Error retrieving attendance calendar: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     // Parent announcements page
     @GetMapping("/announcements")
     public String parentAnnouncements(Model model) {
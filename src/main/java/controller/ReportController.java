@@ -2,43 +2,63 @@ package com.wsims.controller;
 
 import com.parami.wsims.entity.User;
 import com.parami.wsims.entity.ExamSchedule;
-import com.parami.wsims.service.ReportGenerationService;
+import com.parami.wsims.entity.ReportJob;
+import com.parami.wsims.service.ReportBatchService;
+import com.parami.wsims.service.ReportCardCacheService;
+import com.parami.wsims.service.ReportJobService;
 import com.parami.wsims.service.UserService;
 import com.parami.wsims.service.ExamScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.HashMap;
 
 @Controller
 @RequestMapping("/reports")
 public class ReportController {
 
-    private final ReportGenerationService reportGenerationService;
     private final UserService userService;
     private final ExamScheduleService examScheduleService;
     private final com.parami.wsims.service.ReportTemplateService templateService;
+    private final ReportBatchService reportBatchService;
+    private final ReportCardCacheService reportCardCacheService;
+    private final ReportJobService reportJobService;
+
+    @Value("${wsims.reports.batch-max-students:2000}")
+    private int batchMaxStudents;
 
     @Autowired
-    public ReportController(ReportGenerationService reportGenerationService,
-                          UserService userService,
+    public ReportController(UserService userService,
                           ExamScheduleService examScheduleService,
-                          com.parami.wsims.service.ReportTemplateService templateService) {
-        this.reportGenerationService = reportGenerationService;
+                          com.parami.wsims.service.ReportTemplateService templateService,
+                          ReportBatchService reportBatchService,
+                          ReportCardCacheService reportCardCacheService,
+                          ReportJobService reportJobService) {
         this.userService = userService;
         this.examScheduleService = examScheduleService;
         this.templateService = templateService;
+        this.reportBatchService = reportBatchService;
+        this.reportCardCacheService = reportCardCacheService;
+        this.reportJobService = reportJobService;
     }
 
     /**
@@ -117,50 +137,164 @@ public class ReportController {
     }
 
     /**
-     * Generate and download PDF report card
+     * Queue a PDF report card. Rendering runs on the report job workers rather than the
+     * request thread; poll /reports/jobs/{jobId} and fetch the PDF from its downloadUrl.
      */
     @PostMapping("/generate-pdf")
+    @ResponseBody
     @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'TEACHER', 'IT_ADMIN', 'REGISTRAR')")
-    public ResponseEntity<ByteArrayResource> generateReportCard(
+    public ResponseEntity<Map<String, Object>> generateReportCard(
             @RequestParam Long studentId,
             @RequestParam Long examScheduleId,
             @RequestParam(required = false) String termName,
-            @RequestParam(required = false) Long templateId) {
+            @RequestParam(required = false) Long templateId,
+            Authentication authentication) {
         
         try {
-            System.out.println("Generating report card for student ID: " + studentId + ", exam schedule ID: " + examScheduleId);
+            System.out.println("Queueing report card for student ID: " + studentId + ", exam schedule ID: " + examScheduleId);
             
-            // Get student and exam schedule for filename
-            User student = userService.getUserById(studentId);
-            ExamSchedule examSchedule = examScheduleService.getExamScheduleById(examScheduleId);
+            // Fail fast on unknown ids rather than in the worker
+            userService.getUserById(studentId);
+            examScheduleService.getExamScheduleById(examScheduleId);
             
-            // Generate PDF
-            ByteArrayOutputStream pdfOutputStream = reportGenerationService.generateStudentReportCard(
-                studentId, examScheduleId, termName, templateId);
+            ReportJob job = reportJobService.submitSingle(studentId, examScheduleId, termName, templateId,
+                    authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(createJobResponse(job));
+                    
+        } catch (Exception e) {
+            System.err.println("Error queueing report card: " + e.getMessage());
+            return ResponseEntity.badRequest().body(createErrorResponse("Error generating report card: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Generate report cards for a whole course or grade level and download them as one ZIP.
+     * Report cards are rendered in parallel and streamed into the ZIP as each one finishes.
+     */
+    @PostMapping("/generate-batch")
+    @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'TEACHER', 'IT_ADMIN', 'REGISTRAR')")
+    public ResponseEntity<StreamingResponseBody> generateReportCardBatch(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) String gradeLevel,
+            @RequestParam Long examScheduleId,
+            @RequestParam(required = false) String termName,
+            @RequestParam(required = false) Long templateId) {
+        
+        try {
+            ExamSchedule examSchedule = examScheduleService.getExamScheduleById(examScheduleId);
+            List<Long> studentIds = reportBatchService.resolveStudents(courseId, gradeLevel);
+            if (studentIds.isEmpty() || studentIds.size() > batchMaxStudents) {
+                System.err.println("Report card batch rejected: " + studentIds.size() + " students (limit " + batchMaxStudents + ")");
+                return ResponseEntity.badRequest().build();
+            }
+            System.out.println("Generating " + studentIds.size() + " report cards for exam schedule ID: " + examScheduleId);
             
-            // Create filename
-            String filename = String.format("ReportCard_%s_%s_%s.pdf",
-                student.getUsername(),
+            String filename = String.format("ReportCards_%s_%s_%s.zip",
+                courseId != null ? "course" + courseId : gradeLevel.trim().replaceAll("\\s+", "_"),
                 examSchedule.getExamName().replaceAll("\\s+", "_"),
                 LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd"))
             );
             
-            // Create response
-            ByteArrayResource resource = new ByteArrayResource(pdfOutputStream.toByteArray());
+            StreamingResponseBody body = out ->
+                    reportBatchService.writeReportCardZip(studentIds, examScheduleId, termName, templateId, out);
             
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .contentLength(pdfOutputStream.size())
-                    .body(resource);
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(body);
                     
         } catch (Exception e) {
-            System.err.println("Error generating report card: " + e.getMessage());
+            System.err.println("Error generating report card batch: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Queue report cards for a whole course or grade level as one ZIP job. Batch jobs run
+     * behind single report cards.
+     */
+    @PostMapping("/jobs/batch")
+    @ResponseBody
+    @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'TEACHER', 'IT_ADMIN', 'REGISTRAR')")
+    public ResponseEntity<Map<String, Object>> queueReportCardBatch(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) String gradeLevel,
+            @RequestParam Long examScheduleId,
+            @RequestParam(required = false) String termName,
+            @RequestParam(required = false) Long templateId,
+            Authentication authentication) {
+        
+        try {
+            examScheduleService.getExamScheduleById(examScheduleId);
+            List<Long> studentIds = reportBatchService.resolveStudents(courseId, gradeLevel);
+            if (studentIds.isEmpty() || studentIds.size() > batchMaxStudents) {
+                return ResponseEntity.badRequest().body(createErrorResponse(
+                        "A batch must cover between 1 and " + batchMaxStudents + " students, found " + studentIds.size()));
+            }
+            ReportJob job = reportJobService.submitBatch(courseId, gradeLevel, examScheduleId, termName, templateId,
+                    authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(createJobResponse(job));
+        } catch (Exception e) {
+            System.err.println("Error queueing report card batch: " + e.getMessage());
+            return ResponseEntity.badRequest().body(createErrorResponse("Error queueing report card batch: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Status of a queued report job
+     */
+    @GetMapping("/jobs/{jobId}")
+    @ResponseBody
+    @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'TEACHER', 'IT_ADMIN', 'REGISTRAR')")
+    public ResponseEntity<Map<String, Object>> getReportJob(@PathVariable Long jobId, Authentication authentication) {
+        Optional<ReportJob> job = reportJobService.getJob(jobId).filter(j -> canAccess(j, authentication));
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Report job not found"));
+        }
+        return ResponseEntity.ok(createJobResponse(job.get()));
+    }
+
+    /**
+     * Download the output of a completed report job
+     */
+    @GetMapping("/jobs/{jobId}/download")
+    @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'TEACHER', 'IT_ADMIN', 'REGISTRAR')")
+    public ResponseEntity<Resource> downloadReportJob(@PathVariable Long jobId, Authentication authentication) {
+        Optional<ReportJob> found = reportJobService.getJob(jobId).filter(j -> canAccess(j, authentication));
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ReportJob job = found.get();
+        if (job.getStatus() != ReportJob.JobStatus.COMPLETED || job.getResultPath() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Path result = Paths.get(job.getResultPath());
+        if (!Files.isReadable(result)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        MediaType contentType = job.getJobType() == ReportJob.JobType.BATCH
+                ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getDownloadName() + "\"")
+                .contentType(contentType)
+                .contentLength(job.getResultSize())
+                .body(new FileSystemResource(result));
+    }
+
+    /**
+     * Occupancy and hit rate of the rendered report card cache
+     */
+    @GetMapping("/api/cache-status")
+    @ResponseBody
+    @PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getReportCardCacheStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("cache", reportCardCacheService.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Preview report card data (for validation before PDF generation)
      */
@@ -193,4 +327,43 @@ public class ReportController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
     }
+
+    // Staff see their own jobs; principals and IT admins see every job
+    private boolean canAccess(ReportJob job, Authentication authentication) {
+        if (authentication == null) {
+            return false;
+        }
+        if (job.getRequestedBy().equals(authentication.getName())) {
+            return true;
+        }
+        return authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("PRINCIPAL") || a.getAuthority().equals("IT_ADMIN"));
+    }
+
+    private Map<String, Object> createJobResponse(ReportJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.getId());
+        response.put("type", job.getJobType());
+        response.put("status", job.getStatus());
+        response.put("attempts", job.getAttempts());
+        response.put("maxAttempts", job.getMaxAttempts());
+        response.put("lastError", job.getLastError());
+        response.put("createdAt", job.getCreatedAt());
+        response.put("completedAt", job.getCompletedAt());
+        response.put("statusUrl", "/reports/jobs/" + job.getId());
+        if (job.getStatus() == ReportJob.JobStatus.COMPLETED) {
+            response.put("downloadName", job.getDownloadName());
+            response.put("size", job.getResultSize());
+            response.put("downloadUrl", "/reports/jobs/" + job.getId() + "/download");
+        }
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
 }
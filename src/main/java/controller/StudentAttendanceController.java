@@ -2,6 +2,7 @@ package com.wsims.controller;
 
 import com.parami.wsims.entity.Attendance;
 import com.parami.wsims.entity.User;
+import com.parami.wsims.service.AttendanceCalendarService;
 import com.parami.wsims.service.AttendanceService;
 import com.parami.wsims.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +16,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,12 +26,15 @@ public class StudentAttendanceController {
     
     private final AttendanceService attendanceService;
     private final UserService userService;
+    private final AttendanceCalendarService attendanceCalendarService;
     
     @Autowired
     public StudentAttendanceController(AttendanceService attendanceService,
-                                    UserService userService) {
+                                    UserService userService,
+                                    AttendanceCalendarService attendanceCalendarService) {
         this.attendanceService = attendanceService;
         this.userService = userService;
+        this.attendanceCalendarService = attendanceCalendarService;
     }
     
     // Display the student attendance page
@@ -59,7 +64,8 @@ public class StudentAttendanceController {
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String subjectId) {
+            @RequestParam(required = false) String subjectId,
+            @RequestParam(required = false) String cursor) {
         
         Map<String, Object> response = new HashMap<>();
         
@@ -76,6 +82,19 @@ public class StudentAttendanceController {
             
             System.out.println("Found user with ID: " + currentUser.getId());
             
+            // Keyset paging: ?cursor= (empty for the first page) seeks by (date, id) and skips the count
+            if (cursor != null) {
+                var keysetPage = attendanceService.getAttendanceByStudentIdAfter(
+                    currentUser.getId(), cursor, Math.max(1, Math.min(size, 100)));
+                
+                response.put("content", keysetPage.content());
+                response.put("nextCursor", keysetPage.nextCursor());
+                response.put("hasMore", keysetPage.hasMore());
+                response.put("size", keysetPage.content().size());
+                
+                return ResponseEntity.ok(response);
+            }
+            
             // For now, we'll get all attendance records for the student
             // You might want to add filtering by date range, status, or subject in the future
             var attendancePage = attendanceService.getAttendanceByStudentId(
@@ -93,6 +112,9 @@ public class StudentAttendanceController {
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             System.err.println("Error retrieving student attendance: " + e.getMessage());
             e.printStackTrace();
@@ -174,6 +196,38 @@ public class StudentAttendanceController {
         }
     }
     
+    // Get a calendar of day x status counts for one month (month=yyyy-MM) or a term (from/to=yyyy-MM)
+    @GetMapping("/api/my-calendar")
+    @PreAuthorize("hasAnyAuthority('STUDENT', 'PARENT')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getMyCalendar(
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            YearMonth start = YearMonth.parse(from != null ? from : month != null ? month : YearMonth.now().toString());
+            YearMonth end = to != null ? YearMonth.parse(to) : start;
+            
+            response.put("statuses", Attendance.AttendanceStatus.values());
+            response.put("months", attendanceCalendarService.getCalendar(currentUser.getId(), start, end));
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            response.put("error", "Invalid calendar range: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("error", "Error retrieving attendance calendar: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     // Get subjects that the student has attendance records for
     @GetMapping("/api/my-subjects")
     @PreAuthorize("hasAnyAuthority('STUDENT', 'PARENT')")
@@ -1,11 +1,19 @@
 package com.wsims.controller;
 
+import com.parami.wsims.dto.KeysetPage;
+import com.parami.wsims.dto.PublishedGrades;
+import com.parami.wsims.dto.StudentGradeRow;
 import com.parami.wsims.entity.Grade;
+import com.parami.wsims.entity.StudentExamPerformance;
 import com.parami.wsims.entity.User;
 import com.parami.wsims.service.GradeService;
+import com.parami.wsims.service.GradeSnapshotService;
 import com.parami.wsims.service.ParentLinkService;
+import com.parami.wsims.service.StudentPerformanceService;
 import com.parami.wsims.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -15,7 +23,9 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -34,6 +44,12 @@ public class StudentGradesController {
     
     @Autowired
     private ParentLinkService parentLinkService;
+    
+    @Autowired
+    private StudentPerformanceService studentPerformanceService;
+    
+    @Autowired
+    private GradeSnapshotService gradeSnapshotService;
 
     /**
      * Display student grades page
@@ -55,14 +71,10 @@ public class StudentGradesController {
                             Collectors.toList()
                     ));
 
-            // Calculate summary statistics
-            long passingGradesCount = grades.stream()
-                    .filter(grade -> grade.isPassing())
-                    .count();
-            
-            long excellentGradesCount = grades.stream()
-                    .filter(grade -> grade.isExcellent())
-                    .count();
+            // Summary statistics come from the per-exam aggregates
+            List<StudentExamPerformance> performance = studentPerformanceService.getPerformanceForStudent(currentUser.getId());
+            long passingGradesCount = performance.stream().mapToLong(StudentExamPerformance::getPassingCount).sum();
+            long excellentGradesCount = performance.stream().mapToLong(StudentExamPerformance::getExcellentCount).sum();
 
             model.addAttribute("grades", grades);
             model.addAttribute("gradesByExam", gradesByExam);
@@ -83,7 +95,10 @@ public class StudentGradesController {
     @GetMapping("/api/grades/{studentId}")
     @ResponseBody
     @PreAuthorize("hasAnyAuthority('STUDENT', 'PARENT')")
-    public ResponseEntity<Map<String, Object>> getStudentGrades(@PathVariable Long studentId) {
+    public ResponseEntity<Map<String, Object>> getStudentGrades(@PathVariable Long studentId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "20") int size,
+                                                                WebRequest webRequest) {
         try {
             System.out.println("=== GRADES API CALLED ===");
             System.out.println("Requested student ID: " + studentId);
@@ -104,33 +119,46 @@ public class StudentGradesController {
             
             System.out.println("ACCESS GRANTED: Loading grades for student " + studentId);
 
-            List<Grade> grades = gradeService.getGradesByStudent(studentId);
-            
-            // Group grades by exam schedule
-            Map<String, List<Grade>> gradesByExam = grades.stream()
-                    .collect(Collectors.groupingBy(
-                            grade -> grade.getExamSchedule().getExamName() + " (" + grade.getExamSchedule().getAcademicYear() + ")",
-                            Collectors.toList()
-                    ));
+            // Keyset paging: ?cursor= (empty for the first page) returns flat published rows and a continuation token
+            if (cursor != null) {
+                KeysetPage<StudentGradeRow> page = gradeSnapshotService.getPublishedGradeRows(studentId, cursor, Math.max(1, Math.min(size, 100)));
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("grades", page.content());
+                response.put("nextCursor", page.nextCursor());
+                response.put("hasMore", page.hasMore());
+                return ResponseEntity.ok(response);
+            }
 
-            // Calculate summary statistics
-            long passingGradesCount = grades.stream()
-                    .filter(grade -> grade.isPassing())
-                    .count();
-            
-            long excellentGradesCount = grades.stream()
-                    .filter(grade -> grade.isExcellent())
-                    .count();
+            // Served from the published snapshots; unchanged until the next publish, so clients revalidate by ETag
+            PublishedGrades published = gradeSnapshotService.getPublishedGrades(studentId);
+            if (webRequest.checkNotModified(published.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(published.etag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+
+            User student = userService.getUserById(studentId);
+            Map<String, Object> studentSummary = new HashMap<>();
+            studentSummary.put("id", student.getId());
+            studentSummary.put("username", student.getUsername());
+            studentSummary.put("firstName", student.getFirstName());
+            studentSummary.put("lastName", student.getLastName());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("grades", grades);
-            response.put("gradesByExam", gradesByExam);
-            response.put("student", userService.getUserById(studentId));
-            response.put("passingGradesCount", passingGradesCount);
-            response.put("excellentGradesCount", excellentGradesCount);
+            response.put("exams", published.exams());
+            response.put("student", studentSummary);
+            response.put("totalGrades", published.totalGrades());
+            response.put("passingGradesCount", published.passingGradesCount());
+            response.put("excellentGradesCount", published.excellentGradesCount());
+            response.put("averageGradePoint", published.averageGradePoint());
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .eTag(published.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(createErrorResponse("Error loading grades: " + e.getMessage()));
         }
@@ -1,10 +1,15 @@
 package com.wsims.controller;
 
+import com.parami.wsims.dto.AbsenteeismFlagView;
+import com.parami.wsims.dto.AttendanceSyncResult;
+import com.parami.wsims.dto.RollCallReport;
 import com.parami.wsims.entity.Attendance;
 import com.parami.wsims.entity.Subject;
 import com.parami.wsims.entity.User;
+import com.parami.wsims.service.AbsenteeismService;
 import com.parami.wsims.service.AttendanceService;
-import com.parami.wsims.service.SubjectService;
+import com.parami.wsims.service.AttendanceSyncService;
+import com.parami.wsims.service.TeachingAssignmentService;
 import com.parami.wsims.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -28,16 +33,22 @@ import java.util.Map;
 public class TeacherAttendanceController {
     
     private final AttendanceService attendanceService;
-    private final SubjectService subjectService;
     private final UserService userService;
+    private final AbsenteeismService absenteeismService;
+    private final AttendanceSyncService attendanceSyncService;
+    private final TeachingAssignmentService teachingAssignmentService;
     
     @Autowired
     public TeacherAttendanceController(AttendanceService attendanceService,
-                                    SubjectService subjectService,
-                                    UserService userService) {
+                                    UserService userService,
+                                    AbsenteeismService absenteeismService,
+                                    AttendanceSyncService attendanceSyncService,
+                                    TeachingAssignmentService teachingAssignmentService) {
         this.attendanceService = attendanceService;
-        this.subjectService = subjectService;
         this.userService = userService;
+        this.absenteeismService = absenteeismService;
+        this.attendanceSyncService = attendanceSyncService;
+        this.teachingAssignmentService = teachingAssignmentService;
     }
     
     // Display the attendance marking page
@@ -50,9 +61,8 @@ public class TeacherAttendanceController {
         User currentUser = userService.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // Get subjects that the teacher teaches (you'll need to implement this based on your teacher-subject relationship)
-        // For now, we'll get all subjects - you may need to modify this based on your teacher-subject assignment logic
-        List<Subject> subjects = subjectService.findAllSubjects();
+        // Only the subjects the teacher is assigned to
+        List<Subject> subjects = attendanceService.getSubjectsForTeacher(currentUser.getId());
         
         model.addAttribute("subjects", subjects);
         model.addAttribute("teacherId", currentUser.getId());
@@ -66,8 +76,10 @@ public class TeacherAttendanceController {
     @ResponseBody
     public ResponseEntity<List<Subject>> getTeacherSubjects() {
         try {
-            // For now, return all subjects - you may need to modify this based on your teacher-subject assignment logic
-            List<Subject> subjects = subjectService.findAllSubjects();
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            List<Subject> subjects = attendanceService.getSubjectsForTeacher(currentUser.getId());
             return ResponseEntity.ok(subjects);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -136,7 +148,6 @@ public class TeacherAttendanceController {
             
             Object subjectIdObj = request.get("subjectId");
             Object dateObj = request.get("date");
-            Object teacherIdObj = request.get("teacherId");
 
             if (subjectIdObj == null) {
                 throw new IllegalArgumentException("Missing subjectId");
@@ -148,17 +159,11 @@ public class TeacherAttendanceController {
             Long subjectId = Long.valueOf(subjectIdObj.toString());
             String dateStr = dateObj.toString();
 
-            // Derive teacherId from security context if not provided by client
-            Long teacherId;
-            if (teacherIdObj != null) {
-                teacherId = Long.valueOf(teacherIdObj.toString());
-            } else {
-                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-                String username = auth.getName();
-                User currentUser = userService.findByUsername(username)
-                        .orElseThrow(() -> new RuntimeException("User not found"));
-                teacherId = currentUser.getId();
-            }
+            // Always record as the signed-in teacher so the roster check cannot be sidestepped
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            Long teacherId = currentUser.getId();
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> attendanceData = (List<Map<String, Object>>) request.get("attendance");
             if (attendanceData == null || attendanceData.isEmpty()) {
@@ -170,33 +175,18 @@ public class TeacherAttendanceController {
             
             LocalDate date = LocalDate.parse(dateStr);
             
-            // Process each attendance record
-            for (Map<String, Object> record : attendanceData) {
-                Long studentId = Long.valueOf(record.get("studentId").toString());
-                String statusStr = record.get("status").toString();
-                String remarks = record.get("remarks") != null ? record.get("remarks").toString() : "";
-                
-                System.out.println("Processing student " + studentId + " with status " + statusStr);
-                
-                Attendance.AttendanceStatus status = Attendance.AttendanceStatus.valueOf(statusStr);
-                
-                // Check if attendance already exists
-                if (attendanceService.attendanceExists(studentId, subjectId, date)) {
-                    System.out.println("Attendance already exists for student " + studentId + ", skipping");
-                    continue;
-                } else {
-                    System.out.println("Creating new attendance record for student " + studentId);
-                    // Create new attendance record
-                    attendanceService.markSingleAttendance(studentId, subjectId, date, status, remarks, teacherId);
-                    System.out.println("Successfully created attendance record for student " + studentId);
-                }
-            }
+            // One MERGE per batch; students already marked for this date are updated
+            int written = attendanceService.upsertAttendance(subjectId, date, teacherId, attendanceData);
             
-            System.out.println("Attendance marking completed successfully");
+            System.out.println("Attendance marking completed successfully: " + written + " rows written");
             response.put("success", true);
             response.put("message", "Attendance marked successfully");
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             System.err.println("Error marking attendance: " + e.getMessage());
             e.printStackTrace();
@@ -206,6 +196,132 @@ public class TeacherAttendanceController {
         }
     }
     
+    // Submit a full roll-call for a subject and date in one set-based write
+    @PostMapping("/api/roll-call")
+    @PreAuthorize("hasAnyAuthority('TEACHER', 'IT_ADMIN', 'PRINCIPAL')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submitRollCall(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            Object subjectIdObj = request.get("subjectId");
+            Object dateObj = request.get("date");
+            if (subjectIdObj == null) {
+                throw new IllegalArgumentException("Missing subjectId");
+            }
+            if (dateObj == null) {
+                throw new IllegalArgumentException("Missing date");
+            }
+            Long subjectId = Long.valueOf(subjectIdObj.toString());
+            LocalDate date = LocalDate.parse(dateObj.toString());
+            
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> attendanceData = (List<Map<String, Object>>) request.get("attendance");
+            if (attendanceData == null || attendanceData.isEmpty()) {
+                throw new IllegalArgumentException("No attendance records provided");
+            }
+            
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            RollCallReport report = attendanceService.submitRollCall(subjectId, date, currentUser.getId(), attendanceData);
+            System.out.println("Roll-call for subject " + subjectId + " on " + date + ": " + report.getCreatedCount() +
+                    " created, " + report.getUpdatedCount() + " updated, " + report.getSkippedCount() + " skipped");
+            
+            response.put("success", true);
+            response.put("message", "Attendance saved successfully");
+            response.put("created", report.getCreated());
+            response.put("updated", report.getUpdated());
+            response.put("skipped", report.getSkipped());
+            response.put("rows", report.getRows());
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("Error saving roll-call: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("message", "Error saving attendance: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    // Push offline attendance edits and pull everything changed since the last sync token
+    @PostMapping("/api/sync")
+    @PreAuthorize("hasAnyAuthority('TEACHER', 'IT_ADMIN', 'PRINCIPAL')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> syncAttendance(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> changes = (List<Map<String, Object>>) request.get("changes");
+            Object syncToken = request.get("syncToken");
+            
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            User currentUser = userService.findByUsername(auth.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            
+            AttendanceSyncResult result = attendanceSyncService.sync(currentUser.getId(),
+                    syncToken != null ? syncToken.toString() : null, changes);
+            
+            response.put("success", true);
+            response.put("results", result.getResults());
+            response.put("changes", result.getChanges());
+            response.put("deleted", result.getDeleted());
+            response.put("syncToken", result.getSyncToken());
+            response.put("hasMore", result.isHasMore());
+            response.put("reset", result.isReset());
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | ClassCastException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("Error syncing attendance: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("message", "Error syncing attendance: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    // Get students flagged for chronic absenteeism by the last detection run. Teachers only
+    // see students enrolled in their subjects; principals and IT admins see every flag.
+    @GetMapping("/api/absenteeism-flags")
+    @PreAuthorize("hasAnyAuthority('TEACHER', 'IT_ADMIN', 'PRINCIPAL')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getAbsenteeismFlags() {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            boolean seesAll = auth.getAuthorities().stream()
+                    .anyMatch(a -> a.getAuthority().equals("PRINCIPAL") || a.getAuthority().equals("IT_ADMIN"));
+            List<AbsenteeismFlagView> flags;
+            if (seesAll) {
+                flags = absenteeismService.getFlags();
+            } else {
+                User currentUser = userService.findByUsername(auth.getName())
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+                flags = absenteeismService.getFlagsForSubjects(
+                        teachingAssignmentService.getRoster(currentUser.getId()).subjectIds());
+            }
+            response.put("success", true);
+            response.put("flags", flags);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error retrieving absenteeism flags: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     // Get attendance records marked by a teacher
     @GetMapping("/api/history")
     @PreAuthorize("hasAnyAuthority('TEACHER', 'IT_ADMIN', 'PRINCIPAL')")
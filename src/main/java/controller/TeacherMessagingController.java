@@ -1,5 +1,6 @@
 package com.wsims.controller;
 
+import com.parami.wsims.dto.KeysetPage;
 import com.parami.wsims.entity.Message;
 import com.parami.wsims.entity.User;
 import com.parami.wsims.service.MessageService;
@@ -237,6 +238,36 @@ public class TeacherMessagingController {
         }
     }
 
+    /**
+     * Get received messages, newest first, using keyset paging (pass back nextCursor for the next page)
+     */
+    @GetMapping("/api/inbox")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getInbox(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        try {
+            User currentUser = getCurrentUser();
+            if (currentUser == null) {
+                throw new IllegalArgumentException("User not authenticated");
+            }
+
+            KeysetPage<Message> inbox = messageService.getReceivedMessages(currentUser.getId(), cursor, Math.max(1, Math.min(size, 100)));
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("messages", inbox.content());
+            response.put("nextCursor", inbox.nextCursor());
+            response.put("hasMore", inbox.hasMore());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Error fetching messages: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Get current authenticated user
      */
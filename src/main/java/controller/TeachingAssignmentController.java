@@ -0,0 +1,124 @@
+package com.wsims.controller;
+
+import com.parami.wsims.entity.TeachingAssignment;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.service.TeachingAssignmentService;
+import com.parami.wsims.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/api/teaching-assignments")
+@PreAuthorize("hasAnyAuthority('PRINCIPAL', 'IT_ADMIN', 'REGISTRAR')")
+public class TeachingAssignmentController {
+
+    private final TeachingAssignmentService teachingAssignmentService;
+    private final UserService userService;
+
+    @Autowired
+    public TeachingAssignmentController(TeachingAssignmentService teachingAssignmentService, UserService userService) {
+        this.teachingAssignmentService = teachingAssignmentService;
+        this.userService = userService;
+    }
+
+    /**
+     * All assignments, or one teacher's
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getAssignments(@RequestParam(required = false) Long teacherId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("assignments", teachingAssignmentService.getAssignments(teacherId));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The cached roster the teacher pages are served from
+     */
+    @GetMapping("/teachers/{teacherId}/roster")
+    public ResponseEntity<Map<String, Object>> getRoster(@PathVariable Long teacherId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("roster", teachingAssignmentService.getRoster(teacherId));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Assign a teacher to a subject within a course: {"teacherId": 1, "courseId": 2, "subjectId": 3}
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> assign(@RequestBody Map<String, Object> request) {
+        try {
+            Long teacherId = requireId(request, "teacherId");
+            Long courseId = requireId(request, "courseId");
+            Long subjectId = requireId(request, "subjectId");
+            User currentUser = getCurrentUser();
+
+            TeachingAssignment assignment = teachingAssignmentService.assign(teacherId, courseId, subjectId,
+                    currentUser != null ? currentUser.getId() : null);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Teacher assigned successfully");
+            response.put("assignment", assignment);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(createErrorResponse("Error assigning teacher: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{assignmentId}")
+    public ResponseEntity<Map<String, Object>> unassign(@PathVariable Long assignmentId) {
+        try {
+            teachingAssignmentService.unassign(assignmentId);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Assignment removed successfully");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(createErrorResponse("Error removing assignment: " + e.getMessage()));
+        }
+    }
+
+    private Long requireId(Map<String, Object> request, String field) {
+        Object value = request.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        try {
+            return Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() &&
+            !authentication.getName().equals("anonymousUser")) {
+            return userService.findByUsername(authentication.getName()).orElse(null);
+        }
+        return null;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
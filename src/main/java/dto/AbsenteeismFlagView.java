@@ -0,0 +1,20 @@
+package com.wsims.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A chronic absenteeism flag with the student's display fields
+ */
+public record AbsenteeismFlagView(Long studentId,
+                                  String username,
+                                  String firstName,
+                                  String lastName,
+                                  LocalDate windowStart,
+                                  LocalDate windowEnd,
+                                  Integer absenceCount,
+                                  Integer currentAbsences,
+                                  Integer windowDays,
+                                  Integer threshold,
+                                  LocalDateTime detectedAt) {
+}
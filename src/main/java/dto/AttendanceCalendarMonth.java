@@ -0,0 +1,25 @@
+package com.wsims.dto;
+
+import com.parami.wsims.entity.Attendance;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * One student's attendance for a calendar month as a day x status matrix. {@code counts}
+ * holds {@code days * STATUSES} bytes: the number of subjects marked with each
+ * {@link Attendance.AttendanceStatus} (in ordinal order) on each day of the month,
+ * so day {@code d} (1-based) and status {@code s} sit at {@code (d - 1) * STATUSES + s.ordinal()}.
+ * Serialized to JSON as base64.
+ */
+public record AttendanceCalendarMonth(Long studentId, String month, int days, byte[] counts) {
+
+    public static final int STATUSES = Attendance.AttendanceStatus.values().length;
+
+    public int count(LocalDate date, Attendance.AttendanceStatus status) {
+        if (!YearMonth.from(date).toString().equals(month)) {
+            return 0;
+        }
+        return counts[(date.getDayOfMonth() - 1) * STATUSES + status.ordinal()];
+    }
+}
@@ -0,0 +1,90 @@
+package com.wsims.dto;
+
+import com.parami.wsims.repository.AttendanceSyncRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response to one attendance sync: what happened to each pushed delta, the rows
+ * changed on the server since the client's token, and the token to send next time.
+ * When {@code hasMore} is set the client should sync again straight away to fetch
+ * the next page of changes; when {@code reset} is set the token was too old and
+ * the changes are a full snapshot that should replace the client's copy.
+ */
+public class AttendanceSyncResult {
+
+    public enum Outcome {
+        APPLIED,
+        DUPLICATE,
+        SUPERSEDED,
+        CONFLICT,
+        REJECTED
+    }
+
+    /**
+     * @param server the current server row for a conflict, otherwise null
+     */
+    public record ChangeResult(String changeId, Outcome outcome, String message, AttendanceSyncRepository.SyncRow server) {
+    }
+
+    private final List<ChangeResult> results = new ArrayList<>();
+    private List<AttendanceSyncRepository.SyncRow> changes = List.of();
+    private List<AttendanceSyncRepository.DeletedRow> deleted = List.of();
+    private String syncToken;
+    private boolean hasMore;
+    private boolean reset;
+
+    public void addResult(String changeId, Outcome outcome, String message, AttendanceSyncRepository.SyncRow server) {
+        results.add(new ChangeResult(changeId, outcome, message, server));
+    }
+
+    public List<ChangeResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public long count(Outcome outcome) {
+        return results.stream().filter(result -> result.outcome() == outcome).count();
+    }
+
+    public List<AttendanceSyncRepository.SyncRow> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<AttendanceSyncRepository.SyncRow> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    public List<AttendanceSyncRepository.DeletedRow> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<AttendanceSyncRepository.DeletedRow> deleted) {
+        this.deleted = List.copyOf(deleted);
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(String syncToken) {
+        this.syncToken = syncToken;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+}
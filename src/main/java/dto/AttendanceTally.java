@@ -0,0 +1,16 @@
+package com.wsims.dto;
+
+/**
+ * Attendance counts and absence streaks for a student, across all subjects or
+ * for one subject. {@code recordedDays} counts distinct dates with any mark;
+ * an absent day is one marked ABSENT with no PRESENT or LATE mark that day.
+ */
+public record AttendanceTally(long presentCount, long absentCount, long lateCount, long excusedCount,
+                              long recordedDays, int currentAbsenceStreak, int longestAbsenceStreak) {
+
+    public static final AttendanceTally EMPTY = new AttendanceTally(0, 0, 0, 0, 0, 0, 0);
+
+    public long totalRecords() {
+        return presentCount + absentCount + lateCount + excusedCount;
+    }
+}
@@ -0,0 +1,18 @@
+package com.wsims.dto;
+
+import java.time.LocalDate;
+
+/**
+ * School-wide attendance counts for one period of a trend series
+ *
+ * @param periodStart first day of the day, week (Monday) or month
+ * @param attendanceRate present plus late as a percentage of all marks
+ */
+public record AttendanceTrendPoint(LocalDate periodStart,
+                                   long presentCount,
+                                   long absentCount,
+                                   long lateCount,
+                                   long excusedCount,
+                                   long totalCount,
+                                   double attendanceRate) {
+}
@@ -0,0 +1,166 @@
+package com.wsims.dto;
+
+import java.util.Arrays;
+
+/**
+ * Ranking of one class (course + exam schedule, optionally one subject) held in
+ * primitive arrays. Students are stored in ascending id order so a standing can
+ * be found with a binary search; ranks are dense (ties share a rank and the next
+ * distinct score gets the next rank).
+ */
+public class ClassRanking {
+
+    public static final int HISTOGRAM_BUCKETS = 10;
+
+    /**
+     * One student's position in the class
+     */
+    public record Standing(Long studentId, double score, int rank, double percentile, int classSize) {
+    }
+
+    private final Long courseId;
+    private final Long examScheduleId;
+    private final Long subjectId;
+    private final long[] studentIds;
+    private final double[] scores;
+    private final int[] denseRanks;
+    private final double[] percentiles;
+    private final int[] histogram;
+    private final double mean;
+    private final double median;
+
+    /**
+     * @param studentIds student ids, any order
+     * @param scores percentage score for the student at the same index
+     */
+    public ClassRanking(Long courseId, Long examScheduleId, Long subjectId, long[] studentIds, double[] scores) {
+        this.courseId = courseId;
+        this.examScheduleId = examScheduleId;
+        this.subjectId = subjectId;
+        int n = studentIds.length;
+
+        // Reorder both arrays by student id for binary-search lookups
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(studentIds[a], studentIds[b]));
+        this.studentIds = new long[n];
+        this.scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            this.studentIds[i] = studentIds[order[i]];
+            this.scores[i] = scores[order[i]];
+        }
+
+        double[] sorted = this.scores.clone();
+        Arrays.sort(sorted);
+
+        // Distinct scores, descending, give the dense rank of every score
+        double[] distinctDesc = new double[n];
+        int distinctCount = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            if (distinctCount == 0 || sorted[i] != distinctDesc[distinctCount - 1]) {
+                distinctDesc[distinctCount++] = sorted[i];
+            }
+        }
+
+        this.denseRanks = new int[n];
+        this.percentiles = new double[n];
+        this.histogram = new int[HISTOGRAM_BUCKETS];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            double score = this.scores[i];
+            total += score;
+            denseRanks[i] = indexInDescending(distinctDesc, distinctCount, score) + 1;
+
+            // Percentile rank: share of the class below this score, counting ties as half
+            int below = lowerBound(sorted, score);
+            int equal = upperBound(sorted, score) - below;
+            percentiles[i] = Math.round((below + 0.5 * equal) * 10000.0 / n) / 100.0;
+
+            int bucket = (int) Math.min(HISTOGRAM_BUCKETS - 1, Math.max(0, Math.floor(score / (100.0 / HISTOGRAM_BUCKETS))));
+            histogram[bucket]++;
+        }
+        this.mean = n > 0 ? Math.round(total * 100.0 / n) / 100.0 : 0.0;
+        if (n == 0) {
+            this.median = 0.0;
+        } else if (n % 2 == 1) {
+            this.median = sorted[n / 2];
+        } else {
+            this.median = (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+        }
+    }
+
+    /**
+     * Find a student's standing, or null if the student has no score in this class
+     */
+    public Standing getStanding(Long studentId) {
+        int index = Arrays.binarySearch(studentIds, studentId);
+        if (index < 0) {
+            return null;
+        }
+        return new Standing(studentId, scores[index], denseRanks[index], percentiles[index], studentIds.length);
+    }
+
+    private static int indexInDescending(double[] values, int length, double key) {
+        int low = 0;
+        int high = length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] > key) {
+                low = mid + 1;
+            } else if (values[mid] < key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public Long getCourseId() { return courseId; }
+    public Long getExamScheduleId() { return examScheduleId; }
+    public Long getSubjectId() { return subjectId; }
+    public int getClassSize() { return studentIds.length; }
+    public double getMean() { return mean; }
+    public double getMedian() { return median; }
+    public double getHighest() { return studentIds.length > 0 ? Arrays.stream(scores).max().getAsDouble() : 0.0; }
+    public double getLowest() { return studentIds.length > 0 ? Arrays.stream(scores).min().getAsDouble() : 0.0; }
+
+    // Parallel arrays (ascending student id), cloned so the cached ranking stays immutable
+    public long[] getStudentIds() { return studentIds.clone(); }
+    public double[] getScores() { return scores.clone(); }
+    public int[] getRanks() { return denseRanks.clone(); }
+    public double[] getPercentiles() { return percentiles.clone(); }
+
+    // Counts per 10-percentage-point band: [0,10), [10,20), ... [90,100]
+    public int[] getHistogram() { return histogram.clone(); }
+}
@@ -0,0 +1,22 @@
+package com.wsims.dto;
+
+import java.util.Map;
+
+/**
+ * Letter-grade distribution and percentage statistics for one group
+ * (a subject, an exam schedule or a grade level)
+ *
+ * @param groupId subject or exam schedule id; null when grouped by grade level
+ * @param label display name of the group
+ * @param letterCounts count per letter grade, in A..F order
+ * @param standardDeviation population standard deviation of percentage
+ */
+public record GradeDistribution(Long groupId,
+                                String label,
+                                long count,
+                                Map<String, Long> letterCounts,
+                                double averagePercentage,
+                                double minPercentage,
+                                double maxPercentage,
+                                double standardDeviation) {
+}
@@ -0,0 +1,103 @@
+package com.wsims.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a background gradebook import. Counters are updated by the import
+ * worker and read by the status endpoint; only the first few row errors are kept
+ * so the job's footprint does not grow with the file.
+ */
+public class GradeImportJob {
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public static final int MAX_REPORTED_ERRORS = 200;
+
+    private final String jobId;
+    private final String filename;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile String message;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsCreated = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final AtomicLong rowsSkipped = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    public GradeImportJob(String jobId, String filename) {
+        this.jobId = jobId;
+        this.filename = filename;
+    }
+
+    public void start() {
+        status = JobStatus.RUNNING;
+    }
+
+    public void complete() {
+        status = JobStatus.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        status = JobStatus.FAILED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public void addRowsRead(long count) { rowsRead.addAndGet(count); }
+    public void addCreated(long count) { rowsCreated.addAndGet(count); }
+    public void addUpdated(long count) { rowsUpdated.addAndGet(count); }
+    public void addSkipped(long count) { rowsSkipped.addAndGet(count); }
+
+    public void addFailure(long rowNumber, String reason) {
+        rowsFailed.incrementAndGet();
+        addError(rowNumber, reason);
+    }
+
+    public void addSkip(long rowNumber, String reason) {
+        rowsSkipped.incrementAndGet();
+        addError(rowNumber, reason);
+    }
+
+    private void addError(long rowNumber, String reason) {
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Row " + rowNumber + ": " + reason);
+            }
+        }
+    }
+
+    public String getJobId() { return jobId; }
+    public String getFilename() { return filename; }
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public JobStatus getStatus() { return status; }
+    public String getMessage() { return message; }
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getRowsCreated() { return rowsCreated.get(); }
+    public long getRowsUpdated() { return rowsUpdated.get(); }
+    public long getRowsSkipped() { return rowsSkipped.get(); }
+    public long getRowsFailed() { return rowsFailed.get(); }
+
+    public long getRowsProcessed() {
+        return getRowsCreated() + getRowsUpdated() + getRowsSkipped() + getRowsFailed();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.wsims.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-row outcome of a bulk grade upsert. Every submitted row gets exactly one
+ * entry so the caller can tell which marks were written and why others were not.
+ */
+public class GradeUpsertReport {
+
+    public enum RowStatus {
+        CREATED,
+        UPDATED,
+        SKIPPED,
+        FAILED
+    }
+
+    public record RowResult(int rowIndex, Long studentId, Long subjectId, RowStatus status, String message) {
+    }
+
+    private final List<RowResult> rows = new ArrayList<>();
+    private int createdCount;
+    private int updatedCount;
+    private int skippedCount;
+    private int failedCount;
+
+    public void addRow(int rowIndex, Long studentId, Long subjectId, RowStatus status, String message) {
+        rows.add(new RowResult(rowIndex, studentId, subjectId, status, message));
+        switch (status) {
+            case CREATED -> createdCount++;
+            case UPDATED -> updatedCount++;
+            case SKIPPED -> skippedCount++;
+            case FAILED -> failedCount++;
+        }
+    }
+
+    public List<RowResult> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    public int getCreatedCount() { return createdCount; }
+    public int getUpdatedCount() { return updatedCount; }
+    public int getSkippedCount() { return skippedCount; }
+    public int getFailedCount() { return failedCount; }
+
+    public int getSavedCount() {
+        return createdCount + updatedCount;
+    }
+}
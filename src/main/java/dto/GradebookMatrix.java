@@ -0,0 +1,17 @@
+package com.wsims.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Grades of one course and exam schedule as a dense students x subjects matrix.
+ * Cell (i, j) of the flattened arrays is at index {@code i * subjectIds.length + j};
+ * cells without a grade hold null.
+ */
+public record GradebookMatrix(Long courseId,
+                              Long examScheduleId,
+                              long[] studentIds,
+                              long[] subjectIds,
+                              BigDecimal[] marks,
+                              Long[] gradeIds,
+                              String[] comments) {
+}
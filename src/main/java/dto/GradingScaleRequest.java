@@ -0,0 +1,13 @@
+package com.wsims.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Request body for creating or replacing an academic year's grading scale
+ */
+public record GradingScaleRequest(String name, List<BandRequest> bands) {
+
+    public record BandRequest(BigDecimal minPercentage, String letterGrade, BigDecimal gradePoint) {
+    }
+}
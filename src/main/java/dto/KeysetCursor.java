@@ -0,0 +1,66 @@
+package com.wsims.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in a (date, id) or id-only descending listing, passed to clients as an
+ * opaque URL-safe token. The next page holds rows strictly after this position, so
+ * no rows are skipped or counted. The date must be non-null; listings whose sort
+ * column is nullable page by id alone.
+ */
+public record KeysetCursor(String key, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static KeysetCursor of(LocalDate date, Long id) {
+        return new KeysetCursor(date.toString(), id);
+    }
+
+    public static KeysetCursor of(LocalDateTime timestamp, Long id) {
+        return new KeysetCursor(timestamp.toString(), id);
+    }
+
+    public static KeysetCursor of(Long id) {
+        return new KeysetCursor("", id);
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}; a blank token means "first page" and returns null
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate date() {
+        try {
+            return LocalDate.parse(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public LocalDateTime timestamp() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.wsims.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset listing. There is no total count; {@code nextCursor} is
+ * null on the last page.
+ */
+public record KeysetPage<T>(List<T> content, String nextCursor, boolean hasMore) {
+
+    /**
+     * Build a page from a query that fetched {@code size + 1} rows; the extra row only
+     * signals that another page exists and is dropped
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<T> content = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new KeysetPage<>(content, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,18 @@
+package com.wsims.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A student's grades across every published exam snapshot. Immutable, so one
+ * instance is shared by all readers until a new snapshot is published.
+ *
+ * @param etag changes whenever the set of current snapshots changes
+ */
+public record PublishedGrades(String etag,
+                              List<StudentExamGrades> exams,
+                              long totalGrades,
+                              long passingGradesCount,
+                              long excellentGradesCount,
+                              BigDecimal averageGradePoint) {
+}
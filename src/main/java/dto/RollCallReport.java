@@ -0,0 +1,48 @@
+package com.wsims.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a roll-call submission for one subject and date. Every submitted
+ * student gets exactly one entry saying whether their attendance row was
+ * created, updated or left alone.
+ */
+public class RollCallReport {
+
+    public enum RowStatus {
+        CREATED,
+        UPDATED,
+        SKIPPED
+    }
+
+    public record RowResult(Long studentId, RowStatus status, String message) {
+    }
+
+    private final List<RowResult> rows = new ArrayList<>();
+    private final List<Long> created = new ArrayList<>();
+    private final List<Long> updated = new ArrayList<>();
+    private final List<Long> skipped = new ArrayList<>();
+
+    public void addRow(Long studentId, RowStatus status, String message) {
+        rows.add(new RowResult(studentId, status, message));
+        switch (status) {
+            case CREATED -> created.add(studentId);
+            case UPDATED -> updated.add(studentId);
+            case SKIPPED -> skipped.add(studentId);
+        }
+    }
+
+    public List<RowResult> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    public List<Long> getCreated() { return Collections.unmodifiableList(created); }
+    public List<Long> getUpdated() { return Collections.unmodifiableList(updated); }
+    public List<Long> getSkipped() { return Collections.unmodifiableList(skipped); }
+
+    public int getCreatedCount() { return created.size(); }
+    public int getUpdatedCount() { return updated.size(); }
+    public int getSkippedCount() { return skipped.size(); }
+}
@@ -0,0 +1,24 @@
+package com.wsims.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Grades of one student for one exam schedule, as returned by the student/parent grades API
+ */
+public record StudentExamGrades(Long examScheduleId,
+                                String examName,
+                                String academicYear,
+                                String description,
+                                List<SubjectGrade> grades) {
+
+    public record SubjectGrade(String subjectName,
+                               String subjectCode,
+                               BigDecimal marksObtained,
+                               BigDecimal totalMarks,
+                               BigDecimal percentage,
+                               String letterGrade,
+                               BigDecimal gradePoint,
+                               String comments) {
+    }
+}
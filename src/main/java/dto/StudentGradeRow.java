@@ -0,0 +1,26 @@
+package com.wsims.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat row of one published grade with only the fields shown on the student/parent
+ * grades view; read from the current grade snapshots, never from the live grades
+ */
+public record StudentGradeRow(Long entryId,
+                              LocalDateTime publishedAt,
+                              Long examScheduleId,
+                              String examName,
+                              String academicYear,
+                              String examDescription,
+                              LocalDate examStartDate,
+                              String subjectName,
+                              String subjectCode,
+                              BigDecimal marksObtained,
+                              BigDecimal totalMarks,
+                              BigDecimal percentage,
+                              String letterGrade,
+                              BigDecimal gradePoint,
+                              String comments) {
+}
@@ -0,0 +1,22 @@
+package com.wsims.dto;
+
+import com.parami.wsims.entity.Course;
+import com.parami.wsims.entity.Subject;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The courses and subjects a teacher is assigned to, as cached by TeachingAssignmentService
+ */
+public record TeacherRoster(Long teacherId, List<Course> courses, List<Subject> subjects,
+                            Set<Long> courseIds, Set<Long> subjectIds) {
+
+    public boolean teachesCourse(Long courseId) {
+        return courseIds.contains(courseId);
+    }
+
+    public boolean teachesSubject(Long subjectId) {
+        return subjectIds.contains(subjectId);
+    }
+}
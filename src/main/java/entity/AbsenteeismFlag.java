@@ -0,0 +1,55 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A student whose absent days within a rolling window reached the chronic
+ * absenteeism threshold during the last detection run. Replaced wholesale by
+ * each run of AbsenteeismService.
+ */
+@Entity
+@Table(name = "absenteeism_flags",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"student_id"})
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AbsenteeismFlag {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    // First and last absent day of the window with the most absences
+    @Column(name = "window_start", nullable = false)
+    private LocalDate windowStart;
+
+    @Column(name = "window_end", nullable = false)
+    private LocalDate windowEnd;
+
+    @Column(name = "absence_count", nullable = false)
+    private Integer absenceCount;
+
+    // Absent days in the window ending on the run date
+    @Column(name = "current_absences", nullable = false)
+    private Integer currentAbsences;
+
+    @Column(name = "window_days", nullable = false)
+    private Integer windowDays;
+
+    @Column(name = "threshold", nullable = false)
+    private Integer threshold;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+}
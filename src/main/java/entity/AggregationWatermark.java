@@ -0,0 +1,29 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last source timestamp an incremental aggregator has folded in, one row per aggregator.
+ */
+@Entity
+@Table(name = "aggregation_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregationWatermark {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    @Column(name = "watermark", nullable = false)
+    private LocalDateTime watermark;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
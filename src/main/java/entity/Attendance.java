@@ -10,7 +10,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendance")
+@Table(name = "attendance",
+       uniqueConstraints = {
+           @UniqueConstraint(name = "uk_attendance_student_subject_date",
+                             columnNames = {"student_id", "subject_id", "attendance_date"})
+       },
+       indexes = {
+           @Index(name = "idx_attendance_updated_at", columnList = "updated_at")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,56 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted form of a student's attendance in one subject over one academic
+ * year: one bitset per status, bit n standing for day n of the year. Maintained
+ * by AttendanceBitmapService whenever attendance changes and rebuilt nightly
+ * from the attendance table.
+ */
+@Entity
+@Table(name = "attendance_bitmaps",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"student_id", "subject_id", "academic_year"})
+       },
+       indexes = {
+           @Index(name = "idx_attendance_bitmaps_subject_year", columnList = "subject_id, academic_year")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceBitmap {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "academic_year", nullable = false, length = 10)
+    private String academicYear;
+
+    @Column(name = "present_bits", length = 48)
+    private byte[] presentBits;
+
+    @Column(name = "absent_bits", length = 48)
+    private byte[] absentBits;
+
+    @Column(name = "late_bits", length = 48)
+    private byte[] lateBits;
+
+    @Column(name = "excused_bits", length = 48)
+    private byte[] excusedBits;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
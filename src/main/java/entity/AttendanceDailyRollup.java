@@ -0,0 +1,59 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Attendance counts per (date, subject, student grade level). Maintained by
+ * AttendanceRollupService from the attendance table so school-wide trends never
+ * scan raw attendance rows.
+ */
+@Entity
+@Table(name = "attendance_daily_rollups",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"attendance_date", "subject_id", "grade_level"})
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceDailyRollup {
+
+    // Grade level recorded for students without a students row
+    public static final String UNASSIGNED_GRADE_LEVEL = "UNASSIGNED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "grade_level", nullable = false, length = 50)
+    private String gradeLevel;
+
+    @Column(name = "present_count", nullable = false)
+    private Integer presentCount;
+
+    @Column(name = "absent_count", nullable = false)
+    private Integer absentCount;
+
+    @Column(name = "late_count", nullable = false)
+    private Integer lateCount;
+
+    @Column(name = "excused_count", nullable = false)
+    private Integer excusedCount;
+
+    @Column(name = "total_count", nullable = false)
+    private Integer totalCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,44 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone for a deleted attendance row, so that devices syncing attendance
+ * deltas learn about deletions as well as inserts and updates. Purged once older
+ * than the sync retention period.
+ */
+@Entity
+@Table(name = "attendance_deletions",
+       indexes = {
+           @Index(name = "idx_attendance_deletion_deleted_at", columnList = "deleted_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "attendance_id", nullable = false)
+    private Long attendanceId;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate attendanceDate;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
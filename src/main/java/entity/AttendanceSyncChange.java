@@ -0,0 +1,40 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client change id that has already been applied by the attendance sync
+ * endpoint. A device that retries a sync after losing the response gets the
+ * change acknowledged again instead of applied twice.
+ */
+@Entity
+@Table(name = "attendance_sync_changes",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"teacher_id", "change_id"})
+       },
+       indexes = {
+           @Index(name = "idx_attendance_sync_change_applied_at", columnList = "applied_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSyncChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "teacher_id", nullable = false)
+    private Long teacherId;
+
+    @Column(name = "change_id", nullable = false, length = 64)
+    private String changeId;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -90,26 +90,32 @@ public class Grade {
         calculateGradeInfo();
     }
 
-    // Enum for letter grades
+    // Enum for letter grades; the thresholds form the default grading scale
     public enum LetterGrade {
-        A_PLUS("A", new BigDecimal("4.00")),
-        A("A", new BigDecimal("3.75")),
-        A_MINUS("A", new BigDecimal("3.50")),
-        B_PLUS("B", new BigDecimal("3.25")),
-        B("B", new BigDecimal("3.00")),
-        B_MINUS("B", new BigDecimal("2.75")),
-        C_PLUS("C", new BigDecimal("2.50")),
-        C("C", new BigDecimal("2.25")),
-        C_MINUS("C", new BigDecimal("2.00")),
-        D("D", new BigDecimal("1.75")),
-        F("F", new BigDecimal("0.00"));
+        A_PLUS("A", new BigDecimal("4.00"), new BigDecimal("90")),
+        A("A", new BigDecimal("3.75"), new BigDecimal("80")),
+        A_MINUS("A", new BigDecimal("3.50"), new BigDecimal("75")),
+        B_PLUS("B", new BigDecimal("3.25"), new BigDecimal("70")),
+        B("B", new BigDecimal("3.00"), new BigDecimal("65")),
+        B_MINUS("B", new BigDecimal("2.75"), new BigDecimal("60")),
+        C_PLUS("C", new BigDecimal("2.50"), new BigDecimal("55")),
+        C("C", new BigDecimal("2.25"), new BigDecimal("50")),
+        C_MINUS("C", new BigDecimal("2.00"), new BigDecimal("45")),
+        D("D", new BigDecimal("1.75"), new BigDecimal("40")),
+        F("F", new BigDecimal("0.00"), BigDecimal.ZERO);
 
         private final String displayName;
         private final BigDecimal pointValue;
+        private final BigDecimal minPercentage;
 
-        LetterGrade(String displayName, BigDecimal pointValue) {
+        LetterGrade(String displayName, BigDecimal pointValue, BigDecimal minPercentage) {
             this.displayName = displayName;
             this.pointValue = pointValue;
+            this.minPercentage = minPercentage;
+        }
+
+        public BigDecimal getMinPercentage() {
+            return minPercentage;
         }
 
         public String getDisplayName() {
@@ -128,49 +134,44 @@ public class Grade {
         PENDING
     }
 
-    // Helper method to calculate grade information
+    // Helper method to calculate grade information. Letter grade and grade point depend on
+    // the exam's academic-year scale and are set by GradeService before saving.
     private void calculateGradeInfo() {
         if (marksObtained != null && totalMarks != null && totalMarks.compareTo(BigDecimal.ZERO) > 0) {
-            // Calculate percentage
-            percentage = marksObtained.divide(totalMarks, 4, RoundingMode.HALF_UP)
-                    .multiply(new BigDecimal("100")).setScale(2, RoundingMode.HALF_UP);
-
-            // Calculate letter grade based on percentage
-            LetterGrade calculatedGrade = calculateLetterGrade(percentage);
-            letterGrade = calculatedGrade != null ? calculatedGrade.getDisplayName() : null;
-            
-            // Set grade point based on letter grade
-            if (calculatedGrade != null) {
-                gradePoint = calculatedGrade.getPointValue();
+            percentage = calculatePercentage(marksObtained, totalMarks);
+        }
+    }
+
+    /**
+     * Calculate the stored percentage for a marks/total pair. Shared with the
+     * JDBC bulk write paths, which bypass the JPA lifecycle callbacks.
+     */
+    public static BigDecimal calculatePercentage(BigDecimal marksObtained, BigDecimal totalMarks) {
+        return marksObtained.divide(totalMarks, 4, RoundingMode.HALF_UP)
+                .multiply(new BigDecimal("100")).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Calculate letter grade on the default scale (academic years without a configured scale)
+    public static LetterGrade calculateLetterGrade(BigDecimal percentage) {
+        for (LetterGrade letter : LetterGrade.values()) {
+            if (percentage.compareTo(letter.getMinPercentage()) >= 0) {
+                return letter;
             }
         }
+        return LetterGrade.F;
     }
 
-    // Calculate letter grade based on percentage
-    private LetterGrade calculateLetterGrade(BigDecimal percentage) {
-        if (percentage.compareTo(new BigDecimal("90")) >= 0) {
-            return LetterGrade.A_PLUS;
-        } else if (percentage.compareTo(new BigDecimal("80")) >= 0) {
-            return LetterGrade.A;
-        } else if (percentage.compareTo(new BigDecimal("75")) >= 0) {
-            return LetterGrade.A_MINUS;
-        } else if (percentage.compareTo(new BigDecimal("70")) >= 0) {
-            return LetterGrade.B_PLUS;
-        } else if (percentage.compareTo(new BigDecimal("65")) >= 0) {
-            return LetterGrade.B;
-        } else if (percentage.compareTo(new BigDecimal("60")) >= 0) {
-            return LetterGrade.B_MINUS;
-        } else if (percentage.compareTo(new BigDecimal("55")) >= 0) {
-            return LetterGrade.C_PLUS;
-        } else if (percentage.compareTo(new BigDecimal("50")) >= 0) {
-            return LetterGrade.C;
-        } else if (percentage.compareTo(new BigDecimal("45")) >= 0) {
-            return LetterGrade.C_MINUS;
-        } else if (percentage.compareTo(new BigDecimal("40")) >= 0) {
-            return LetterGrade.D;
-        } else {
-            return LetterGrade.F;
+    /**
+     * Same rules as {@link #isValidMarks()} for callers that validate raw values
+     * before an entity exists.
+     */
+    public static boolean isValidMarks(BigDecimal marksObtained, BigDecimal totalMarks) {
+        if (marksObtained == null || totalMarks == null) {
+            return false;
         }
+        return marksObtained.compareTo(BigDecimal.ZERO) >= 0 && 
+               marksObtained.compareTo(totalMarks) <= 0 && 
+               totalMarks.compareTo(BigDecimal.ZERO) > 0;
     }
 
     // Helper methods
@@ -200,12 +201,7 @@ public class Grade {
 
     // Validation methods
     public boolean isValidMarks() {
-        if (marksObtained == null || totalMarks == null) {
-            return false;
-        }
-        return marksObtained.compareTo(BigDecimal.ZERO) >= 0 && 
-               marksObtained.compareTo(totalMarks) <= 0 && 
-               totalMarks.compareTo(BigDecimal.ZERO) > 0;
+        return isValidMarks(marksObtained, totalMarks);
     }
 
     public String getLetterGradeDisplay() {
@@ -0,0 +1,60 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One published, immutable version of the grades of an exam schedule. The
+ * rows themselves live in grade_snapshot_entries; exactly one version per
+ * exam is current.
+ */
+@Entity
+@Table(name = "grade_snapshots",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"exam_schedule_id", "version"})
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exam_schedule_id", nullable = false)
+    private Long examScheduleId;
+
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    // Exam details copied at publish time so reads need no join
+    @Column(name = "exam_name", length = 100)
+    private String examName;
+
+    @Column(name = "academic_year", length = 10)
+    private String academicYear;
+
+    @Column(name = "exam_description", length = 500)
+    private String examDescription;
+
+    @Column(name = "exam_start_date")
+    private LocalDate examStartDate;
+
+    @Column(name = "entry_count", nullable = false)
+    private Integer entryCount = 0;
+
+    @Column(name = "is_current", nullable = false)
+    private Boolean current = true;
+
+    @Column(name = "published_by")
+    private Long publishedBy;
+
+    @Column(name = "published_at", nullable = false)
+    private LocalDateTime publishedAt;
+}
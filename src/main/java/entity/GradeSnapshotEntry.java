@@ -0,0 +1,63 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A frozen copy of one grade inside a {@link GradeSnapshot}. Written in bulk
+ * with INSERT ... SELECT and never updated.
+ */
+@Entity
+@Table(name = "grade_snapshot_entries",
+       indexes = {
+           @Index(name = "ix_grade_snapshot_entries_snapshot_student", columnList = "snapshot_id, student_id")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeSnapshotEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "snapshot_id", nullable = false)
+    private Long snapshotId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "subject_name", length = 100)
+    private String subjectName;
+
+    @Column(name = "subject_code", length = 20)
+    private String subjectCode;
+
+    @Column(name = "marks_obtained", precision = 5, scale = 2)
+    private BigDecimal marksObtained;
+
+    @Column(name = "total_marks", precision = 5, scale = 2)
+    private BigDecimal totalMarks;
+
+    @Column(name = "percentage", precision = 5, scale = 2)
+    private BigDecimal percentage;
+
+    @Column(name = "letter_grade", length = 5)
+    private String letterGrade;
+
+    @Column(name = "grade_point", precision = 3, scale = 2)
+    private BigDecimal gradePoint;
+
+    @Column(name = "comments", length = 500)
+    private String comments;
+}
@@ -0,0 +1,73 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grading scale for one academic year. Each band maps percentages at or above
+ * its minimum (up to the next band's minimum) to a letter grade and grade point.
+ * Academic years without a scale use the defaults in {@link Grade.LetterGrade}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "grading_scales",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"academic_year"}))
+public class GradingScale {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "academic_year", nullable = false, length = 10)
+    private String academicYear;
+
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "grading_scale_bands", joinColumns = @JoinColumn(name = "grading_scale_id"))
+    @OrderBy("minPercentage DESC")
+    private List<Band> bands = new ArrayList<>();
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Band {
+
+        @Column(name = "min_percentage", nullable = false, precision = 5, scale = 2)
+        private BigDecimal minPercentage;
+
+        @Column(name = "letter_grade", nullable = false, length = 5)
+        private String letterGrade;
+
+        @Column(name = "grade_point", nullable = false, precision = 3, scale = 2)
+        private BigDecimal gradePoint;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
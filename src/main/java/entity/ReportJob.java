@@ -0,0 +1,115 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A queued report card render: one student's PDF or a course/grade-level ZIP. Jobs
+ * are claimed by the report workers, retried with back-off on failure, and keep the
+ * path of their output file until it is purged. The attempt count doubles as the
+ * claim token: only the worker holding the current attempt may finish the job.
+ */
+@Entity
+@Table(name = "report_jobs",
+       indexes = {
+           @Index(name = "idx_report_job_status_next_attempt", columnList = "status, next_attempt_at"),
+           @Index(name = "idx_report_job_completed_at", columnList = "completed_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 10)
+    private JobType jobType;
+
+    // Higher runs first
+    @Column(name = "priority", nullable = false)
+    private Integer priority;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 10)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Column(name = "grade_level", length = 20)
+    private String gradeLevel;
+
+    @Column(name = "exam_schedule_id", nullable = false)
+    private Long examScheduleId;
+
+    @Column(name = "term_name", length = 100)
+    private String termName;
+
+    @Column(name = "template_id")
+    private Long templateId;
+
+    @Column(name = "requested_by", nullable = false, length = 100)
+    private String requestedBy;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "max_attempts", nullable = false)
+    private Integer maxAttempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "download_name", length = 255)
+    private String downloadName;
+
+    @Column(name = "result_path", length = 500)
+    private String resultPath;
+
+    @Column(name = "result_size")
+    private Long resultSize;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    // Refreshed by the worker while the job runs; a RUNNING job whose heartbeat stops is re-queued
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum JobType {
+        SINGLE, BATCH
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Per-student, per-exam roll-up of the grades table. Maintained by
+ * StudentPerformanceService whenever grades change, so dashboards and report
+ * summaries read one row instead of every Grade.
+ */
+@Entity
+@Table(name = "student_exam_performance",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"student_id", "exam_schedule_id"})
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentExamPerformance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "exam_schedule_id", nullable = false)
+    private Long examScheduleId;
+
+    // All grade rows, including ones without marks yet
+    @Column(name = "grade_count", nullable = false)
+    private Integer gradeCount;
+
+    // Grade rows that have a percentage
+    @Column(name = "graded_count", nullable = false)
+    private Integer gradedCount;
+
+    @Column(name = "percentage_sum", precision = 12, scale = 2)
+    private BigDecimal percentageSum;
+
+    @Column(name = "grade_point_sum", precision = 10, scale = 2)
+    private BigDecimal gradePointSum;
+
+    @Column(name = "count_a", nullable = false)
+    private Integer countA;
+
+    @Column(name = "count_b", nullable = false)
+    private Integer countB;
+
+    @Column(name = "count_c", nullable = false)
+    private Integer countC;
+
+    @Column(name = "count_d", nullable = false)
+    private Integer countD;
+
+    @Column(name = "count_f", nullable = false)
+    private Integer countF;
+
+    @Column(name = "gpa", precision = 3, scale = 2)
+    private BigDecimal gpa;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Helper methods mirroring the Grade summary rules
+    public long getPassingCount() {
+        return (long) countA + countB + countC + countD;
+    }
+
+    public long getExcellentCount() {
+        return countA;
+    }
+
+    public double getAveragePercentage() {
+        if (gradedCount == null || gradedCount == 0 || percentageSum == null) {
+            return 0.0;
+        }
+        return percentageSum.divide(BigDecimal.valueOf(gradedCount), 2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
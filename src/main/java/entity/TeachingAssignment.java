@@ -0,0 +1,54 @@
+package com.wsims.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A teacher assigned to teach a subject within a course. A teacher's courses and
+ * subjects are exactly the ones named by their assignments.
+ */
+@Entity
+@Table(name = "teaching_assignments",
+       uniqueConstraints = {
+           @UniqueConstraint(columnNames = {"teacher_id", "course_id", "subject_id"})
+       },
+       indexes = {
+           @Index(name = "idx_teaching_assignment_subject", columnList = "subject_id"),
+           @Index(name = "idx_teaching_assignment_course", columnList = "course_id")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeachingAssignment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Leading column of the unique constraint, which also serves lookups by teacher
+    @Column(name = "teacher_id", nullable = false)
+    private Long teacherId;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "course_id", nullable = false)
+    private Course course;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "subject_id", nullable = false)
+    private Subject subject;
+
+    @Column(name = "assigned_by")
+    private Long assignedBy;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,42 @@
+package com.wsims.repository;
+
+import com.parami.wsims.dto.AbsenteeismFlagView;
+import com.parami.wsims.entity.AbsenteeismFlag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AbsenteeismFlagRepository extends JpaRepository<AbsenteeismFlag, Long> {
+
+    /**
+     * Every flag with student names, most current absences first
+     */
+    @Query("SELECT new com.parami.wsims.dto.AbsenteeismFlagView(f.studentId, u.username, u.firstName, u.lastName, " +
+           "f.windowStart, f.windowEnd, f.absenceCount, f.currentAbsences, f.windowDays, f.threshold, f.detectedAt) " +
+           "FROM AbsenteeismFlag f, User u WHERE u.id = f.studentId " +
+           "ORDER BY f.currentAbsences DESC, f.absenceCount DESC, u.lastName, u.firstName")
+    List<AbsenteeismFlagView> findAllViews();
+
+    /**
+     * Flags for students actively enrolled in a course that teaches one of the subjects,
+     * in the same order as findAllViews
+     */
+    @Query("SELECT new com.parami.wsims.dto.AbsenteeismFlagView(f.studentId, u.username, u.firstName, u.lastName, " +
+           "f.windowStart, f.windowEnd, f.absenceCount, f.currentAbsences, f.windowDays, f.threshold, f.detectedAt) " +
+           "FROM AbsenteeismFlag f, User u WHERE u.id = f.studentId AND f.studentId IN (" +
+           "SELECT e.student.id FROM Enrollment e, CourseSubjectLink l " +
+           "WHERE l.course = e.course AND l.subject.id IN :subjectIds AND e.status = 'ACTIVE') " +
+           "ORDER BY f.currentAbsences DESC, f.absenceCount DESC, u.lastName, u.firstName")
+    List<AbsenteeismFlagView> findViewsForSubjects(@Param("subjectIds") Collection<Long> subjectIds);
+
+    @Query("SELECT new com.parami.wsims.dto.AbsenteeismFlagView(f.studentId, u.username, u.firstName, u.lastName, " +
+           "f.windowStart, f.windowEnd, f.absenceCount, f.currentAbsences, f.windowDays, f.threshold, f.detectedAt) " +
+           "FROM AbsenteeismFlag f, User u WHERE u.id = f.studentId AND f.studentId = :studentId")
+    Optional<AbsenteeismFlagView> findViewByStudentId(@Param("studentId") Long studentId);
+}
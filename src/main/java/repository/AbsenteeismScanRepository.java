@@ -0,0 +1,112 @@
+package com.wsims.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Streaming reads and set-based writes for the chronic absenteeism job. Absent
+ * days are read through a forward-only cursor with a fixed fetch size, so a scan
+ * holds one block of rows at a time whatever the size of the attendance table.
+ */
+@Repository
+public class AbsenteeismScanRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    private static final int FETCH_SIZE = 1000;
+
+    // A day counts as absent when the student was marked ABSENT and never PRESENT or LATE that day
+    private static final String ABSENT_DAYS_SQL =
+            "SELECT student_id, attendance_date FROM attendance " +
+            "WHERE student_id BETWEEN ? AND ? AND attendance_date BETWEEN ? AND ? " +
+            "GROUP BY student_id, attendance_date " +
+            "HAVING SUM(CASE WHEN status = 'ABSENT' THEN 1 ELSE 0 END) > 0 " +
+            "AND SUM(CASE WHEN status IN ('PRESENT', 'LATE') THEN 1 ELSE 0 END) = 0 " +
+            "ORDER BY student_id, attendance_date";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO absenteeism_flags (student_id, window_start, window_end, absence_count, current_absences, " +
+            "window_days, threshold, detected_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Callback for one absent day of one student, delivered in (student, date) order
+     */
+    @FunctionalInterface
+    public interface AbsentDayHandler {
+        void onAbsentDay(long studentId, LocalDate date);
+    }
+
+    /**
+     * A student to flag, as found by one scan
+     */
+    public record FlagRow(long studentId, LocalDate windowStart, LocalDate windowEnd,
+                          int absenceCount, int currentAbsences) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AbsenteeismScanRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Lowest and highest student id with attendance between two dates, or null if there is none
+     */
+    public long[] findStudentIdRange(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT MIN(student_id), MAX(student_id) FROM attendance WHERE attendance_date BETWEEN ? AND ?",
+                rs -> {
+                    if (!rs.next() || rs.getObject(1) == null) {
+                        return null;
+                    }
+                    return new long[] { rs.getLong(1), rs.getLong(2) };
+                },
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /**
+     * Stream the absent days of students with ids in [fromId, toId] between two dates
+     */
+    public void streamAbsentDays(long fromId, long toId, LocalDate from, LocalDate to, AbsentDayHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(ABSENT_DAYS_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+            ps.setDate(3, Date.valueOf(from));
+            ps.setDate(4, Date.valueOf(to));
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.onAbsentDay(rs.getLong(1), rs.getDate(2).toLocalDate()));
+    }
+
+    /**
+     * Replace every flag with the given rows
+     */
+    public void replaceFlags(List<FlagRow> rows, int windowDays, int threshold) {
+        jdbcTemplate.update("DELETE FROM absenteeism_flags");
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setDate(2, Date.valueOf(row.windowStart()));
+            ps.setDate(3, Date.valueOf(row.windowEnd()));
+            ps.setInt(4, row.absenceCount());
+            ps.setInt(5, row.currentAbsences());
+            ps.setInt(6, windowDays);
+            ps.setInt(7, threshold);
+            ps.setTimestamp(8, now);
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.AggregationWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AggregationWatermarkRepository extends JpaRepository<AggregationWatermark, String> {
+}
@@ -0,0 +1,292 @@
+package com.wsims.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based JDBC writes against the attendance table. Rows written here bypass
+ * the Attendance entity lifecycle callbacks, so created_at/updated_at are set here.
+ *
+ * Upserts rely on the unique (student_id, subject_id, attendance_date) key and are
+ * written as one MERGE per chunk of rows. On SQL Server the target is read with
+ * HOLDLOCK so two concurrent merges of the same key serialize instead of both
+ * inserting; other databases (H2 in tests) get the same statement without the hint.
+ */
+@Repository
+public class AttendanceBatchRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO attendance (student_id, subject_id, attendance_date, status, remarks, marked_by, created_at, updated_at) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS " +
+            "(SELECT 1 FROM attendance WHERE student_id = ? AND subject_id = ? AND attendance_date = ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE attendance SET status = ?, remarks = ?, marked_by = ?, updated_at = ? WHERE id = ?";
+
+    private static final String UPDATE_IF_UNCHANGED_SQL = UPDATE_SQL + " AND updated_at = ?";
+
+    // Six parameters per row keeps a MERGE well under SQL Server's 2100 parameter limit
+    private static final int UPSERT_ROWS_PER_STATEMENT = 300;
+
+    /**
+     * One attendance row ready to be written. {@code id} is null for inserts.
+     */
+    public record AttendanceRow(Long id, Long studentId, String status, String remarks) {
+    }
+
+    /**
+     * An update that only applies if the row still carries {@code expectedUpdatedAt}
+     */
+    public record VersionedRow(AttendanceRow row, LocalDateTime expectedUpdatedAt) {
+    }
+
+    /**
+     * One attendance mark to insert, or to apply over the existing row with the same key
+     */
+    public record UpsertRow(Long studentId, Long subjectId, LocalDate date, String status, String remarks, Long markedById) {
+    }
+
+    /**
+     * What an upsert did to one key
+     */
+    public enum UpsertAction {
+        INSERTED,
+        UPDATED,
+        UNCHANGED
+    }
+
+    public record UpsertOutcome(UpsertRow row, UpsertAction action) {
+    }
+
+    private record RowKey(Long studentId, Long subjectId, LocalDate date) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean sqlServer;
+
+    @Autowired
+    public AttendanceBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert attendance rows for one subject and date in JDBC batches, skipping students
+     * who already have a row for that subject and date.
+     *
+     * @return the rows that were inserted
+     */
+    public List<AttendanceRow> batchInsertIfAbsent(List<AttendanceRow> rows, Long subjectId, LocalDate date, Long markedById) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Date attendanceDate = Date.valueOf(date);
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setLong(2, subjectId);
+            ps.setDate(3, attendanceDate);
+            ps.setString(4, row.status());
+            ps.setString(5, row.remarks());
+            if (markedById != null) {
+                ps.setLong(6, markedById);
+            } else {
+                ps.setNull(6, Types.BIGINT);
+            }
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+            ps.setLong(9, row.studentId());
+            ps.setLong(10, subjectId);
+            ps.setDate(11, attendanceDate);
+        });
+        List<AttendanceRow> inserted = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(rows.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Insert or update attendance rows by (student, subject, date) without reading them first.
+     * When the same key appears more than once the last row wins.
+     *
+     * @return the rows written, one per distinct key
+     */
+    public List<UpsertRow> batchUpsert(List<UpsertRow> rows) {
+        List<UpsertRow> distinct = distinctByKey(rows);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < distinct.size(); from += UPSERT_ROWS_PER_STATEMENT) {
+            List<UpsertRow> chunk = distinct.subList(from, Math.min(from + UPSERT_ROWS_PER_STATEMENT, distinct.size()));
+            jdbcTemplate.update(mergeSql(chunk.size(), false, false), ps -> bindUpsert(ps, chunk, now));
+        }
+        return distinct;
+    }
+
+    /**
+     * Like {@link #batchUpsert}, but rows whose status and remarks already match are left
+     * untouched and the outcome of every distinct key is reported. On SQL Server the outcome
+     * comes from the MERGE's OUTPUT clause; other databases have no equivalent, so there
+     * every key is reported as UPDATED.
+     */
+    public List<UpsertOutcome> batchUpsertReporting(List<UpsertRow> rows) {
+        List<UpsertRow> distinct = distinctByKey(rows);
+        List<UpsertOutcome> outcomes = new ArrayList<>(distinct.size());
+        boolean reported = isSqlServer();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < distinct.size(); from += UPSERT_ROWS_PER_STATEMENT) {
+            List<UpsertRow> chunk = distinct.subList(from, Math.min(from + UPSERT_ROWS_PER_STATEMENT, distinct.size()));
+            if (!reported) {
+                jdbcTemplate.update(mergeSql(chunk.size(), true, false), ps -> bindUpsert(ps, chunk, now));
+                chunk.forEach(row -> outcomes.add(new UpsertOutcome(row, UpsertAction.UPDATED)));
+                continue;
+            }
+            // Keys missing from the OUTPUT matched without a change
+            Map<RowKey, UpsertAction> actions = new HashMap<>();
+            jdbcTemplate.query(mergeSql(chunk.size(), true, true), ps -> bindUpsert(ps, chunk, now), rs -> {
+                actions.put(new RowKey(rs.getLong(2), rs.getLong(3), rs.getDate(4).toLocalDate()),
+                        "INSERT".equals(rs.getString(1)) ? UpsertAction.INSERTED : UpsertAction.UPDATED);
+            });
+            for (UpsertRow row : chunk) {
+                outcomes.add(new UpsertOutcome(row, actions.getOrDefault(
+                        new RowKey(row.studentId(), row.subjectId(), row.date()), UpsertAction.UNCHANGED)));
+            }
+        }
+        return outcomes;
+    }
+
+    // A MERGE source may not hold the same key twice; the last row for a key wins
+    private List<UpsertRow> distinctByKey(List<UpsertRow> rows) {
+        Map<RowKey, UpsertRow> byKey = new LinkedHashMap<>();
+        for (UpsertRow row : rows) {
+            byKey.put(new RowKey(row.studentId(), row.subjectId(), row.date()), row);
+        }
+        return new ArrayList<>(byKey.values());
+    }
+
+    private void bindUpsert(PreparedStatement ps, List<UpsertRow> chunk, Timestamp now) throws SQLException {
+        int index = 1;
+        for (UpsertRow row : chunk) {
+            ps.setLong(index++, row.studentId());
+            ps.setLong(index++, row.subjectId());
+            ps.setDate(index++, Date.valueOf(row.date()));
+            ps.setString(index++, row.status());
+            ps.setString(index++, row.remarks());
+            if (row.markedById() != null) {
+                ps.setLong(index++, row.markedById());
+            } else {
+                ps.setNull(index++, Types.BIGINT);
+            }
+        }
+        ps.setTimestamp(index++, now);
+        ps.setTimestamp(index++, now);
+        ps.setTimestamp(index, now);
+    }
+
+    private String mergeSql(int rowCount, boolean skipUnchanged, boolean output) {
+        boolean hinted = isSqlServer();
+        return "MERGE INTO attendance" + (hinted ? " WITH (HOLDLOCK)" : "") + " AS t " +
+               "USING (VALUES " + String.join(", ", Collections.nCopies(rowCount, "(?, ?, ?, ?, ?, ?)")) + ") " +
+               "AS s (student_id, subject_id, attendance_date, status, remarks, marked_by) " +
+               "ON t.student_id = s.student_id AND t.subject_id = s.subject_id AND t.attendance_date = s.attendance_date " +
+               "WHEN MATCHED" +
+               (skipUnchanged ? " AND (t.status <> s.status OR COALESCE(t.remarks, '') <> COALESCE(s.remarks, ''))" : "") +
+               " THEN UPDATE SET status = s.status, remarks = s.remarks, marked_by = s.marked_by, updated_at = ? " +
+               "WHEN NOT MATCHED THEN INSERT (student_id, subject_id, attendance_date, status, remarks, marked_by, created_at, updated_at) " +
+               "VALUES (s.student_id, s.subject_id, s.attendance_date, s.status, s.remarks, s.marked_by, ?, ?)" +
+               (output ? " OUTPUT $action, inserted.student_id, inserted.subject_id, inserted.attendance_date" : "") +
+               (hinted ? ";" : "");
+    }
+
+    private boolean isSqlServer() {
+        Boolean cached = sqlServer;
+        if (cached == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            cached = product != null && product.toLowerCase().contains("sql server");
+            sqlServer = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Update existing attendance rows by primary key in JDBC batches.
+     */
+    public void batchUpdate(List<AttendanceRow> rows, Long markedById) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setString(1, row.status());
+            ps.setString(2, row.remarks());
+            if (markedById != null) {
+                ps.setLong(3, markedById);
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setTimestamp(4, now);
+            ps.setLong(5, row.id());
+        });
+    }
+
+    /**
+     * Update rows by primary key in JDBC batches, skipping any row modified since it was read
+     *
+     * @return the rows that were updated
+     */
+    public List<VersionedRow> batchUpdateIfUnchanged(List<VersionedRow> rows, Long markedById) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_IF_UNCHANGED_SQL, rows, BATCH_SIZE, (ps, versioned) -> {
+            AttendanceRow row = versioned.row();
+            ps.setString(1, row.status());
+            ps.setString(2, row.remarks());
+            if (markedById != null) {
+                ps.setLong(3, markedById);
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setTimestamp(4, now);
+            ps.setLong(5, row.id());
+            ps.setTimestamp(6, Timestamp.valueOf(versioned.expectedUpdatedAt()));
+        });
+        List<VersionedRow> updated = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    updated.add(rows.get(index));
+                }
+                index++;
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,175 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.Attendance;
+import com.parami.wsims.service.AttendanceBits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to attendance_bitmaps, plus the narrow attendance reads the bitmaps
+ * are built from. Bitmap rows are replaced wholesale (delete then insert) rather
+ * than patched, so a refresh always reflects the attendance table.
+ */
+@Repository
+public class AttendanceBitmapRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    // Reads stream through the driver in blocks of this many rows
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO attendance_bitmaps (student_id, subject_id, academic_year, present_bits, absent_bits, late_bits, excused_bits, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * One student's bitmap for a subject and academic year
+     */
+    public record BitmapRow(Long studentId, Long subjectId, String academicYear, AttendanceBits bits) {
+    }
+
+    /**
+     * One attendance row as read for a bitmap build
+     */
+    public record AttendanceMark(long studentId, long subjectId, LocalDate date, Attendance.AttendanceStatus status) {
+    }
+
+    /**
+     * A (student, subject, date) whose attendance row was written or deleted
+     */
+    public record ChangedDay(long studentId, long subjectId, LocalDate date) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AttendanceBitmapRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Every persisted bitmap row
+     */
+    public void forEachBitmap(Consumer<BitmapRow> consumer) {
+        jdbcTemplate.query(
+                "SELECT student_id, subject_id, academic_year, present_bits, absent_bits, late_bits, excused_bits FROM attendance_bitmaps",
+                (RowCallbackHandler) rs -> consumer.accept(new BitmapRow(
+                        rs.getLong(1), rs.getLong(2), rs.getString(3),
+                        AttendanceBits.fromBytes(rs.getBytes(4), rs.getBytes(5), rs.getBytes(6), rs.getBytes(7)))));
+    }
+
+    public boolean hasBitmaps() {
+        Integer any = jdbcTemplate.query("SELECT TOP 1 1 FROM attendance_bitmaps",
+                rs -> rs.next() ? 1 : null);
+        return any != null;
+    }
+
+    public boolean hasAttendance() {
+        Integer any = jdbcTemplate.query("SELECT TOP 1 1 FROM attendance",
+                rs -> rs.next() ? 1 : null);
+        return any != null;
+    }
+
+    /**
+     * Stream the whole attendance table ordered by student and subject
+     */
+    public void forEachAttendance(Consumer<AttendanceMark> consumer) {
+        jdbcTemplate.query(connection -> {
+            var ps = connection.prepareStatement(
+                    "SELECT student_id, subject_id, attendance_date, status FROM attendance ORDER BY student_id, subject_id");
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(toMark(rs)));
+    }
+
+    /**
+     * Attendance of the given students in a subject between two dates (inclusive)
+     */
+    public void forEachAttendance(Long subjectId, LocalDate from, LocalDate to, List<Long> studentIds,
+                                  Consumer<AttendanceMark> consumer) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(studentIds.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(subjectId);
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(to));
+        args.addAll(studentIds);
+        jdbcTemplate.query(
+                "SELECT student_id, subject_id, attendance_date, status FROM attendance " +
+                "WHERE subject_id = ? AND attendance_date BETWEEN ? AND ? AND student_id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> consumer.accept(toMark(rs)),
+                args.toArray());
+    }
+
+    /**
+     * Attendance rows written in (from, to], by updated_at, together with deletions
+     * tombstoned in attendance_deletions over the same range
+     */
+    public void forEachChangedDay(LocalDateTime from, LocalDateTime to, Consumer<ChangedDay> consumer) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        jdbcTemplate.query(
+                "SELECT student_id, subject_id, attendance_date FROM attendance WHERE updated_at > ? AND updated_at <= ? " +
+                "UNION SELECT student_id, subject_id, attendance_date FROM attendance_deletions " +
+                "WHERE deleted_at > ? AND deleted_at <= ?",
+                (RowCallbackHandler) rs -> consumer.accept(
+                        new ChangedDay(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate())),
+                fromTs, toTs, fromTs, toTs);
+    }
+
+    public void deleteForStudents(Long subjectId, String academicYear, List<Long> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(studentIds.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(subjectId);
+        args.add(academicYear);
+        args.addAll(studentIds);
+        jdbcTemplate.update(
+                "DELETE FROM attendance_bitmaps WHERE subject_id = ? AND academic_year = ? AND student_id IN (" + placeholders + ")",
+                args.toArray());
+    }
+
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM attendance_bitmaps");
+    }
+
+    /**
+     * Insert bitmap rows in JDBC batches
+     */
+    public void batchInsert(List<BitmapRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setLong(2, row.subjectId());
+            ps.setString(3, row.academicYear());
+            ps.setBytes(4, row.bits().toBytes(Attendance.AttendanceStatus.PRESENT));
+            ps.setBytes(5, row.bits().toBytes(Attendance.AttendanceStatus.ABSENT));
+            ps.setBytes(6, row.bits().toBytes(Attendance.AttendanceStatus.LATE));
+            ps.setBytes(7, row.bits().toBytes(Attendance.AttendanceStatus.EXCUSED));
+            ps.setTimestamp(8, now);
+        });
+    }
+
+    private static AttendanceMark toMark(java.sql.ResultSet rs) throws java.sql.SQLException {
+        return new AttendanceMark(rs.getLong(1), rs.getLong(2), rs.getDate(3).toLocalDate(),
+                Attendance.AttendanceStatus.valueOf(rs.getString(4)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.AttendanceDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AttendanceDailyRollupRepository extends JpaRepository<AttendanceDailyRollup, Long> {
+
+    /**
+     * Distinct (attendance_date, subject_id) pairs with attendance rows written in (from, to]
+     */
+    @Query(value = "SELECT DISTINCT a.attendance_date, a.subject_id FROM attendance a " +
+                   "WHERE a.updated_at > :from AND a.updated_at <= :to",
+           nativeQuery = true)
+    List<Object[]> findChangedDays(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM AttendanceDailyRollup r WHERE r.attendanceDate = :date AND r.subjectId = :subjectId")
+    int deleteForDay(@Param("date") LocalDate date, @Param("subjectId") Long subjectId);
+
+    /**
+     * Recompute the rollup rows of one subject on one date with a single GROUP BY over attendance
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attendance_daily_rollups (attendance_date, subject_id, grade_level, present_count, " +
+                   "absent_count, late_count, excused_count, total_count, updated_at) " +
+                   "SELECT a.attendance_date, a.subject_id, COALESCE(s.grade_level, 'UNASSIGNED'), " +
+                   "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.status = 'LATE' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.status = 'EXCUSED' THEN 1 ELSE 0 END), " +
+                   "COUNT(*), :now " +
+                   "FROM attendance a LEFT JOIN students s ON s.user_id = a.student_id " +
+                   "WHERE a.attendance_date = :date AND a.subject_id = :subjectId " +
+                   "GROUP BY a.attendance_date, a.subject_id, COALESCE(s.grade_level, 'UNASSIGNED')",
+           nativeQuery = true)
+    int insertForDay(@Param("date") LocalDate date, @Param("subjectId") Long subjectId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM attendance_daily_rollups", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Rebuild every rollup row from the attendance table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attendance_daily_rollups (attendance_date, subject_id, grade_level, present_count, " +
+                   "absent_count, late_count, excused_count, total_count, updated_at) " +
+                   "SELECT a.attendance_date, a.subject_id, COALESCE(s.grade_level, 'UNASSIGNED'), " +
+                   "SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.status = 'LATE' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN a.status = 'EXCUSED' THEN 1 ELSE 0 END), " +
+                   "COUNT(*), :now " +
+                   "FROM attendance a LEFT JOIN students s ON s.user_id = a.student_id " +
+                   "GROUP BY a.attendance_date, a.subject_id, COALESCE(s.grade_level, 'UNASSIGNED')",
+           nativeQuery = true)
+    int insertAllRows(@Param("now") LocalDateTime now);
+
+    /**
+     * Daily totals between two dates as [date, present, absent, late, excused, total], optionally
+     * narrowed to one subject and/or grade level
+     */
+    @Query("SELECT r.attendanceDate, SUM(r.presentCount), SUM(r.absentCount), SUM(r.lateCount), " +
+           "SUM(r.excusedCount), SUM(r.totalCount) FROM AttendanceDailyRollup r " +
+           "WHERE r.attendanceDate BETWEEN :from AND :to " +
+           "AND (:subjectId IS NULL OR r.subjectId = :subjectId) " +
+           "AND (:gradeLevel IS NULL OR r.gradeLevel = :gradeLevel) " +
+           "GROUP BY r.attendanceDate ORDER BY r.attendanceDate")
+    List<Object[]> findDailyTotals(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to,
+                                   @Param("subjectId") Long subjectId,
+                                   @Param("gradeLevel") String gradeLevel);
+
+    @Query("SELECT DISTINCT r.gradeLevel FROM AttendanceDailyRollup r ORDER BY r.gradeLevel")
+    List<String> findGradeLevels();
+}
@@ -21,6 +21,18 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     @Query("SELECT a FROM Attendance a WHERE a.student.id = :studentId")
     Page<Attendance> findByStudentId(@Param("studentId") Long studentId, Pageable pageable);
     
+    // Keyset (seek) pages of a student's attendance, newest first; no count query
+    @Query("SELECT a FROM Attendance a WHERE a.student.id = :studentId ORDER BY a.attendanceDate DESC, a.id DESC")
+    List<Attendance> findByStudentIdFirstPage(@Param("studentId") Long studentId, Pageable limit);
+    
+    @Query("SELECT a FROM Attendance a WHERE a.student.id = :studentId " +
+           "AND (a.attendanceDate < :date OR (a.attendanceDate = :date AND a.id < :id)) " +
+           "ORDER BY a.attendanceDate DESC, a.id DESC")
+    List<Attendance> findByStudentIdBefore(@Param("studentId") Long studentId,
+                                           @Param("date") LocalDate date,
+                                           @Param("id") Long id,
+                                           Pageable limit);
+    
     // Find attendance records for a specific subject and date
     @Query("SELECT a FROM Attendance a WHERE a.subject.id = :subjectId AND a.attendanceDate = :date")
     List<Attendance> findBySubjectIdAndDate(@Param("subjectId") Long subjectId, @Param("date") LocalDate date);
@@ -62,36 +74,22 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
                                                            @Param("subjectId") Long subjectId, 
                                                            @Param("date") LocalDate date);
     
-    // Get attendance statistics for a student
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId AND a.status = :status")
-    Long countByStudentIdAndStatus(@Param("studentId") Long studentId, @Param("status") Attendance.AttendanceStatus status);
-    
-    // Get total attendance days for a student
-    @Query("SELECT COUNT(DISTINCT a.attendanceDate) FROM Attendance a WHERE a.student.id = :studentId")
-    Long countTotalAttendanceDaysByStudentId(@Param("studentId") Long studentId);
+    // Get attendance statistics for a subject as [status, count], one row per recorded status
+    @Query("SELECT a.status, COUNT(a) FROM Attendance a WHERE a.subject.id = :subjectId GROUP BY a.status")
+    List<Object[]> countByStatusForSubject(@Param("subjectId") Long subjectId);
     
-    // Get attendance statistics for a subject
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.subject.id = :subjectId AND a.status = :status")
-    Long countBySubjectIdAndStatus(@Param("subjectId") Long subjectId, @Param("status") Attendance.AttendanceStatus status);
+    // Marks per day and status for a student over a date range, as [date, status, count]
+    @Query("SELECT a.attendanceDate, a.status, COUNT(a) FROM Attendance a " +
+           "WHERE a.student.id = :studentId AND a.attendanceDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY a.attendanceDate, a.status")
+    List<Object[]> countByDayAndStatusForStudent(@Param("studentId") Long studentId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
     
     // Find subjects that have attendance records for a specific student
     @Query("SELECT DISTINCT a.subject FROM Attendance a WHERE a.student.id = :studentId")
     List<Subject> findDistinctSubjectsByStudentId(@Param("studentId") Long studentId);
     
-    // Find subjects taught by a specific teacher (through course-subject links)
-    @Query("SELECT DISTINCT csl.subject FROM CourseSubjectLink csl " +
-           "WHERE csl.course.id IN (" +
-           "    SELECT DISTINCT c.id FROM Course c " +
-           "    WHERE c.id IN (" +
-           "        SELECT DISTINCT e.course.id FROM Enrollment e " +
-           "        WHERE e.student.id IN (" +
-           "            SELECT DISTINCT a.student.id FROM Attendance a " +
-           "            WHERE a.markedBy.id = :teacherId" +
-           "        )" +
-           "    )" +
-           ")")
-    List<Subject> findSubjectsByTeacherId(@Param("teacherId") Long teacherId);
-    
     // Find students enrolled in a subject (through enrollments and course-subject links)
     @Query("SELECT DISTINCT e.student FROM Enrollment e " +
            "JOIN e.course c " +
@@ -113,16 +111,4 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
                                             @Param("endDate") LocalDate endDate, 
                                             @Param("status") Attendance.AttendanceStatus status, 
                                             Pageable pageable);
-    
-    // Count total attendance records for a student
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId")
-    long countByStudentId(@Param("studentId") Long studentId);
-    
-    // Count present attendance records for a student
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId AND a.status = 'PRESENT'")
-    long countPresentByStudentId(@Param("studentId") Long studentId);
-    
-    // Count absent attendance records for a student
-    @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student.id = :studentId AND a.status = 'ABSENT'")
-    long countAbsentByStudentId(@Param("studentId") Long studentId);
 }
\ No newline at end of file
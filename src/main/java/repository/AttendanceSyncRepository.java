@@ -0,0 +1,181 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.Attendance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JDBC reads and writes behind the attendance delta sync: the rows a batch of
+ * deltas touches, the rows changed since a sync token, deletion tombstones and
+ * the log of client change ids already applied.
+ */
+@Repository
+public class AttendanceSyncRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    // SQL Server caps a statement at 2100 parameters
+    private static final int IN_CHUNK = 1000;
+
+    private static final String ROW_COLUMNS =
+            "id, subject_id, student_id, attendance_date, status, remarks, updated_at";
+
+    /**
+     * One attendance row as exchanged with a syncing device
+     */
+    public record SyncRow(Long id, Long subjectId, Long studentId, LocalDate attendanceDate,
+                          Attendance.AttendanceStatus status, String remarks, LocalDateTime updatedAt) {
+    }
+
+    /**
+     * A deleted attendance row
+     */
+    public record DeletedRow(Long attendanceId, Long subjectId, Long studentId, LocalDate attendanceDate,
+                             LocalDateTime deletedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AttendanceSyncRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Current rows for the given students in one subject on one date
+     */
+    public List<SyncRow> findRows(Long subjectId, LocalDate date, Collection<Long> studentIds) {
+        List<Long> ids = new ArrayList<>(studentIds);
+        List<SyncRow> rows = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK, ids.size()));
+            List<Object> args = new ArrayList<>();
+            args.add(subjectId);
+            args.add(Date.valueOf(date));
+            args.addAll(chunk);
+            rows.addAll(jdbcTemplate.query(
+                    "SELECT " + ROW_COLUMNS + " FROM attendance WHERE subject_id = ? AND attendance_date = ? " +
+                    "AND student_id IN (" + placeholders(chunk.size()) + ")",
+                    (rs, rowNum) -> mapRow(rs), args.toArray()));
+        }
+        return rows;
+    }
+
+    /**
+     * Up to {@code limit} rows in the given subjects dated on or after {@code fromDate} that changed
+     * after the (updatedAt, id) position, in that order
+     */
+    public List<SyncRow> findChangedSince(Collection<Long> subjectIds, LocalDate fromDate,
+                                          LocalDateTime since, long afterId, int limit) {
+        if (subjectIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(limit);
+        args.addAll(subjectIds);
+        args.add(Date.valueOf(fromDate));
+        args.add(Timestamp.valueOf(since));
+        args.add(Timestamp.valueOf(since));
+        args.add(afterId);
+        return jdbcTemplate.query(
+                "SELECT TOP (?) " + ROW_COLUMNS + " FROM attendance " +
+                "WHERE subject_id IN (" + placeholders(subjectIds.size()) + ") AND attendance_date >= ? " +
+                "AND (updated_at > ? OR (updated_at = ? AND id > ?)) " +
+                "ORDER BY updated_at, id",
+                (rs, rowNum) -> mapRow(rs), args.toArray());
+    }
+
+    /**
+     * Tombstones in the given subjects dated on or after {@code fromDate} recorded after {@code since}
+     */
+    public List<DeletedRow> findDeletedSince(Collection<Long> subjectIds, LocalDate fromDate, LocalDateTime since) {
+        if (subjectIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> args = new ArrayList<>(subjectIds);
+        args.add(Date.valueOf(fromDate));
+        args.add(Timestamp.valueOf(since));
+        return jdbcTemplate.query(
+                "SELECT attendance_id, subject_id, student_id, attendance_date, deleted_at FROM attendance_deletions " +
+                "WHERE subject_id IN (" + placeholders(subjectIds.size()) + ") AND attendance_date >= ? AND deleted_at > ? " +
+                "ORDER BY deleted_at",
+                (rs, rowNum) -> new DeletedRow(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rs.getDate(4).toLocalDate(), rs.getTimestamp(5).toLocalDateTime()),
+                args.toArray());
+    }
+
+    public void insertDeletion(Long attendanceId, Long subjectId, Long studentId, LocalDate date) {
+        jdbcTemplate.update(
+                "INSERT INTO attendance_deletions (attendance_id, subject_id, student_id, attendance_date, deleted_at) " +
+                "VALUES (?, ?, ?, ?, ?)",
+                attendanceId, subjectId, studentId, Date.valueOf(date), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * The subset of the given change ids this teacher has already had applied
+     */
+    public Set<String> findAppliedChangeIds(Long teacherId, Collection<String> changeIds) {
+        List<String> ids = new ArrayList<>(changeIds);
+        Set<String> applied = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(from + IN_CHUNK, ids.size()));
+            List<Object> args = new ArrayList<>();
+            args.add(teacherId);
+            args.addAll(chunk);
+            applied.addAll(jdbcTemplate.queryForList(
+                    "SELECT change_id FROM attendance_sync_changes WHERE teacher_id = ? " +
+                    "AND change_id IN (" + placeholders(chunk.size()) + ")",
+                    String.class, args.toArray()));
+        }
+        return applied;
+    }
+
+    public void insertAppliedChanges(Long teacherId, List<String> changeIds) {
+        if (changeIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO attendance_sync_changes (teacher_id, change_id, applied_at) VALUES (?, ?, ?)",
+                changeIds, BATCH_SIZE, (ps, changeId) -> {
+                    ps.setLong(1, teacherId);
+                    ps.setString(2, changeId);
+                    ps.setTimestamp(3, now);
+                });
+    }
+
+    /**
+     * Drop applied change ids and tombstones older than the cutoff
+     * @return number of rows removed
+     */
+    public int purgeBefore(LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        return jdbcTemplate.update("DELETE FROM attendance_sync_changes WHERE applied_at < ?", before)
+                + jdbcTemplate.update("DELETE FROM attendance_deletions WHERE deleted_at < ?", before);
+    }
+
+    private static SyncRow mapRow(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp(7);
+        return new SyncRow(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getDate(4).toLocalDate(),
+                Attendance.AttendanceStatus.valueOf(rs.getString(5)), rs.getString(6),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
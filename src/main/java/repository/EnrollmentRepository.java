@@ -53,6 +53,10 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
     @Query("SELECT e FROM Enrollment e WHERE e.student.id = :studentId AND e.course.id = :courseId")
     Optional<Enrollment> findByStudentIdAndCourseId(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
     
+    // Ids of the students actively enrolled in a course
+    @Query("SELECT e.student.id FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'ACTIVE' ORDER BY e.student.id")
+    List<Long> findActiveStudentIdsByCourseId(@Param("courseId") Long courseId);
+    
     // Check if student is enrolled in course
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM Enrollment e WHERE e.student.id = :studentId AND e.course.id = :courseId AND e.status = 'ACTIVE'")
     boolean isStudentEnrolledInCourse(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
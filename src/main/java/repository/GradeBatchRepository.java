@@ -0,0 +1,157 @@
+package com.wsims.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based JDBC writes against the grades table. Rows written here bypass the
+ * Grade entity lifecycle callbacks, so callers supply the derived columns
+ * (percentage, letter grade, grade point) themselves.
+ */
+@Repository
+public class GradeBatchRepository {
+
+    public static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO grades (student_id, course_id, subject_id, exam_schedule_id, marks_obtained, total_marks, " +
+            "percentage, letter_grade, grade_point, comments, status, created_at, updated_at, created_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'ACTIVE', ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE grades SET marks_obtained = ?, total_marks = ?, percentage = ?, letter_grade = ?, grade_point = ?, " +
+            "comments = CASE WHEN ? = 1 THEN ? ELSE comments END, updated_at = ? WHERE id = ?";
+
+    private static final String RESCALE_SQL =
+            "UPDATE grades SET letter_grade = ?, grade_point = ?, updated_at = ? " +
+            "WHERE id BETWEEN ? AND ? AND percentage >= ? AND percentage < ? " +
+            "AND exam_schedule_id IN (SELECT id FROM exam_schedules WHERE academic_year = ?) " +
+            "AND (letter_grade IS NULL OR letter_grade <> ? OR grade_point IS NULL OR grade_point <> ?)";
+
+    /**
+     * One grade row ready to be written. {@code id} is null for inserts.
+     */
+    public record GradeRow(Long id, Long studentId, Long subjectId,
+                           BigDecimal marksObtained, BigDecimal totalMarks,
+                           BigDecimal percentage, String letterGrade, BigDecimal gradePoint,
+                           String comments, boolean commentsProvided) {
+    }
+
+    /**
+     * Percentage range [minPercentage, maxPercentage) that maps to one letter grade and grade point.
+     */
+    public record RescaleBand(BigDecimal minPercentage, BigDecimal maxPercentage,
+                              String letterGrade, BigDecimal gradePoint) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GradeBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert new grade rows for a course and exam schedule in JDBC batches.
+     */
+    public void batchInsert(List<GradeRow> rows, Long courseId, Long examScheduleId, Long createdById) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setLong(2, courseId);
+            ps.setLong(3, row.subjectId());
+            ps.setLong(4, examScheduleId);
+            ps.setBigDecimal(5, row.marksObtained());
+            ps.setBigDecimal(6, row.totalMarks());
+            ps.setBigDecimal(7, row.percentage());
+            ps.setString(8, row.letterGrade());
+            ps.setBigDecimal(9, row.gradePoint());
+            ps.setString(10, row.commentsProvided() ? row.comments() : null);
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+            if (createdById != null) {
+                ps.setLong(13, createdById);
+            } else {
+                ps.setNull(13, Types.BIGINT);
+            }
+        });
+    }
+
+    /**
+     * Update existing grade rows by primary key in JDBC batches. Comments are only
+     * overwritten for rows that supplied them.
+     */
+    public void batchUpdate(List<GradeRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setBigDecimal(1, row.marksObtained());
+            ps.setBigDecimal(2, row.totalMarks());
+            ps.setBigDecimal(3, row.percentage());
+            ps.setString(4, row.letterGrade());
+            ps.setBigDecimal(5, row.gradePoint());
+            ps.setInt(6, row.commentsProvided() ? 1 : 0);
+            ps.setString(7, row.comments());
+            ps.setTimestamp(8, now);
+            ps.setLong(9, row.id());
+        });
+    }
+
+    /**
+     * Lowest and highest grade id recorded against exams of an academic year, or null if there are none.
+     */
+    public long[] findGradeIdRange(String academicYear) {
+        return jdbcTemplate.query(
+                "SELECT MIN(g.id), MAX(g.id) FROM grades g JOIN exam_schedules e ON e.id = g.exam_schedule_id " +
+                "WHERE e.academic_year = ?",
+                rs -> {
+                    if (!rs.next() || rs.getObject(1) == null) {
+                        return null;
+                    }
+                    return new long[] { rs.getLong(1), rs.getLong(2) };
+                },
+                academicYear);
+    }
+
+    /**
+     * Re-derive letter_grade and grade_point for grades with ids in [fromId, toId]
+     * of an academic year: one set-based UPDATE per band, sent as a single batch.
+     * Rows that already hold the right values are left untouched.
+     *
+     * @return number of rows changed
+     */
+    public int rescaleGrades(String academicYear, List<RescaleBand> bands, long fromId, long toId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(RESCALE_SQL, bands, BATCH_SIZE, (ps, band) -> {
+            ps.setString(1, band.letterGrade());
+            ps.setBigDecimal(2, band.gradePoint());
+            ps.setTimestamp(3, now);
+            ps.setLong(4, fromId);
+            ps.setLong(5, toId);
+            ps.setBigDecimal(6, band.minPercentage());
+            ps.setBigDecimal(7, band.maxPercentage());
+            ps.setString(8, academicYear);
+            ps.setString(9, band.letterGrade());
+            ps.setBigDecimal(10, band.gradePoint());
+        });
+        int changed = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                changed += Math.max(count, 0);
+            }
+        }
+        return changed;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +52,89 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
      */
     List<Grade> findByCourseIdAndExamScheduleId(Long courseId, Long examScheduleId);
     
+    /**
+     * Find (grade id, student id, subject id) keys for a course and exam schedule
+     * without hydrating Grade entities
+     */
+    @Query("SELECT g.id, g.student.id, g.subject.id FROM Grade g " +
+           "WHERE g.course.id = :courseId AND g.examSchedule.id = :examScheduleId")
+    List<Object[]> findGradeKeysByCourseAndExam(@Param("courseId") Long courseId, @Param("examScheduleId") Long examScheduleId);
+    
+    /**
+     * Same as {@link #findGradeKeysByCourseAndExam} restricted to some students
+     */
+    @Query("SELECT g.id, g.student.id, g.subject.id FROM Grade g " +
+           "WHERE g.course.id = :courseId AND g.examSchedule.id = :examScheduleId AND g.student.id IN :studentIds")
+    List<Object[]> findGradeKeysByCourseAndExamAndStudentIds(@Param("courseId") Long courseId,
+                                                             @Param("examScheduleId") Long examScheduleId,
+                                                             @Param("studentIds") List<Long> studentIds);
+    
+    /**
+     * Average percentage per student for a course and exam schedule (ranking input)
+     */
+    @Query("SELECT g.student.id, AVG(g.percentage) FROM Grade g " +
+           "WHERE g.course.id = :courseId AND g.examSchedule.id = :examScheduleId AND g.percentage IS NOT NULL " +
+           "GROUP BY g.student.id")
+    List<Object[]> findAveragePercentageByStudent(@Param("courseId") Long courseId, @Param("examScheduleId") Long examScheduleId);
+    
+    /**
+     * Percentage per student for one subject of a course and exam schedule (ranking input)
+     */
+    @Query("SELECT g.student.id, g.percentage FROM Grade g " +
+           "WHERE g.course.id = :courseId AND g.examSchedule.id = :examScheduleId AND g.subject.id = :subjectId " +
+           "AND g.percentage IS NOT NULL")
+    List<Object[]> findSubjectPercentageByStudent(@Param("courseId") Long courseId,
+                                                  @Param("examScheduleId") Long examScheduleId,
+                                                  @Param("subjectId") Long subjectId);
+    
+    /**
+     * Distribution rows per subject and letter grade:
+     * [subjectId, subjectName, letterGrade, count, sum(percentage), sum(percentage^2), min, max]
+     */
+    @Query("SELECT g.subject.id, g.subject.subjectName, g.letterGrade, COUNT(g), SUM(g.percentage), " +
+           "SUM(g.percentage * g.percentage), MIN(g.percentage), MAX(g.percentage) FROM Grade g " +
+           "WHERE g.percentage IS NOT NULL " +
+           "AND (:examScheduleId IS NULL OR g.examSchedule.id = :examScheduleId) " +
+           "AND (:subjectId IS NULL OR g.subject.id = :subjectId) " +
+           "GROUP BY g.subject.id, g.subject.subjectName, g.letterGrade")
+    List<Object[]> findDistributionBySubject(@Param("examScheduleId") Long examScheduleId, @Param("subjectId") Long subjectId);
+    
+    /**
+     * Distribution rows per exam schedule and letter grade (same column layout as by subject)
+     */
+    @Query("SELECT g.examSchedule.id, CONCAT(g.examSchedule.examName, ' (', g.examSchedule.academicYear, ')'), g.letterGrade, " +
+           "COUNT(g), SUM(g.percentage), SUM(g.percentage * g.percentage), MIN(g.percentage), MAX(g.percentage) FROM Grade g " +
+           "WHERE g.percentage IS NOT NULL " +
+           "AND (:examScheduleId IS NULL OR g.examSchedule.id = :examScheduleId) " +
+           "AND (:subjectId IS NULL OR g.subject.id = :subjectId) " +
+           "GROUP BY g.examSchedule.id, g.examSchedule.examName, g.examSchedule.academicYear, g.letterGrade")
+    List<Object[]> findDistributionByExam(@Param("examScheduleId") Long examScheduleId, @Param("subjectId") Long subjectId);
+    
+    /**
+     * Distribution rows per student grade level and letter grade (group id column is always null)
+     */
+    @Query("SELECT CAST(NULL AS Long), s.gradeLevel, g.letterGrade, COUNT(g), SUM(g.percentage), " +
+           "SUM(g.percentage * g.percentage), MIN(g.percentage), MAX(g.percentage) FROM Grade g, Student s " +
+           "WHERE s.userId = g.student.id AND g.percentage IS NOT NULL " +
+           "AND (:examScheduleId IS NULL OR g.examSchedule.id = :examScheduleId) " +
+           "AND (:subjectId IS NULL OR g.subject.id = :subjectId) " +
+           "GROUP BY s.gradeLevel, g.letterGrade")
+    List<Object[]> findDistributionByGradeLevel(@Param("examScheduleId") Long examScheduleId, @Param("subjectId") Long subjectId);
+    
+    /**
+     * Gradebook cells for a course and exam: [gradeId, studentId, subjectId, marksObtained, comments]
+     */
+    @Query("SELECT g.id, g.student.id, g.subject.id, g.marksObtained, g.comments FROM Grade g " +
+           "WHERE g.course.id = :courseId AND g.examSchedule.id = :examScheduleId " +
+           "ORDER BY g.student.id, g.subject.id")
+    List<Object[]> findGradebookCells(@Param("courseId") Long courseId, @Param("examScheduleId") Long examScheduleId);
+    
+    /**
+     * Find the (course id, exam schedule id, student id) key of a grade
+     */
+    @Query("SELECT g.course.id, g.examSchedule.id, g.student.id FROM Grade g WHERE g.id = :gradeId")
+    List<Object[]> findGradeKeyById(@Param("gradeId") Long gradeId);
+    
     /**
      * Find grades by student ID and course ID
      */
@@ -175,4 +259,14 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
      * Count grades by exam schedule ID
      */
     long countByExamScheduleId(Long examScheduleId);
+
+    /**
+     * Count grades of an exam schedule that have marks entered
+     */
+    long countByExamScheduleIdAndMarksObtainedIsNotNull(Long examScheduleId);
+
+    /**
+     * Count grades of an exam schedule changed after a point in time
+     */
+    long countByExamScheduleIdAndUpdatedAtAfter(Long examScheduleId, LocalDateTime since);
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.GradeSnapshotEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GradeSnapshotEntryRepository extends JpaRepository<GradeSnapshotEntry, Long> {
+
+    /**
+     * A student's rows across the given snapshots, ordered for display
+     */
+    @Query("SELECT e FROM GradeSnapshotEntry e WHERE e.snapshotId IN :snapshotIds AND e.studentId = :studentId " +
+           "ORDER BY e.snapshotId, e.subjectName")
+    List<GradeSnapshotEntry> findForStudent(@Param("snapshotIds") Collection<Long> snapshotIds,
+                                            @Param("studentId") Long studentId);
+
+    /**
+     * First keyset page of a student's rows across the given snapshots, newest entry first
+     */
+    @Query("SELECT e FROM GradeSnapshotEntry e WHERE e.snapshotId IN :snapshotIds AND e.studentId = :studentId " +
+           "ORDER BY e.id DESC")
+    List<GradeSnapshotEntry> findPageForStudent(@Param("snapshotIds") Collection<Long> snapshotIds,
+                                                @Param("studentId") Long studentId,
+                                                Pageable limit);
+
+    /**
+     * Keyset page of a student's rows across the given snapshots with ids strictly below {@code id}
+     */
+    @Query("SELECT e FROM GradeSnapshotEntry e WHERE e.snapshotId IN :snapshotIds AND e.studentId = :studentId " +
+           "AND e.id < :id ORDER BY e.id DESC")
+    List<GradeSnapshotEntry> findPageForStudentBefore(@Param("snapshotIds") Collection<Long> snapshotIds,
+                                                      @Param("studentId") Long studentId,
+                                                      @Param("id") Long id,
+                                                      Pageable limit);
+
+    /**
+     * Copy the graded rows of an exam schedule into a snapshot with one INSERT ... SELECT
+     */
+    @Modifying
+    @Query(value = "INSERT INTO grade_snapshot_entries (snapshot_id, student_id, course_id, subject_id, subject_name, " +
+                   "subject_code, marks_obtained, total_marks, percentage, letter_grade, grade_point, comments) " +
+                   "SELECT :snapshotId, g.student_id, g.course_id, g.subject_id, s.subject_name, s.subject_code, " +
+                   "g.marks_obtained, g.total_marks, g.percentage, g.letter_grade, g.grade_point, g.comments " +
+                   "FROM grades g JOIN subjects s ON s.id = g.subject_id " +
+                   "WHERE g.exam_schedule_id = :examScheduleId AND g.marks_obtained IS NOT NULL",
+           nativeQuery = true)
+    int copyFromGrades(@Param("snapshotId") Long snapshotId, @Param("examScheduleId") Long examScheduleId);
+
+    @Modifying
+    @Query(value = "DELETE FROM grade_snapshot_entries WHERE snapshot_id IN " +
+                   "(SELECT id FROM grade_snapshots WHERE exam_schedule_id = :examScheduleId AND version <= :maxVersion)",
+           nativeQuery = true)
+    int deleteForVersionsUpTo(@Param("examScheduleId") Long examScheduleId, @Param("maxVersion") Integer maxVersion);
+}
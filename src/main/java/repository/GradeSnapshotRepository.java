@@ -0,0 +1,41 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.GradeSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GradeSnapshotRepository extends JpaRepository<GradeSnapshot, Long> {
+
+    List<GradeSnapshot> findByCurrentTrue();
+
+    Optional<GradeSnapshot> findTopByExamScheduleIdOrderByVersionDesc(Long examScheduleId);
+
+    /**
+     * Highest snapshot version of an exam (0 if never published). UPDLOCK/HOLDLOCK also locks
+     * the key range, so concurrent publishes of the same exam queue here until the first commits.
+     */
+    @Query(value = "SELECT COALESCE(MAX(version), 0) FROM grade_snapshots WITH (UPDLOCK, HOLDLOCK) " +
+                   "WHERE exam_schedule_id = :examScheduleId",
+           nativeQuery = true)
+    int lockLatestVersion(@Param("examScheduleId") Long examScheduleId);
+
+    List<GradeSnapshot> findByExamScheduleIdOrderByVersionDesc(Long examScheduleId);
+
+    /**
+     * Mark every other version of an exam as superseded
+     */
+    @Modifying
+    @Query("UPDATE GradeSnapshot s SET s.current = false WHERE s.examScheduleId = :examScheduleId AND s.id <> :snapshotId")
+    int supersedeOthers(@Param("examScheduleId") Long examScheduleId, @Param("snapshotId") Long snapshotId);
+
+    @Modifying
+    @Query("DELETE FROM GradeSnapshot s WHERE s.examScheduleId = :examScheduleId AND s.version <= :maxVersion")
+    int deleteVersionsUpTo(@Param("examScheduleId") Long examScheduleId, @Param("maxVersion") Integer maxVersion);
+}
@@ -0,0 +1,16 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.GradingScale;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GradingScaleRepository extends JpaRepository<GradingScale, Long> {
+
+    Optional<GradingScale> findByAcademicYear(String academicYear);
+
+    List<GradingScale> findAllByOrderByAcademicYearDesc();
+}
@@ -48,6 +48,23 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT m FROM Message m WHERE m.recipient.id = :recipientId ORDER BY m.createdAt DESC")
     Page<Message> findByRecipientId(@Param("recipientId") Long recipientId, Pageable pageable);
 
+    /**
+     * First keyset page of messages received by a user, newest first (no count query)
+     */
+    @Query("SELECT m FROM Message m WHERE m.recipient.id = :recipientId ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findByRecipientIdFirstPage(@Param("recipientId") Long recipientId, Pageable limit);
+
+    /**
+     * Keyset page of messages received by a user strictly before (createdAt, id)
+     */
+    @Query("SELECT m FROM Message m WHERE m.recipient.id = :recipientId " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findByRecipientIdBefore(@Param("recipientId") Long recipientId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable limit);
+
 
     /**
      * Find all messages between two users within a date range
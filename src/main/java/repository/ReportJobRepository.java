@@ -0,0 +1,81 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.ReportJob;
+import com.parami.wsims.entity.ReportJob.JobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    /**
+     * Queued jobs whose next attempt is due, highest priority then oldest first
+     */
+    @Query("SELECT j FROM ReportJob j WHERE j.status = :queued AND j.nextAttemptAt <= :now ORDER BY j.priority DESC, j.id")
+    List<ReportJob> findDue(@Param("queued") JobStatus queued, @Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Move a due job from QUEUED to RUNNING; returns 0 if another worker got it first
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :running, j.startedAt = :now, j.heartbeatAt = :now, " +
+           "j.attempts = j.attempts + 1 " +
+           "WHERE j.id = :id AND j.status = :queued AND j.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("queued") JobStatus queued, @Param("running") JobStatus running,
+              @Param("now") LocalDateTime now);
+
+    /**
+     * Extend the claim of a running attempt; returns 0 if the job was re-queued or taken over
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.heartbeatAt = :now " +
+           "WHERE j.id = :id AND j.status = :running AND j.attempts = :attempt")
+    int heartbeat(@Param("id") Long id, @Param("attempt") Integer attempt, @Param("running") JobStatus running,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Put RUNNING jobs whose heartbeat stopped before a cut-off (their worker died) back in the queue
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :queued, j.nextAttemptAt = :now " +
+           "WHERE j.status = :running AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :heartbeatBefore)")
+    int requeueRunning(@Param("queued") JobStatus queued, @Param("running") JobStatus running,
+                       @Param("heartbeatBefore") LocalDateTime heartbeatBefore, @Param("now") LocalDateTime now);
+
+    /**
+     * Record the output of a running attempt; returns 0 if the attempt no longer owns the job
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :completed, j.downloadName = :downloadName, j.resultPath = :resultPath, " +
+           "j.resultSize = :resultSize, j.lastError = NULL, j.completedAt = :now " +
+           "WHERE j.id = :id AND j.status = :running AND j.attempts = :attempt")
+    int complete(@Param("id") Long id, @Param("attempt") Integer attempt, @Param("running") JobStatus running,
+                 @Param("completed") JobStatus completed, @Param("downloadName") String downloadName,
+                 @Param("resultPath") String resultPath, @Param("resultSize") Long resultSize,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * End a failed running attempt, either back to QUEUED for a retry or as FAILED; returns 0
+     * if the attempt no longer owns the job
+     */
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :status, j.lastError = :error, j.nextAttemptAt = :nextAttemptAt, " +
+           "j.completedAt = :completedAt " +
+           "WHERE j.id = :id AND j.status = :running AND j.attempts = :attempt")
+    int endAttempt(@Param("id") Long id, @Param("attempt") Integer attempt, @Param("running") JobStatus running,
+                   @Param("status") JobStatus status, @Param("error") String error,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Finished jobs whose output is past retention
+     */
+    @Query("SELECT j FROM ReportJob j WHERE j.completedAt < :before")
+    List<ReportJob> findCompletedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,74 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.StudentExamPerformance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentExamPerformanceRepository extends JpaRepository<StudentExamPerformance, Long> {
+
+    Optional<StudentExamPerformance> findByStudentIdAndExamScheduleId(Long studentId, Long examScheduleId);
+
+    List<StudentExamPerformance> findByStudentId(Long studentId);
+
+    List<StudentExamPerformance> findByExamScheduleId(Long examScheduleId);
+
+    /**
+     * Remove aggregate rows for the given students in one exam schedule
+     */
+    @Modifying
+    @Query("DELETE FROM StudentExamPerformance p WHERE p.examScheduleId = :examScheduleId AND p.studentId IN :studentIds")
+    int deleteForStudents(@Param("examScheduleId") Long examScheduleId, @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Recompute aggregate rows for the given students in one exam schedule with a
+     * single GROUP BY over the grades table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO student_exam_performance (student_id, exam_schedule_id, grade_count, graded_count, " +
+                   "percentage_sum, grade_point_sum, count_a, count_b, count_c, count_d, count_f, gpa, updated_at) " +
+                   "SELECT g.student_id, g.exam_schedule_id, COUNT(*), COUNT(g.percentage), " +
+                   "SUM(g.percentage), SUM(g.grade_point), " +
+                   "SUM(CASE WHEN g.letter_grade = 'A' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'B' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'C' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'D' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'F' THEN 1 ELSE 0 END), " +
+                   "CAST(AVG(g.grade_point) AS DECIMAL(3,2)), :now " +
+                   "FROM grades g WHERE g.exam_schedule_id = :examScheduleId AND g.student_id IN (:studentIds) " +
+                   "GROUP BY g.student_id, g.exam_schedule_id",
+           nativeQuery = true)
+    int insertForStudents(@Param("examScheduleId") Long examScheduleId,
+                          @Param("studentIds") Collection<Long> studentIds,
+                          @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM student_exam_performance", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Rebuild every aggregate row from the grades table
+     */
+    @Modifying
+    @Query(value = "INSERT INTO student_exam_performance (student_id, exam_schedule_id, grade_count, graded_count, " +
+                   "percentage_sum, grade_point_sum, count_a, count_b, count_c, count_d, count_f, gpa, updated_at) " +
+                   "SELECT g.student_id, g.exam_schedule_id, COUNT(*), COUNT(g.percentage), " +
+                   "SUM(g.percentage), SUM(g.grade_point), " +
+                   "SUM(CASE WHEN g.letter_grade = 'A' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'B' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'C' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'D' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN g.letter_grade = 'F' THEN 1 ELSE 0 END), " +
+                   "CAST(AVG(g.grade_point) AS DECIMAL(3,2)), :now " +
+                   "FROM grades g GROUP BY g.student_id, g.exam_schedule_id",
+           nativeQuery = true)
+    int insertAllRows(@Param("now") LocalDateTime now);
+}
@@ -53,6 +53,10 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     // Find student by user ID
     Optional<Student> findByUserId(Long userId);
     
+    // User ids of the students in a grade level
+    @Query("SELECT s.userId FROM Student s WHERE s.gradeLevel = :gradeLevel ORDER BY s.userId")
+    List<Long> findUserIdsByGradeLevel(@Param("gradeLevel") String gradeLevel);
+    
     // Find students by grade level list
     List<Student> findByGradeLevelIn(List<String> gradeLevels);
 }
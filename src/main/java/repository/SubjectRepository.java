@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,4 +33,7 @@ public interface SubjectRepository extends JpaRepository<Subject, Long> {
     
     boolean existsBySubjectCode(String subjectCode);
     boolean existsBySubjectCodeAndIdNot(String subjectCode, Long id);
+    
+    @Query("SELECT s.id FROM Subject s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
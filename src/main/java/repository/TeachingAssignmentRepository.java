@@ -0,0 +1,29 @@
+package com.wsims.repository;
+
+import com.parami.wsims.entity.TeachingAssignment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TeachingAssignmentRepository extends JpaRepository<TeachingAssignment, Long> {
+
+    // Course and subject are fetched in the same query
+    @Query("SELECT ta FROM TeachingAssignment ta JOIN FETCH ta.course JOIN FETCH ta.subject " +
+           "WHERE ta.teacherId = :teacherId ORDER BY ta.course.courseName, ta.subject.subjectName")
+    List<TeachingAssignment> findByTeacherIdWithCourseAndSubject(@Param("teacherId") Long teacherId);
+
+    @Query("SELECT ta FROM TeachingAssignment ta JOIN FETCH ta.course JOIN FETCH ta.subject " +
+           "ORDER BY ta.teacherId, ta.course.courseName, ta.subject.subjectName")
+    List<TeachingAssignment> findAllWithCourseAndSubject();
+
+    // Either id may be null to match any course or any subject
+    @Query("SELECT ta FROM TeachingAssignment ta " +
+           "WHERE (:courseId IS NULL OR ta.course.id = :courseId) AND (:subjectId IS NULL OR ta.subject.id = :subjectId)")
+    List<TeachingAssignment> findByCourseAndSubject(@Param("courseId") Long courseId, @Param("subjectId") Long subjectId);
+
+    boolean existsByTeacherIdAndCourseIdAndSubjectId(Long teacherId, Long courseId, Long subjectId);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +54,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByRoleName(String roleName);
     
+    // Return which of the given ids exist, without loading the users
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    // Return which of the given ids belong to students, so staff and parent ids are never marked present
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.role.name = 'STUDENT'")
+    List<Long> findExistingStudentIds(@Param("ids") Collection<Long> ids);
+    
     // Find students by grade level - removed as gradeLevel field doesn't exist in User entity
     // @Query("SELECT u FROM User u WHERE u.role.name = 'STUDENT' AND u.gradeLevel = :gradeLevel")
     // List<User> findStudentsByGradeLevel(@Param("gradeLevel") String gradeLevel);
@@ -0,0 +1,43 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AbsenteeismFlagView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface AbsenteeismService {
+
+    /**
+     * Outcome of one detection run
+     */
+    record RunSummary(LocalDateTime startedAt, long durationMillis, int partitions,
+                      int studentsWithAbsences, int flagged, int windowDays, int threshold) {
+    }
+
+    /**
+     * Scan attendance and replace the flags table with the students currently over the threshold
+     */
+    RunSummary runDetection();
+
+    /**
+     * Every flagged student, most current absences first
+     */
+    List<AbsenteeismFlagView> getFlags();
+
+    /**
+     * Flagged students enrolled in courses that teach any of the given subjects
+     */
+    List<AbsenteeismFlagView> getFlagsForSubjects(Collection<Long> subjectIds);
+
+    /**
+     * The flag for one student, if they are flagged
+     */
+    Optional<AbsenteeismFlagView> getFlag(Long studentId);
+
+    /**
+     * Summary of the most recent completed run, if any
+     */
+    Optional<RunSummary> getLastRun();
+}
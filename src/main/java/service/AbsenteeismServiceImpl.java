@@ -0,0 +1,224 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AbsenteeismFlagView;
+import com.parami.wsims.repository.AbsenteeismFlagRepository;
+import com.parami.wsims.repository.AbsenteeismScanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Flags students whose absent days within any rolling window of {@code windowDays}
+ * reach {@code threshold} over the look-back period. The student id range is split
+ * into one partition per core; each partition streams its absent days in (student,
+ * date) order and keeps a ring buffer of at most {@code windowDays} entries, so memory
+ * does not grow with the size of the attendance table.
+ */
+@Service
+public class AbsenteeismServiceImpl implements AbsenteeismService {
+
+    private final AbsenteeismScanRepository scanRepository;
+    private final AbsenteeismFlagRepository flagRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${wsims.absenteeism.window-days:30}")
+    private int windowDays;
+
+    @Value("${wsims.absenteeism.threshold:5}")
+    private int threshold;
+
+    @Value("${wsims.absenteeism.lookback-days:365}")
+    private int lookbackDays;
+
+    @Value("${wsims.absenteeism.partitions:0}")
+    private int configuredPartitions;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile RunSummary lastRun;
+
+    @Autowired
+    public AbsenteeismServiceImpl(AbsenteeismScanRepository scanRepository,
+                                  AbsenteeismFlagRepository flagRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.scanRepository = scanRepository;
+        this.flagRepository = flagRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Scheduled(cron = "${wsims.absenteeism.cron:0 0 4 * * *}")
+    public RunSummary runDetection() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Absenteeism detection is already running");
+        }
+        try {
+            return detect();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RunSummary detect() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(lookbackDays);
+
+        List<WindowScanner> scanners = new ArrayList<>();
+        long[] idRange = scanRepository.findStudentIdRange(from, today);
+        if (idRange != null) {
+            int partitions = configuredPartitions > 0 ? configuredPartitions : Runtime.getRuntime().availableProcessors();
+            long span = idRange[1] - idRange[0] + 1;
+            partitions = (int) Math.max(1, Math.min(partitions, span));
+            long step = (span + partitions - 1) / partitions;
+
+            ExecutorService pool = Executors.newFixedThreadPool(partitions);
+            try {
+                List<CompletableFuture<WindowScanner>> futures = new ArrayList<>();
+                for (long lo = idRange[0]; lo <= idRange[1]; lo += step) {
+                    long fromId = lo;
+                    long toId = Math.min(lo + step - 1, idRange[1]);
+                    futures.add(CompletableFuture.supplyAsync(() -> {
+                        WindowScanner scanner = new WindowScanner(windowDays, threshold, today);
+                        scanRepository.streamAbsentDays(fromId, toId, from, today, scanner);
+                        scanner.finishStudent();
+                        return scanner;
+                    }, pool));
+                }
+                for (CompletableFuture<WindowScanner> future : futures) {
+                    scanners.add(future.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        List<AbsenteeismScanRepository.FlagRow> flags = new ArrayList<>();
+        int studentsWithAbsences = 0;
+        for (WindowScanner scanner : scanners) {
+            flags.addAll(scanner.flags);
+            studentsWithAbsences += scanner.students;
+        }
+        transactionTemplate.executeWithoutResult(status -> scanRepository.replaceFlags(flags, windowDays, threshold));
+
+        RunSummary summary = new RunSummary(startedAt, System.currentTimeMillis() - started, scanners.size(),
+                studentsWithAbsences, flags.size(), windowDays, threshold);
+        lastRun = summary;
+        System.out.println("Absenteeism detection: " + flags.size() + " of " + studentsWithAbsences +
+                " students with absences flagged across " + scanners.size() + " partitions in " +
+                summary.durationMillis() + " ms");
+        return summary;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AbsenteeismFlagView> getFlags() {
+        return flagRepository.findAllViews();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AbsenteeismFlagView> getFlagsForSubjects(Collection<Long> subjectIds) {
+        if (subjectIds.isEmpty()) {
+            return List.of();
+        }
+        return flagRepository.findViewsForSubjects(subjectIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<AbsenteeismFlagView> getFlag(Long studentId) {
+        return flagRepository.findViewByStudentId(studentId);
+    }
+
+    @Override
+    public Optional<RunSummary> getLastRun() {
+        return Optional.ofNullable(lastRun);
+    }
+
+    /**
+     * Sliding-window evaluation over one partition's absent days, which arrive
+     * ordered by student then date. State is reset at each new student.
+     */
+    private static final class WindowScanner implements AbsenteeismScanRepository.AbsentDayHandler {
+
+        private final int windowDays;
+        private final int threshold;
+        private final long runDay;
+
+        // Epoch days of the absences inside the current window, oldest at head
+        private final long[] ring;
+        private int head;
+        private int size;
+
+        private long studentId = -1;
+        private int peak;
+        private long peakStart;
+        private long peakEnd;
+
+        private int students;
+        private final List<AbsenteeismScanRepository.FlagRow> flags = new ArrayList<>();
+
+        WindowScanner(int windowDays, int threshold, LocalDate runDate) {
+            this.windowDays = Math.max(1, windowDays);
+            this.threshold = threshold;
+            this.runDay = runDate.toEpochDay();
+            this.ring = new long[this.windowDays];
+        }
+
+        @Override
+        public void onAbsentDay(long studentId, LocalDate date) {
+            if (studentId != this.studentId) {
+                finishStudent();
+                this.studentId = studentId;
+                head = 0;
+                size = 0;
+                peak = 0;
+                students++;
+            }
+            long day = date.toEpochDay();
+            while (size > 0 && ring[head] <= day - windowDays) {
+                head = (head + 1) % ring.length;
+                size--;
+            }
+            ring[(head + size) % ring.length] = day;
+            size++;
+            if (size >= peak) {
+                peak = size;
+                peakStart = ring[head];
+                peakEnd = day;
+            }
+        }
+
+        void finishStudent() {
+            if (studentId < 0 || peak < threshold) {
+                return;
+            }
+            int current = 0;
+            for (int i = 0; i < size; i++) {
+                if (ring[(head + i) % ring.length] > runDay - windowDays) {
+                    current++;
+                }
+            }
+            flags.add(new AbsenteeismScanRepository.FlagRow(studentId, LocalDate.ofEpochDay(peakStart),
+                    LocalDate.ofEpochDay(peakEnd), peak, current));
+            studentId = -1;
+        }
+    }
+}
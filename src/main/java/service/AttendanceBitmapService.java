@@ -0,0 +1,26 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceTally;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface AttendanceBitmapService {
+
+    /**
+     * Counts and streaks for a student from the in-memory bitmaps
+     * @param subjectId restrict to one subject, or null for all subjects
+     */
+    AttendanceTally getTally(Long studentId, Long subjectId);
+
+    /**
+     * Rebuild the bitmaps of the given students for the subject and academic year containing the date
+     */
+    void refresh(Long subjectId, LocalDate attendanceDate, Collection<Long> studentIds);
+
+    /**
+     * Rebuild every bitmap from the attendance table
+     * @return number of bitmap rows written
+     */
+    int rebuildAll();
+}
@@ -0,0 +1,310 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceTally;
+import com.parami.wsims.entity.Attendance;
+import com.parami.wsims.repository.AttendanceBitmapRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one bitset per (student, subject, academic year, status) in memory and in
+ * attendance_bitmaps. Every attendance write publishes an {@link AttendanceChangedEvent};
+ * only the students named in it are rebuilt from the attendance table, inside the
+ * writer's transaction, and the in-memory copy is swapped once that commits. Events
+ * only reach the instance that made the write, so every instance also polls attendance
+ * by updated_at (and attendance_deletions) and reloads the students written elsewhere.
+ * A nightly rebuild repairs any drift from writes made outside the service layer.
+ */
+@Service
+public class AttendanceBitmapServiceImpl implements AttendanceBitmapService {
+
+    // Keeps IN lists well below SQL Server's 2100 parameter limit
+    private static final int ID_CHUNK = 1000;
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+
+    // Rows younger than this may belong to transactions still in flight, so they wait for the next reload
+    private static final long SETTLE_SECONDS = 30;
+
+    private record BitmapKey(Long subjectId, String academicYear) {
+    }
+
+    private record TallyKey(Long studentId, Long subjectId) {
+    }
+
+    private record SubjectYear(Long subjectId, LocalDate firstDay) {
+    }
+
+    // A tally is only served while the bitmaps it was computed from are still current
+    private record CachedTally(Map<BitmapKey, AttendanceBits> source, AttendanceTally tally) {
+    }
+
+    private final AttendanceBitmapRepository bitmapRepository;
+
+    // studentId -> immutable map of that student's bitmaps; replaced as a whole on change
+    private final Map<Long, Map<BitmapKey, AttendanceBits>> bitmapsByStudent = new ConcurrentHashMap<>();
+
+    // Per-student (and per-student, per-subject) summaries; evicted when the student's bitmaps are swapped
+    private final Map<TallyKey, CachedTally> tallyCache = new ConcurrentHashMap<>();
+
+    // Attendance written up to here is reflected in memory; null until the bitmaps are loaded
+    private volatile LocalDateTime reloadedThrough;
+
+    @Autowired
+    public AttendanceBitmapServiceImpl(AttendanceBitmapRepository bitmapRepository) {
+        this.bitmapRepository = bitmapRepository;
+    }
+
+    @EventListener
+    @Transactional
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        refresh(event.subjectId(), event.attendanceDate(), event.studentIds());
+    }
+
+    @Override
+    public AttendanceTally getTally(Long studentId, Long subjectId) {
+        Map<BitmapKey, AttendanceBits> bitmaps = bitmapsByStudent.get(studentId);
+        if (bitmaps == null || bitmaps.isEmpty()) {
+            return AttendanceTally.EMPTY;
+        }
+        TallyKey key = new TallyKey(studentId, subjectId);
+        CachedTally cached = tallyCache.get(key);
+        if (cached != null && cached.source() == bitmaps) {
+            return cached.tally();
+        }
+        AttendanceTally tally = computeTally(bitmaps, subjectId);
+        tallyCache.put(key, new CachedTally(bitmaps, tally));
+        return tally;
+    }
+
+    private static AttendanceTally computeTally(Map<BitmapKey, AttendanceBits> bitmaps, Long subjectId) {
+        long[] counts = new long[STATUSES.length];
+        // academic year -> {recorded, attended (present or late), absent} day words across subjects
+        SortedMap<String, long[][]> daysByYear = new TreeMap<>();
+        for (Map.Entry<BitmapKey, AttendanceBits> entry : bitmaps.entrySet()) {
+            if (subjectId != null && !subjectId.equals(entry.getKey().subjectId())) {
+                continue;
+            }
+            AttendanceBits bits = entry.getValue();
+            for (Attendance.AttendanceStatus status : STATUSES) {
+                counts[status.ordinal()] += bits.count(status);
+            }
+            long[][] days = daysByYear.computeIfAbsent(entry.getKey().academicYear(),
+                    year -> new long[3][AttendanceBits.WORDS]);
+            long[] recorded = bits.recorded();
+            long[] present = bits.days(Attendance.AttendanceStatus.PRESENT);
+            long[] late = bits.days(Attendance.AttendanceStatus.LATE);
+            long[] absent = bits.days(Attendance.AttendanceStatus.ABSENT);
+            for (int i = 0; i < AttendanceBits.WORDS; i++) {
+                days[0][i] |= recorded[i];
+                days[1][i] |= present[i] | late[i];
+                days[2][i] |= absent[i];
+            }
+        }
+
+        // Walk recorded days in date order; any recorded day that is not an absent day ends a streak
+        long recordedDays = 0;
+        int currentStreak = 0;
+        int longestStreak = 0;
+        for (long[][] days : daysByYear.values()) {
+            for (int i = 0; i < AttendanceBits.WORDS; i++) {
+                long recorded = days[0][i];
+                long absentDays = days[2][i] & ~days[1][i];
+                recordedDays += Long.bitCount(recorded);
+                while (recorded != 0) {
+                    long day = recorded & -recorded;
+                    if ((absentDays & day) != 0) {
+                        longestStreak = Math.max(longestStreak, ++currentStreak);
+                    } else {
+                        currentStreak = 0;
+                    }
+                    recorded ^= day;
+                }
+            }
+        }
+
+        return new AttendanceTally(
+                counts[Attendance.AttendanceStatus.PRESENT.ordinal()],
+                counts[Attendance.AttendanceStatus.ABSENT.ordinal()],
+                counts[Attendance.AttendanceStatus.LATE.ordinal()],
+                counts[Attendance.AttendanceStatus.EXCUSED.ordinal()],
+                recordedDays, currentStreak, longestStreak);
+    }
+
+    @Override
+    @Transactional
+    public void refresh(Long subjectId, LocalDate attendanceDate, Collection<Long> studentIds) {
+        if (subjectId == null || attendanceDate == null || studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        String academicYear = AttendanceBits.academicYearOf(attendanceDate);
+        LocalDate from = attendanceDate.withDayOfYear(1);
+        LocalDate to = from.plusYears(1).minusDays(1);
+        BitmapKey key = new BitmapKey(subjectId, academicYear);
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(studentIds));
+        Map<Long, AttendanceBits> rebuilt = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += ID_CHUNK) {
+            List<Long> chunk = ids.subList(start, Math.min(start + ID_CHUNK, ids.size()));
+            Map<Long, AttendanceBits> built = build(subjectId, from, to, chunk);
+            rebuilt.putAll(built);
+
+            List<AttendanceBitmapRepository.BitmapRow> rows = new ArrayList<>();
+            built.forEach((studentId, bits) ->
+                    rows.add(new AttendanceBitmapRepository.BitmapRow(studentId, subjectId, academicYear, bits)));
+            bitmapRepository.deleteForStudents(subjectId, academicYear, chunk);
+            bitmapRepository.batchInsert(rows);
+        }
+
+        afterCommit(() -> swap(key, ids, rebuilt));
+    }
+
+    /**
+     * Rebuild in memory the students whose attendance another instance wrote since the last
+     * reload. The writer has already persisted their bitmap rows, so nothing is written here.
+     */
+    @Scheduled(fixedDelayString = "${wsims.attendance-bitmaps.reload-ms:30000}",
+               initialDelayString = "${wsims.attendance-bitmaps.reload-ms:30000}")
+    public int reloadChanged() {
+        LocalDateTime from = reloadedThrough;
+        LocalDateTime to = LocalDateTime.now().minusSeconds(SETTLE_SECONDS);
+        if (from == null || !to.isAfter(from)) {
+            return 0;
+        }
+        Map<SubjectYear, Set<Long>> changed = new HashMap<>();
+        bitmapRepository.forEachChangedDay(from, to, day ->
+                changed.computeIfAbsent(new SubjectYear(day.subjectId(), day.date().withDayOfYear(1)), k -> new HashSet<>())
+                        .add(day.studentId()));
+
+        int reloaded = 0;
+        for (Map.Entry<SubjectYear, Set<Long>> entry : changed.entrySet()) {
+            Long subjectId = entry.getKey().subjectId();
+            LocalDate firstDay = entry.getKey().firstDay();
+            BitmapKey key = new BitmapKey(subjectId, AttendanceBits.academicYearOf(firstDay));
+            List<Long> ids = new ArrayList<>(entry.getValue());
+            Map<Long, AttendanceBits> rebuilt = new HashMap<>();
+            for (int start = 0; start < ids.size(); start += ID_CHUNK) {
+                rebuilt.putAll(build(subjectId, firstDay, firstDay.plusYears(1).minusDays(1),
+                        ids.subList(start, Math.min(start + ID_CHUNK, ids.size()))));
+            }
+            swap(key, ids, rebuilt);
+            reloaded += ids.size();
+        }
+        reloadedThrough = to;
+        if (reloaded > 0) {
+            System.out.println("Reloaded attendance bitmaps for " + reloaded + " changed student-subjects");
+        }
+        return reloaded;
+    }
+
+    private Map<Long, AttendanceBits> build(Long subjectId, LocalDate from, LocalDate to, List<Long> studentIds) {
+        Map<Long, AttendanceBits.Builder> builders = new HashMap<>();
+        bitmapRepository.forEachAttendance(subjectId, from, to, studentIds, mark ->
+                builders.computeIfAbsent(mark.studentId(), id -> new AttendanceBits.Builder())
+                        .set(AttendanceBits.dayIndex(mark.date()), mark.status()));
+        Map<Long, AttendanceBits> built = new HashMap<>();
+        builders.forEach((studentId, builder) -> built.put(studentId, builder.build()));
+        return built;
+    }
+
+    // Replace one (subject, year) bitmap for each student; students missing from rebuilt lose it
+    private void swap(BitmapKey key, List<Long> ids, Map<Long, AttendanceBits> rebuilt) {
+        for (Long studentId : ids) {
+            bitmapsByStudent.compute(studentId, (id, current) -> {
+                Map<BitmapKey, AttendanceBits> updated = current == null ? new HashMap<>() : new HashMap<>(current);
+                AttendanceBits bits = rebuilt.get(studentId);
+                if (bits == null) {
+                    updated.remove(key);
+                } else {
+                    updated.put(key, bits);
+                }
+                return updated.isEmpty() ? null : Map.copyOf(updated);
+            });
+        }
+        Set<Long> changed = new HashSet<>(ids);
+        tallyCache.keySet().removeIf(tallyKey -> changed.contains(tallyKey.studentId()));
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(cron = "${wsims.attendance-bitmaps.rebuild-cron:0 45 2 * * *}")
+    public int rebuildAll() {
+        Map<Long, Map<BitmapKey, AttendanceBits.Builder>> builders = new HashMap<>();
+        bitmapRepository.forEachAttendance(mark ->
+                builders.computeIfAbsent(mark.studentId(), id -> new HashMap<>())
+                        .computeIfAbsent(new BitmapKey(mark.subjectId(), AttendanceBits.academicYearOf(mark.date())),
+                                key -> new AttendanceBits.Builder())
+                        .set(AttendanceBits.dayIndex(mark.date()), mark.status()));
+
+        Map<Long, Map<BitmapKey, AttendanceBits>> rebuilt = new HashMap<>();
+        List<AttendanceBitmapRepository.BitmapRow> rows = new ArrayList<>();
+        builders.forEach((studentId, byKey) -> {
+            Map<BitmapKey, AttendanceBits> studentBitmaps = new HashMap<>();
+            byKey.forEach((key, builder) -> {
+                AttendanceBits bits = builder.build();
+                studentBitmaps.put(key, bits);
+                rows.add(new AttendanceBitmapRepository.BitmapRow(studentId, key.subjectId(), key.academicYear(), bits));
+            });
+            rebuilt.put(studentId, Map.copyOf(studentBitmaps));
+        });
+
+        bitmapRepository.deleteAll();
+        bitmapRepository.batchInsert(rows);
+        afterCommit(() -> {
+            bitmapsByStudent.keySet().retainAll(rebuilt.keySet());
+            bitmapsByStudent.putAll(rebuilt);
+            tallyCache.clear();
+        });
+        System.out.println("Rebuilt attendance bitmaps: " + rows.size() + " rows for " + rebuilt.size() + " students");
+        return rows.size();
+    }
+
+    /**
+     * Load the persisted bitmaps, building them first against a database that already has attendance
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialise() {
+        // Writes that settle after this point are picked up by reloadChanged
+        LocalDateTime loadedFrom = LocalDateTime.now().minusSeconds(SETTLE_SECONDS);
+        afterCommit(() -> reloadedThrough = loadedFrom);
+        if (!bitmapRepository.hasBitmaps() && bitmapRepository.hasAttendance()) {
+            rebuildAll();
+            return;
+        }
+        Map<Long, Map<BitmapKey, AttendanceBits>> loaded = new HashMap<>();
+        bitmapRepository.forEachBitmap(row -> loaded
+                .computeIfAbsent(row.studentId(), id -> new HashMap<>())
+                .put(new BitmapKey(row.subjectId(), row.academicYear()), row.bits()));
+        loaded.forEach((studentId, bitmaps) -> bitmapsByStudent.put(studentId, Map.copyOf(bitmaps)));
+        System.out.println("Loaded attendance bitmaps for " + loaded.size() + " students");
+    }
+
+    /**
+     * Readers only see bitmaps whose rows have been committed
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                });
+    }
+}
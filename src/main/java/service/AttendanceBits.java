@@ -0,0 +1,140 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.Attendance;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * Attendance of one student in one subject over one academic year, held as one
+ * bitset per {@link Attendance.AttendanceStatus}. Bit {@code n} stands for day
+ * {@code n} of the year, so counts are popcounts and streaks are word scans.
+ * Instances are immutable; {@link Builder} assembles them.
+ */
+public final class AttendanceBits {
+
+    public static final int DAYS = 366;
+    public static final int WORDS = (DAYS + 63) / 64;
+    public static final int BYTES = WORDS * Long.BYTES;
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+
+    private final long[][] bits;
+
+    private AttendanceBits(long[][] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Academic years are calendar years, matching the values used by exam schedules
+     */
+    public static String academicYearOf(LocalDate date) {
+        return String.valueOf(date.getYear());
+    }
+
+    public static int dayIndex(LocalDate date) {
+        return date.getDayOfYear() - 1;
+    }
+
+    public static LocalDate dateOf(String academicYear, int dayIndex) {
+        return LocalDate.ofYearDay(Integer.parseInt(academicYear), dayIndex + 1);
+    }
+
+    public long count(Attendance.AttendanceStatus status) {
+        long count = 0;
+        for (long word : bits[status.ordinal()]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public long countRecorded() {
+        long count = 0;
+        for (long word : recorded()) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Days with the given status, as a copy of the underlying words
+     */
+    public long[] days(Attendance.AttendanceStatus status) {
+        return bits[status.ordinal()].clone();
+    }
+
+    /**
+     * Days with any status recorded
+     */
+    public long[] recorded() {
+        long[] union = new long[WORDS];
+        for (long[] statusBits : bits) {
+            for (int i = 0; i < WORDS; i++) {
+                union[i] |= statusBits[i];
+            }
+        }
+        return union;
+    }
+
+    public boolean isEmpty() {
+        for (long[] statusBits : bits) {
+            for (long word : statusBits) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public byte[] toBytes(Attendance.AttendanceStatus status) {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        for (long word : bits[status.ordinal()]) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Rebuild from the persisted per-status columns (in {@link Attendance.AttendanceStatus} order); nulls are empty
+     */
+    public static AttendanceBits fromBytes(byte[]... columns) {
+        long[][] bits = new long[STATUSES.length][WORDS];
+        for (int s = 0; s < STATUSES.length && s < columns.length; s++) {
+            if (columns[s] == null) {
+                continue;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(columns[s]);
+            for (int i = 0; i < WORDS && buffer.remaining() >= Long.BYTES; i++) {
+                bits[s][i] = buffer.getLong();
+            }
+        }
+        return new AttendanceBits(bits);
+    }
+
+    public static final class Builder {
+
+        private final long[][] bits = new long[STATUSES.length][WORDS];
+
+        /**
+         * Record a status for a day; a day holds at most one status, so earlier ones are cleared
+         */
+        public Builder set(int dayIndex, Attendance.AttendanceStatus status) {
+            long mask = 1L << (dayIndex & 63);
+            int word = dayIndex >>> 6;
+            for (long[] statusBits : bits) {
+                statusBits[word] &= ~mask;
+            }
+            bits[status.ordinal()][word] |= mask;
+            return this;
+        }
+
+        public AttendanceBits build() {
+            long[][] copy = new long[bits.length][];
+            for (int s = 0; s < bits.length; s++) {
+                copy[s] = bits[s].clone();
+            }
+            return new AttendanceBits(copy);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceCalendarMonth;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface AttendanceCalendarService {
+
+    /**
+     * Day x status matrices for each month from {@code from} to {@code to} inclusive
+     */
+    List<AttendanceCalendarMonth> getCalendar(Long studentId, YearMonth from, YearMonth to);
+}
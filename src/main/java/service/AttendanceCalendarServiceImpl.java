@@ -0,0 +1,138 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceCalendarMonth;
+import com.parami.wsims.entity.Attendance;
+import com.parami.wsims.repository.AttendanceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calendar months of attendance per student, cached as compact day x status matrices.
+ * Missing months in a request are filled from one grouped range query. Past months
+ * stay cached until a write to that month evicts them; the current month is also
+ * reloaded after {@code currentMonthTtlMillis} in case it was written outside the
+ * application. The cache is LRU-bounded at {@code maxEntries} months.
+ */
+@Service
+public class AttendanceCalendarServiceImpl implements AttendanceCalendarService {
+
+    public static final int MAX_MONTHS = 12;
+
+    private final AttendanceRepository attendanceRepository;
+
+    @Value("${wsims.attendance-calendar.current-month-ttl-ms:60000}")
+    private long currentMonthTtlMillis;
+
+    private record MonthKey(Long studentId, YearMonth month) {
+    }
+
+    private record CachedMonth(AttendanceCalendarMonth month, long loadedAt) {
+    }
+
+    private final Map<MonthKey, CachedMonth> cache;
+
+    // Bumped on every eviction so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public AttendanceCalendarServiceImpl(AttendanceRepository attendanceRepository,
+                                         @Value("${wsims.attendance-calendar.max-entries:50000}") int maxEntries) {
+        this.attendanceRepository = attendanceRepository;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MonthKey, CachedMonth> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        YearMonth month = YearMonth.from(event.attendanceDate());
+        synchronized (cache) {
+            generation.incrementAndGet();
+            for (Long studentId : event.studentIds()) {
+                cache.remove(new MonthKey(studentId, month));
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceCalendarMonth> getCalendar(Long studentId, YearMonth from, YearMonth to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("End month is before start month");
+        }
+        if (from.plusMonths(MAX_MONTHS - 1).isBefore(to)) {
+            throw new IllegalArgumentException("At most " + MAX_MONTHS + " months can be requested at once");
+        }
+
+        YearMonth current = YearMonth.now();
+        long now = System.currentTimeMillis();
+        Map<YearMonth, AttendanceCalendarMonth> months = new LinkedHashMap<>();
+        YearMonth firstMissing = null;
+        YearMonth lastMissing = null;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            CachedMonth cached = cache.get(new MonthKey(studentId, month));
+            boolean fresh = cached != null && (month.isBefore(current) || now - cached.loadedAt() < currentMonthTtlMillis);
+            months.put(month, fresh ? cached.month() : null);
+            if (!fresh) {
+                firstMissing = firstMissing == null ? month : firstMissing;
+                lastMissing = month;
+            }
+        }
+
+        if (firstMissing != null) {
+            long loadedGeneration = generation.get();
+            Map<YearMonth, byte[]> loaded = load(studentId, firstMissing, lastMissing);
+            Map<MonthKey, CachedMonth> fill = new HashMap<>();
+            for (Map.Entry<YearMonth, AttendanceCalendarMonth> entry : months.entrySet()) {
+                if (entry.getValue() != null) {
+                    continue;
+                }
+                YearMonth month = entry.getKey();
+                AttendanceCalendarMonth calendarMonth = new AttendanceCalendarMonth(studentId, month.toString(),
+                        month.lengthOfMonth(), loaded.get(month));
+                entry.setValue(calendarMonth);
+                fill.put(new MonthKey(studentId, month), new CachedMonth(calendarMonth, now));
+            }
+            // Checked under the same lock onAttendanceChanged() takes, so an eviction cannot slip in between
+            synchronized (cache) {
+                if (generation.get() == loadedGeneration) {
+                    cache.putAll(fill);
+                }
+            }
+        }
+        return new ArrayList<>(months.values());
+    }
+
+    private Map<YearMonth, byte[]> load(Long studentId, YearMonth from, YearMonth to) {
+        Map<YearMonth, byte[]> matrices = new HashMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            matrices.put(month, new byte[month.lengthOfMonth() * AttendanceCalendarMonth.STATUSES]);
+        }
+        for (Object[] row : attendanceRepository.countByDayAndStatusForStudent(studentId, from.atDay(1), to.atEndOfMonth())) {
+            LocalDate date = (LocalDate) row[0];
+            Attendance.AttendanceStatus status = (Attendance.AttendanceStatus) row[1];
+            long count = ((Number) row[2]).longValue();
+            byte[] matrix = matrices.get(YearMonth.from(date));
+            matrix[(date.getDayOfMonth() - 1) * AttendanceCalendarMonth.STATUSES + status.ordinal()] =
+                    (byte) Math.min(count, Byte.MAX_VALUE);
+        }
+        return matrices;
+    }
+}
@@ -0,0 +1,12 @@
+package com.wsims.service;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Published by {@link AttendanceServiceImpl} whenever attendance rows for a subject
+ * and date are created, updated or deleted. Listeners that keep derived data
+ * (bitmaps, caches) use it to refresh only the affected students.
+ */
+public record AttendanceChangedEvent(Long subjectId, LocalDate attendanceDate, Set<Long> studentIds) {
+}
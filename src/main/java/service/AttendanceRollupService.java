@@ -0,0 +1,35 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceTrendPoint;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AttendanceRollupService {
+
+    enum Granularity { DAY, WEEK, MONTH }
+
+    /**
+     * Fold attendance rows written since the last watermark into the daily rollups
+     * @return number of (date, subject) pairs recomputed
+     */
+    int aggregateChanges();
+
+    /**
+     * Rebuild every daily rollup from the attendance table
+     * @return number of rollup rows written
+     */
+    int rebuildAll();
+
+    /**
+     * Attendance counts per period between two dates (inclusive), optionally
+     * narrowed to one subject and/or grade level
+     */
+    List<AttendanceTrendPoint> getTrend(LocalDate from, LocalDate to, Long subjectId, String gradeLevel,
+                                        Granularity granularity);
+
+    /**
+     * Grade levels present in the rollups
+     */
+    List<String> getGradeLevels();
+}
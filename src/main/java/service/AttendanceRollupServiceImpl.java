@@ -0,0 +1,174 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceTrendPoint;
+import com.parami.wsims.entity.AggregationWatermark;
+import com.parami.wsims.repository.AggregationWatermarkRepository;
+import com.parami.wsims.repository.AttendanceDailyRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains attendance_daily_rollups incrementally. Each run recomputes only the
+ * (date, subject) pairs whose attendance rows were written after the stored
+ * watermark, plus pairs named by {@link AttendanceChangedEvent}s since the last
+ * run (which is how deletes are seen). A nightly rebuild repairs any drift.
+ */
+@Service
+public class AttendanceRollupServiceImpl implements AttendanceRollupService {
+
+    private static final String WATERMARK_NAME = "attendance_daily_rollups";
+
+    // Rows younger than this may belong to transactions still in flight, so they wait for the next run
+    private static final long SETTLE_SECONDS = 30;
+
+    private record SubjectDay(LocalDate date, Long subjectId) {
+    }
+
+    private final AttendanceDailyRollupRepository rollupRepository;
+    private final AggregationWatermarkRepository watermarkRepository;
+
+    private final Set<SubjectDay> pendingDays = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AttendanceRollupServiceImpl(AttendanceDailyRollupRepository rollupRepository,
+                                       AggregationWatermarkRepository watermarkRepository) {
+        this.rollupRepository = rollupRepository;
+        this.watermarkRepository = watermarkRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        pendingDays.add(new SubjectDay(event.attendanceDate(), event.subjectId()));
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${wsims.attendance-rollups.aggregate-ms:60000}",
+               initialDelayString = "${wsims.attendance-rollups.aggregate-ms:60000}")
+    public int aggregateChanges() {
+        Optional<AggregationWatermark> stored = watermarkRepository.findById(WATERMARK_NAME);
+        if (stored.isEmpty()) {
+            rebuildAll();
+            return 0;
+        }
+        LocalDateTime from = stored.get().getWatermark();
+        LocalDateTime to = LocalDateTime.now().minusSeconds(SETTLE_SECONDS);
+
+        Set<SubjectDay> days = new LinkedHashSet<>();
+        List<SubjectDay> drained = new ArrayList<>(pendingDays);
+        pendingDays.removeAll(drained);
+        days.addAll(drained);
+        if (to.isAfter(from)) {
+            for (Object[] row : rollupRepository.findChangedDays(from, to)) {
+                days.add(new SubjectDay(toLocalDate(row[0]), ((Number) row[1]).longValue()));
+            }
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (SubjectDay day : days) {
+                rollupRepository.deleteForDay(day.date(), day.subjectId());
+                rollupRepository.insertForDay(day.date(), day.subjectId(), now);
+            }
+            if (to.isAfter(from)) {
+                saveWatermark(to);
+            }
+        } catch (RuntimeException e) {
+            // Retry the event-fed days on the next run
+            pendingDays.addAll(drained);
+            throw e;
+        }
+        if (!days.isEmpty()) {
+            System.out.println("Attendance rollups: recomputed " + days.size() + " subject-days");
+        }
+        return days.size();
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(cron = "${wsims.attendance-rollups.rebuild-cron:0 15 3 * * *}")
+    public int rebuildAll() {
+        LocalDateTime watermark = LocalDateTime.now().minusSeconds(SETTLE_SECONDS);
+        pendingDays.clear();
+        rollupRepository.deleteAllRows();
+        int rows = rollupRepository.insertAllRows(LocalDateTime.now());
+        saveWatermark(watermark);
+        System.out.println("Rebuilt attendance daily rollups: " + rows + " rows");
+        return rows;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AttendanceTrendPoint> getTrend(LocalDate from, LocalDate to, Long subjectId, String gradeLevel,
+                                               Granularity granularity) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from must be on or before to");
+        }
+        String level = gradeLevel == null || gradeLevel.isBlank() ? null : gradeLevel.trim();
+
+        // Daily sums come from the rollups; weeks and months are folded here
+        Map<LocalDate, long[]> periods = new TreeMap<>();
+        for (Object[] row : rollupRepository.findDailyTotals(from, to, subjectId, level)) {
+            LocalDate periodStart = periodStart(toLocalDate(row[0]), granularity);
+            long[] counts = periods.computeIfAbsent(periodStart, key -> new long[5]);
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += row[i + 1] == null ? 0 : ((Number) row[i + 1]).longValue();
+            }
+        }
+
+        List<AttendanceTrendPoint> points = new ArrayList<>(periods.size());
+        periods.forEach((periodStart, counts) -> {
+            double rate = counts[4] > 0 ? (counts[0] + counts[2]) * 100.0 / counts[4] : 0.0;
+            points.add(new AttendanceTrendPoint(periodStart, counts[0], counts[1], counts[2], counts[3], counts[4],
+                    Math.round(rate * 100.0) / 100.0));
+        });
+        return points;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getGradeLevels() {
+        return rollupRepository.findGradeLevels();
+    }
+
+    private void saveWatermark(LocalDateTime watermark) {
+        AggregationWatermark row = watermarkRepository.findById(WATERMARK_NAME)
+                .orElseGet(() -> {
+                    AggregationWatermark created = new AggregationWatermark();
+                    created.setName(WATERMARK_NAME);
+                    return created;
+                });
+        row.setWatermark(watermark);
+        row.setUpdatedAt(LocalDateTime.now());
+        watermarkRepository.save(row);
+    }
+
+    private static LocalDate periodStart(LocalDate date, Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(DayOfWeek.MONDAY);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate date) {
+            return date;
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        return LocalDate.parse(value.toString());
+    }
+}
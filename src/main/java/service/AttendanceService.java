@@ -1,5 +1,7 @@
 package com.wsims.service;
 
+import com.parami.wsims.dto.KeysetPage;
+import com.parami.wsims.dto.RollCallReport;
 import com.parami.wsims.entity.Attendance;
 import com.parami.wsims.entity.User;
 import com.parami.wsims.entity.Subject;
@@ -12,9 +14,15 @@ import java.util.Map;
 
 public interface AttendanceService {
     
-    // Mark attendance for multiple students
+    // Mark attendance for multiple students, replacing any existing mark for the same student, subject and date
     void markAttendance(List<Attendance> attendanceRecords);
     
+    // Mark a subject's attendance for a date in one statement per batch, updating students already marked; returns rows written
+    int upsertAttendance(Long subjectId, LocalDate date, Long teacherId, List<Map<String, Object>> entries);
+    
+    // Record a whole roll-call for a subject and date: insert new rows, update changed ones, skip the rest
+    RollCallReport submitRollCall(Long subjectId, LocalDate date, Long teacherId, List<Map<String, Object>> entries);
+    
     // Mark attendance for a single student
     Attendance markSingleAttendance(Long studentId, Long subjectId, LocalDate date, 
                                   Attendance.AttendanceStatus status, String remarks, Long teacherId);
@@ -22,6 +30,9 @@ public interface AttendanceService {
     // Get attendance records for a student with pagination
     Page<Attendance> getAttendanceByStudentId(Long studentId, int page, int size, String sortBy, String sortDir);
     
+    // Get a keyset page of a student's attendance (newest first) after the given cursor token
+    KeysetPage<Attendance> getAttendanceByStudentIdAfter(Long studentId, String cursor, int size);
+    
     // Get attendance records for a student within date range
     Page<Attendance> getAttendanceByStudentIdAndDateRange(Long studentId, LocalDate startDate, 
                                                          LocalDate endDate, int page, int size);
@@ -1,21 +1,34 @@
 package com.wsims.service;
 
+import com.parami.wsims.dto.AttendanceTally;
+import com.parami.wsims.dto.KeysetCursor;
+import com.parami.wsims.dto.KeysetPage;
+import com.parami.wsims.dto.RollCallReport;
 import com.parami.wsims.entity.Attendance;
 import com.parami.wsims.entity.User;
 import com.parami.wsims.entity.Subject;
+import com.parami.wsims.repository.AttendanceBatchRepository;
 import com.parami.wsims.repository.AttendanceRepository;
+import com.parami.wsims.repository.AttendanceSyncRepository;
 import com.parami.wsims.repository.UserRepository;
 import com.parami.wsims.repository.SubjectRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Transactional
@@ -24,40 +37,204 @@ public class AttendanceServiceImpl implements AttendanceService {
     private final AttendanceRepository attendanceRepository;
     private final UserRepository userRepository;
     private final SubjectRepository subjectRepository;
+    private final AttendanceBatchRepository attendanceBatchRepository;
+    private final AttendanceSyncRepository attendanceSyncRepository;
+    private final AttendanceBitmapService attendanceBitmapService;
+    private final TeachingAssignmentService teachingAssignmentService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // SQL Server caps a statement at 2100 parameters, so id lookups go in chunks
+    private static final int ID_LOOKUP_CHUNK = 1000;
+    
+    // Subject summaries for dashboards; per-student summaries are cached with the attendance bitmaps
+    private final Map<Long, Map<String, Object>> subjectStatisticsCache = new ConcurrentHashMap<>();
+    
+    // Bumped on every eviction so statistics counted before a commit are not cached
+    private final AtomicLong statisticsGeneration = new AtomicLong();
     
     @Autowired
     public AttendanceServiceImpl(AttendanceRepository attendanceRepository,
                                UserRepository userRepository,
-                               SubjectRepository subjectRepository) {
+                               SubjectRepository subjectRepository,
+                               AttendanceBatchRepository attendanceBatchRepository,
+                               AttendanceSyncRepository attendanceSyncRepository,
+                               AttendanceBitmapService attendanceBitmapService,
+                               TeachingAssignmentService teachingAssignmentService,
+                               ApplicationEventPublisher eventPublisher) {
         this.attendanceRepository = attendanceRepository;
         this.userRepository = userRepository;
         this.subjectRepository = subjectRepository;
+        this.attendanceBatchRepository = attendanceBatchRepository;
+        this.attendanceSyncRepository = attendanceSyncRepository;
+        this.attendanceBitmapService = attendanceBitmapService;
+        this.teachingAssignmentService = teachingAssignmentService;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Evict after commit so a concurrent reader cannot re-cache the pre-commit counts
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        synchronized (subjectStatisticsCache) {
+            statisticsGeneration.incrementAndGet();
+            subjectStatisticsCache.remove(event.subjectId());
+        }
     }
     
     @Override
     public void markAttendance(List<Attendance> attendanceRecords) {
-        // Validate and save all attendance records
+        List<AttendanceBatchRepository.UpsertRow> rows = new ArrayList<>(attendanceRecords.size());
         for (Attendance attendance : attendanceRecords) {
-            // Check if attendance already exists
-            if (attendanceExists(attendance.getStudent().getId(), 
-                               attendance.getSubject().getId(), 
-                               attendance.getAttendanceDate())) {
-                throw new IllegalArgumentException("Attendance already exists for student " + 
-                    attendance.getStudent().getId() + " in subject " + 
-                    attendance.getSubject().getId() + " on " + attendance.getAttendanceDate());
+            rows.add(new AttendanceBatchRepository.UpsertRow(attendance.getStudentId(), attendance.getSubjectId(),
+                    attendance.getAttendanceDate(), attendance.getStatus().name(), attendance.getRemarks(),
+                    attendance.getMarkedById()));
+        }
+        upsert(rows);
+    }
+    
+    @Override
+    public int upsertAttendance(Long subjectId, LocalDate date, Long teacherId, List<Map<String, Object>> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return 0;
+        }
+        if (!subjectRepository.existsById(subjectId)) {
+            throw new IllegalArgumentException("Subject not found with id: " + subjectId);
+        }
+        requireAssignedSubject(teacherId, subjectId);
+        List<AttendanceBatchRepository.UpsertRow> rows = new ArrayList<>(entries.size());
+        for (Map<String, Object> entry : entries) {
+            Object studentIdObj = entry.get("studentId");
+            if (studentIdObj == null) {
+                throw new IllegalArgumentException("Missing studentId");
+            }
+            Attendance.AttendanceStatus status;
+            try {
+                status = Attendance.AttendanceStatus.valueOf(String.valueOf(entry.get("status")));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + entry.get("status"));
             }
+            String remarks = entry.get("remarks") != null ? entry.get("remarks").toString() : "";
+            rows.add(new AttendanceBatchRepository.UpsertRow(Long.valueOf(studentIdObj.toString()), subjectId, date,
+                    status.name(), remarks, teacherId));
+        }
+        
+        List<Long> studentIds = rows.stream().map(AttendanceBatchRepository.UpsertRow::studentId).distinct().toList();
+        Set<Long> knownStudents = new HashSet<>();
+        for (int from = 0; from < studentIds.size(); from += ID_LOOKUP_CHUNK) {
+            knownStudents.addAll(userRepository.findExistingStudentIds(
+                    studentIds.subList(from, Math.min(from + ID_LOOKUP_CHUNK, studentIds.size()))));
         }
-        attendanceRepository.saveAll(attendanceRecords);
+        List<Long> unknown = studentIds.stream().filter(id -> !knownStudents.contains(id)).toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Students not found: " + unknown);
+        }
+        return upsert(rows);
+    }
+    
+    /**
+     * Teachers may only write attendance for subjects on their roster
+     */
+    private void requireAssignedSubject(Long teacherId, Long subjectId) {
+        if (teacherId == null || !teachingAssignmentService.getRoster(teacherId).teachesSubject(subjectId)) {
+            throw new IllegalArgumentException("Not assigned to this subject");
+        }
+    }
+    
+    /**
+     * Merge rows on the (student, subject, date) key and tell listeners which students changed
+     */
+    private int upsert(List<AttendanceBatchRepository.UpsertRow> rows) {
+        List<AttendanceBatchRepository.UpsertRow> written = attendanceBatchRepository.batchUpsert(rows);
+        Map<SubjectDay, Set<Long>> studentsBySubjectDay = new LinkedHashMap<>();
+        for (AttendanceBatchRepository.UpsertRow row : written) {
+            studentsBySubjectDay.computeIfAbsent(new SubjectDay(row.subjectId(), row.date()), key -> new HashSet<>())
+                    .add(row.studentId());
+        }
+        studentsBySubjectDay.forEach((key, studentIds) ->
+                publishAttendanceChanged(key.subjectId(), key.date(), studentIds));
+        return written.size();
     }
     
     @Override
-    public Attendance markSingleAttendance(Long studentId, Long subjectId, LocalDate date, 
-                                         Attendance.AttendanceStatus status, String remarks, Long teacherId) {
-        // Check if attendance already exists
-        if (attendanceExists(studentId, subjectId, date)) {
-            throw new IllegalArgumentException("Attendance already exists for this student, subject, and date");
+    public RollCallReport submitRollCall(Long subjectId, LocalDate date, Long teacherId, List<Map<String, Object>> entries) {
+        RollCallReport report = new RollCallReport();
+        if (entries == null || entries.isEmpty()) {
+            return report;
+        }
+        if (!subjectRepository.existsById(subjectId)) {
+            throw new IllegalArgumentException("Subject not found with id: " + subjectId);
+        }
+        requireAssignedSubject(teacherId, subjectId);
+        
+        // Parse entries; the last entry for a student wins
+        Map<Long, RollCallEntry> entriesByStudent = new LinkedHashMap<>();
+        for (Map<String, Object> entry : entries) {
+            Object studentIdObj = entry.get("studentId");
+            if (studentIdObj == null) {
+                continue;
+            }
+            Long studentId = Long.valueOf(studentIdObj.toString());
+            Attendance.AttendanceStatus status;
+            try {
+                status = Attendance.AttendanceStatus.valueOf(String.valueOf(entry.get("status")));
+            } catch (IllegalArgumentException e) {
+                entriesByStudent.remove(studentId);
+                report.addRow(studentId, RollCallReport.RowStatus.SKIPPED, "Invalid status: " + entry.get("status"));
+                continue;
+            }
+            String remarks = entry.get("remarks") != null ? entry.get("remarks").toString() : "";
+            if (entriesByStudent.put(studentId, new RollCallEntry(studentId, status, remarks)) != null) {
+                report.addRow(studentId, RollCallReport.RowStatus.SKIPPED, "Duplicate entry, superseded by a later one");
+            }
+        }
+        
+        Set<Long> knownStudents = new HashSet<>();
+        List<Long> studentIds = new ArrayList<>(entriesByStudent.keySet());
+        for (int from = 0; from < studentIds.size(); from += ID_LOOKUP_CHUNK) {
+            knownStudents.addAll(userRepository.findExistingStudentIds(
+                    studentIds.subList(from, Math.min(from + ID_LOOKUP_CHUNK, studentIds.size()))));
+        }
+        
+        List<AttendanceBatchRepository.UpsertRow> rows = new ArrayList<>();
+        for (RollCallEntry entry : entriesByStudent.values()) {
+            if (!knownStudents.contains(entry.studentId())) {
+                report.addRow(entry.studentId(), RollCallReport.RowStatus.SKIPPED, "Student not found");
+                continue;
+            }
+            rows.add(new AttendanceBatchRepository.UpsertRow(entry.studentId(), subjectId, date,
+                    entry.status().name(), entry.remarks(), teacherId));
+        }
+        
+        // MERGE on the (student, subject, date) key: no pre-read, and an overlapping roll-call waits instead of failing
+        for (AttendanceBatchRepository.UpsertOutcome outcome : attendanceBatchRepository.batchUpsertReporting(rows)) {
+            Long studentId = outcome.row().studentId();
+            switch (outcome.action()) {
+                case INSERTED -> report.addRow(studentId, RollCallReport.RowStatus.CREATED, null);
+                case UPDATED -> report.addRow(studentId, RollCallReport.RowStatus.UPDATED, null);
+                case UNCHANGED -> report.addRow(studentId, RollCallReport.RowStatus.SKIPPED, "Unchanged");
+            }
         }
         
+        Set<Long> changedStudents = new HashSet<>(report.getCreated());
+        changedStudents.addAll(report.getUpdated());
+        publishAttendanceChanged(subjectId, date, changedStudents);
+        return report;
+    }
+    
+    /**
+     * A roll-call entry parsed from the request payload
+     */
+    private record RollCallEntry(Long studentId, Attendance.AttendanceStatus status, String remarks) {
+    }
+    
+    private record SubjectDay(Long subjectId, LocalDate date) {
+    }
+    
+    @Override
+    public Attendance markSingleAttendance(Long studentId, Long subjectId, LocalDate date, 
+                                         Attendance.AttendanceStatus status, String remarks, Long teacherId) {
         // Get student, subject, and teacher
         User student = userRepository.findById(studentId)
             .orElseThrow(() -> new IllegalArgumentException("Student not found with id: " + studentId));
@@ -74,7 +251,15 @@ public class AttendanceServiceImpl implements AttendanceService {
         attendance.setRemarks(remarks);
         attendance.setMarkedBy(teacher);
         
-        return attendanceRepository.save(attendance);
+        // The unique (student, subject, date) key rejects a duplicate even when two requests race
+        Attendance saved;
+        try {
+            saved = attendanceRepository.saveAndFlush(attendance);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("Attendance already exists for this student, subject, and date");
+        }
+        publishAttendanceChanged(subjectId, date, Set.of(studentId));
+        return saved;
     }
     
     @Override
@@ -84,6 +269,16 @@ public class AttendanceServiceImpl implements AttendanceService {
         return attendanceRepository.findByStudentId(studentId, pageable);
     }
     
+    @Override
+    public KeysetPage<Attendance> getAttendanceByStudentIdAfter(Long studentId, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Attendance> rows = position == null
+                ? attendanceRepository.findByStudentIdFirstPage(studentId, limit)
+                : attendanceRepository.findByStudentIdBefore(studentId, position.date(), position.id(), limit);
+        return KeysetPage.of(rows, size, a -> KeysetCursor.of(a.getAttendanceDate(), a.getId()));
+    }
+    
     @Override
     public Page<Attendance> getAttendanceByStudentIdAndDateRange(Long studentId, LocalDate startDate, 
                                                                LocalDate endDate, int page, int size) {
@@ -107,46 +302,53 @@ public class AttendanceServiceImpl implements AttendanceService {
     public Map<String, Object> getAttendanceStatistics(Long studentId) {
         Map<String, Object> statistics = new HashMap<>();
         
-        // Get total attendance days
-        Long totalDays = attendanceRepository.countTotalAttendanceDaysByStudentId(studentId);
-        
-        // Get count by status
-        Long presentCount = attendanceRepository.countByStudentIdAndStatus(studentId, Attendance.AttendanceStatus.PRESENT);
-        Long absentCount = attendanceRepository.countByStudentIdAndStatus(studentId, Attendance.AttendanceStatus.ABSENT);
-        Long lateCount = attendanceRepository.countByStudentIdAndStatus(studentId, Attendance.AttendanceStatus.LATE);
-        Long excusedCount = attendanceRepository.countByStudentIdAndStatus(studentId, Attendance.AttendanceStatus.EXCUSED);
+        // Counts and streaks are popcounts over the student's attendance bitmaps
+        AttendanceTally tally = attendanceBitmapService.getTally(studentId, null);
+        long totalDays = tally.recordedDays();
         
         // Calculate attendance percentage
         double attendancePercentage = 0.0;
         if (totalDays > 0) {
-            attendancePercentage = (presentCount.doubleValue() / totalDays.doubleValue()) * 100;
+            attendancePercentage = ((double) tally.presentCount() / totalDays) * 100;
         }
         
         statistics.put("totalDays", totalDays);
-        statistics.put("presentCount", presentCount);
-        statistics.put("absentCount", absentCount);
-        statistics.put("lateCount", lateCount);
-        statistics.put("excusedCount", excusedCount);
+        statistics.put("presentCount", tally.presentCount());
+        statistics.put("absentCount", tally.absentCount());
+        statistics.put("lateCount", tally.lateCount());
+        statistics.put("excusedCount", tally.excusedCount());
         statistics.put("attendancePercentage", Math.round(attendancePercentage * 100.0) / 100.0);
+        statistics.put("currentAbsenceStreak", tally.currentAbsenceStreak());
+        statistics.put("longestAbsenceStreak", tally.longestAbsenceStreak());
         
         return statistics;
     }
     
     @Override
     public Map<String, Object> getSubjectAttendanceStatistics(Long subjectId) {
+        Map<String, Object> cached = subjectStatisticsCache.get(subjectId);
+        if (cached != null) {
+            return new HashMap<>(cached);
+        }
+        
         Map<String, Object> statistics = new HashMap<>();
+        long loadedGeneration = statisticsGeneration.get();
         
-        // Get count by status for the subject
-        Long presentCount = attendanceRepository.countBySubjectIdAndStatus(subjectId, Attendance.AttendanceStatus.PRESENT);
-        Long absentCount = attendanceRepository.countBySubjectIdAndStatus(subjectId, Attendance.AttendanceStatus.ABSENT);
-        Long lateCount = attendanceRepository.countBySubjectIdAndStatus(subjectId, Attendance.AttendanceStatus.LATE);
-        Long excusedCount = attendanceRepository.countBySubjectIdAndStatus(subjectId, Attendance.AttendanceStatus.EXCUSED);
+        // One GROUP BY for every status of the subject
+        Map<Attendance.AttendanceStatus, Long> counts = new EnumMap<>(Attendance.AttendanceStatus.class);
+        for (Object[] row : attendanceRepository.countByStatusForSubject(subjectId)) {
+            counts.put((Attendance.AttendanceStatus) row[0], ((Number) row[1]).longValue());
+        }
+        long presentCount = counts.getOrDefault(Attendance.AttendanceStatus.PRESENT, 0L);
+        long absentCount = counts.getOrDefault(Attendance.AttendanceStatus.ABSENT, 0L);
+        long lateCount = counts.getOrDefault(Attendance.AttendanceStatus.LATE, 0L);
+        long excusedCount = counts.getOrDefault(Attendance.AttendanceStatus.EXCUSED, 0L);
         
-        Long totalRecords = presentCount + absentCount + lateCount + excusedCount;
+        long totalRecords = presentCount + absentCount + lateCount + excusedCount;
         
         // Calculate percentages
-        double presentPercentage = totalRecords > 0 ? (presentCount.doubleValue() / totalRecords.doubleValue()) * 100 : 0.0;
-        double absentPercentage = totalRecords > 0 ? (absentCount.doubleValue() / totalRecords.doubleValue()) * 100 : 0.0;
+        double presentPercentage = totalRecords > 0 ? ((double) presentCount / totalRecords) * 100 : 0.0;
+        double absentPercentage = totalRecords > 0 ? ((double) absentCount / totalRecords) * 100 : 0.0;
         
         statistics.put("totalRecords", totalRecords);
         statistics.put("presentCount", presentCount);
@@ -156,6 +358,12 @@ public class AttendanceServiceImpl implements AttendanceService {
         statistics.put("presentPercentage", Math.round(presentPercentage * 100.0) / 100.0);
         statistics.put("absentPercentage", Math.round(absentPercentage * 100.0) / 100.0);
         
+        // Checked under the eviction lock, so an eviction cannot land between the check and the put
+        synchronized (subjectStatisticsCache) {
+            if (statisticsGeneration.get() == loadedGeneration) {
+                subjectStatisticsCache.put(subjectId, Map.copyOf(statistics));
+            }
+        }
         return statistics;
     }
     
@@ -171,7 +379,7 @@ public class AttendanceServiceImpl implements AttendanceService {
 
     @Override
     public List<Subject> getSubjectsForTeacher(Long teacherId) {
-        return attendanceRepository.findSubjectsByTeacherId(teacherId);
+        return teachingAssignmentService.getRoster(teacherId).subjects();
     }
     
     @Override
@@ -182,15 +390,25 @@ public class AttendanceServiceImpl implements AttendanceService {
         attendance.setStatus(status);
         attendance.setRemarks(remarks);
         
-        return attendanceRepository.save(attendance);
+        // Flushed so listeners rebuilding from the table see the new status
+        Attendance saved = attendanceRepository.saveAndFlush(attendance);
+        publishAttendanceChanged(saved.getSubjectId(), saved.getAttendanceDate(), Set.of(saved.getStudentId()));
+        return saved;
     }
     
     @Override
     public void deleteAttendance(Long attendanceId) {
-        if (!attendanceRepository.existsById(attendanceId)) {
-            throw new IllegalArgumentException("Attendance not found with id: " + attendanceId);
-        }
-        attendanceRepository.deleteById(attendanceId);
+        Attendance attendance = attendanceRepository.findById(attendanceId)
+            .orElseThrow(() -> new IllegalArgumentException("Attendance not found with id: " + attendanceId));
+        Long studentId = attendance.getStudentId();
+        Long subjectId = attendance.getSubjectId();
+        LocalDate date = attendance.getAttendanceDate();
+        
+        attendanceRepository.delete(attendance);
+        attendanceRepository.flush();
+        // Tombstone so syncing devices drop the row too
+        attendanceSyncRepository.insertDeletion(attendanceId, subjectId, studentId, date);
+        publishAttendanceChanged(subjectId, date, Set.of(studentId));
     }
     
     @Override
@@ -213,14 +431,13 @@ public class AttendanceServiceImpl implements AttendanceService {
     
     @Override
     public Map<Attendance.AttendanceStatus, Long> getAttendanceSummary(Long studentId) {
-        List<Object[]> summaryData = attendanceRepository.getAttendanceSummaryByStudentId(studentId);
+        AttendanceTally tally = attendanceBitmapService.getTally(studentId, null);
         
         Map<Attendance.AttendanceStatus, Long> summary = new HashMap<>();
-        for (Object[] row : summaryData) {
-            Attendance.AttendanceStatus status = (Attendance.AttendanceStatus) row[0];
-            Long count = (Long) row[1];
-            summary.put(status, count);
-        }
+        putIfRecorded(summary, Attendance.AttendanceStatus.PRESENT, tally.presentCount());
+        putIfRecorded(summary, Attendance.AttendanceStatus.ABSENT, tally.absentCount());
+        putIfRecorded(summary, Attendance.AttendanceStatus.LATE, tally.lateCount());
+        putIfRecorded(summary, Attendance.AttendanceStatus.EXCUSED, tally.excusedCount());
         
         return summary;
     }
@@ -233,17 +450,13 @@ public class AttendanceServiceImpl implements AttendanceService {
     
     @Override
     public double getAttendancePercentageBySubject(Long studentId, Long subjectId) {
-        List<Attendance> attendanceList = attendanceRepository.findByStudentIdAndSubjectId(studentId, subjectId);
+        AttendanceTally tally = attendanceBitmapService.getTally(studentId, subjectId);
         
-        if (attendanceList.isEmpty()) {
+        if (tally.totalRecords() == 0) {
             return 0.0;
         }
         
-        long presentCount = attendanceList.stream()
-            .mapToLong(a -> a.getStatus() == Attendance.AttendanceStatus.PRESENT ? 1 : 0)
-            .sum();
-        
-        return (presentCount * 100.0) / attendanceList.size();
+        return (tally.presentCount() * 100.0) / tally.totalRecords();
     }
     
     @Override
@@ -261,9 +474,10 @@ public class AttendanceServiceImpl implements AttendanceService {
     
     @Override
     public Map<String, Long> getStudentAttendanceStatistics(Long studentId) {
-        long total = attendanceRepository.countByStudentId(studentId);
-        long present = attendanceRepository.countPresentByStudentId(studentId);
-        long absent = attendanceRepository.countAbsentByStudentId(studentId);
+        AttendanceTally tally = attendanceBitmapService.getTally(studentId, null);
+        long total = tally.totalRecords();
+        long present = tally.presentCount();
+        long absent = tally.absentCount();
         
         Map<String, Long> stats = new HashMap<>();
         stats.put("total", total);
@@ -277,4 +491,17 @@ public class AttendanceServiceImpl implements AttendanceService {
         }
         return stats;
     }
+    
+    private static void putIfRecorded(Map<Attendance.AttendanceStatus, Long> summary,
+                                      Attendance.AttendanceStatus status, long count) {
+        if (count > 0) {
+            summary.put(status, count);
+        }
+    }
+    
+    private void publishAttendanceChanged(Long subjectId, LocalDate date, Set<Long> studentIds) {
+        if (!studentIds.isEmpty()) {
+            eventPublisher.publishEvent(new AttendanceChangedEvent(subjectId, date, Set.copyOf(studentIds)));
+        }
+    }
 }
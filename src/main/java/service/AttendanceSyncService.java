@@ -0,0 +1,24 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceSyncResult;
+
+import java.util.List;
+import java.util.Map;
+
+public interface AttendanceSyncService {
+
+    /**
+     * Apply a batch of attendance deltas from a teacher's device in one transaction and
+     * return the rows changed since the device's last sync token.
+     *
+     * @param syncToken token from the previous sync, or null/blank for a first sync
+     * @param changes deltas with changeId, subjectId, studentId, date, status, remarks and
+     *                baseUpdatedAt (the server updatedAt the device last saw, absent for a new row)
+     */
+    AttendanceSyncResult sync(Long teacherId, String syncToken, List<Map<String, Object>> changes);
+
+    /**
+     * Drop applied change ids and deletion tombstones older than the retention period
+     */
+    int purgeExpired();
+}
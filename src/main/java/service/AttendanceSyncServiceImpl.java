@@ -0,0 +1,372 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.AttendanceSyncResult;
+import com.parami.wsims.dto.TeacherRoster;
+import com.parami.wsims.entity.Attendance;
+import com.parami.wsims.repository.AttendanceBatchRepository;
+import com.parami.wsims.repository.AttendanceSyncRepository;
+import com.parami.wsims.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Offline-first attendance sync for teacher devices. A device pushes the edits it
+ * made while offline, each with a client-generated change id and the server
+ * {@code updatedAt} it based the edit on, and pulls back everything that changed
+ * in its subjects since its last token.
+ *
+ * Pushed edits are applied with optimistic checks in the database (insert only if
+ * absent, update only if {@code updated_at} is unchanged), so an edit made against
+ * a stale copy comes back as a conflict carrying the server row instead of
+ * overwriting someone else's change. Applied change ids are logged so a retried
+ * sync is acknowledged rather than applied twice.
+ *
+ * Tokens hold an (updatedAt, id) position for paging plus the time they were
+ * issued. A caught-up token starts {@code overlapSeconds} before the sync began so
+ * rows from transactions that committed late are not missed; the client upserts by
+ * id, so seeing a row twice is harmless.
+ */
+@Service
+public class AttendanceSyncServiceImpl implements AttendanceSyncService {
+
+    private static final int MAX_CHANGE_ID_LENGTH = 64;
+
+    private static final int ID_LOOKUP_CHUNK = 1000;
+
+    private static final LocalDateTime BEGINNING = LocalDate.of(1970, 1, 1).atStartOfDay();
+
+    private final AttendanceSyncRepository syncRepository;
+    private final AttendanceBatchRepository attendanceBatchRepository;
+    private final UserRepository userRepository;
+    private final TeachingAssignmentService teachingAssignmentService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Only attendance dated within this many days is synced to devices
+    @Value("${wsims.attendance-sync.window-days:30}")
+    private int windowDays;
+
+    @Value("${wsims.attendance-sync.page-size:2000}")
+    private int pageSize;
+
+    @Value("${wsims.attendance-sync.overlap-seconds:30}")
+    private int overlapSeconds;
+
+    // Tokens older than this get a full snapshot, since tombstones are purged after it
+    @Value("${wsims.attendance-sync.retention-days:30}")
+    private int retentionDays;
+
+    @Autowired
+    public AttendanceSyncServiceImpl(AttendanceSyncRepository syncRepository,
+                                     AttendanceBatchRepository attendanceBatchRepository,
+                                     UserRepository userRepository,
+                                     TeachingAssignmentService teachingAssignmentService,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.syncRepository = syncRepository;
+        this.attendanceBatchRepository = attendanceBatchRepository;
+        this.userRepository = userRepository;
+        this.teachingAssignmentService = teachingAssignmentService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * One parsed delta
+     */
+    private record Delta(String changeId, Long subjectId, Long studentId, LocalDate date,
+                         Attendance.AttendanceStatus status, String remarks, LocalDateTime baseUpdatedAt) {
+    }
+
+    private record RowKey(Long subjectId, Long studentId, LocalDate date) {
+    }
+
+    private record SubjectDay(Long subjectId, LocalDate date) {
+    }
+
+    /**
+     * Decoded sync token
+     */
+    private record SyncPosition(LocalDateTime issuedAt, LocalDateTime since, long afterId, LocalDateTime deletedSince) {
+
+        private static final String SEPARATOR = "|";
+
+        static SyncPosition decode(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                return new SyncPosition(LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]),
+                        Long.parseLong(parts[2]), LocalDateTime.parse(parts[3]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid sync token");
+            }
+        }
+
+        String encode() {
+            String raw = issuedAt + SEPARATOR + since + SEPARATOR + afterId + SEPARATOR + deletedSince;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    @Transactional
+    public AttendanceSyncResult sync(Long teacherId, String syncToken, List<Map<String, Object>> changes) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        SyncPosition position = SyncPosition.decode(syncToken);
+        TeacherRoster roster = teachingAssignmentService.getRoster(teacherId);
+
+        AttendanceSyncResult result = new AttendanceSyncResult();
+        if (changes != null && !changes.isEmpty()) {
+            applyChanges(teacherId, roster, changes, result);
+        }
+        pullChanges(roster, position, startedAt, result);
+        return result;
+    }
+
+    private void applyChanges(Long teacherId, TeacherRoster roster, List<Map<String, Object>> changes,
+                              AttendanceSyncResult result) {
+        // Parse and validate; the last delta for a row wins and the earlier ones are folded into it
+        Set<String> seenChangeIds = new HashSet<>();
+        Map<RowKey, Delta> latest = new LinkedHashMap<>();
+        Map<String, List<String>> supersededBy = new HashMap<>();
+        for (Map<String, Object> change : changes) {
+            Delta delta;
+            try {
+                delta = parse(change);
+            } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+                Object changeId = change.get("changeId");
+                result.addResult(changeId != null ? changeId.toString() : null,
+                        AttendanceSyncResult.Outcome.REJECTED, e.getMessage(), null);
+                continue;
+            }
+            if (!seenChangeIds.add(delta.changeId())) {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.REJECTED, "Duplicate changeId in batch", null);
+                continue;
+            }
+            if (!roster.teachesSubject(delta.subjectId())) {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.REJECTED, "Not assigned to this subject", null);
+                continue;
+            }
+            Delta previous = latest.put(new RowKey(delta.subjectId(), delta.studentId(), delta.date()), delta);
+            if (previous != null) {
+                List<String> folded = supersededBy.computeIfAbsent(delta.changeId(), id -> new ArrayList<>());
+                folded.add(previous.changeId());
+                folded.addAll(supersededBy.getOrDefault(previous.changeId(), List.of()));
+                supersededBy.remove(previous.changeId());
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+
+        // A retried sync re-sends changes that were applied before the response was lost
+        Set<String> alreadyApplied = syncRepository.findAppliedChangeIds(teacherId, seenChangeIds);
+        List<Long> studentIds = latest.values().stream().map(Delta::studentId).distinct().toList();
+        Set<Long> knownStudents = new HashSet<>();
+        for (int from = 0; from < studentIds.size(); from += ID_LOOKUP_CHUNK) {
+            knownStudents.addAll(userRepository.findExistingStudentIds(
+                    studentIds.subList(from, Math.min(from + ID_LOOKUP_CHUNK, studentIds.size()))));
+        }
+
+        Map<SubjectDay, List<Delta>> bySubjectDay = new LinkedHashMap<>();
+        for (Delta delta : latest.values()) {
+            if (alreadyApplied.contains(delta.changeId())) {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.DUPLICATE, "Already applied", null);
+                continue;
+            }
+            if (!knownStudents.contains(delta.studentId())) {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.REJECTED, "Student not found", null);
+                continue;
+            }
+            bySubjectDay.computeIfAbsent(new SubjectDay(delta.subjectId(), delta.date()), key -> new ArrayList<>()).add(delta);
+        }
+
+        List<String> appliedChangeIds = new ArrayList<>();
+        bySubjectDay.forEach((key, subjectDayDeltas) ->
+                applySubjectDay(teacherId, key, subjectDayDeltas, result, appliedChangeIds));
+
+        // Folded deltas are logged only when the delta that replaced them was applied
+        Set<String> applied = new HashSet<>(appliedChangeIds);
+        List<String> logged = new ArrayList<>(appliedChangeIds);
+        supersededBy.forEach((changeId, folded) -> {
+            for (String foldedId : folded) {
+                result.addResult(foldedId, AttendanceSyncResult.Outcome.SUPERSEDED, "Superseded by " + changeId, null);
+                if (applied.contains(changeId)) {
+                    logged.add(foldedId);
+                }
+            }
+        });
+        syncRepository.insertAppliedChanges(teacherId, logged);
+    }
+
+    private void applySubjectDay(Long teacherId, SubjectDay key, List<Delta> deltas,
+                                 AttendanceSyncResult result, List<String> appliedChangeIds) {
+        Map<Long, AttendanceSyncRepository.SyncRow> existingByStudent = new HashMap<>();
+        for (AttendanceSyncRepository.SyncRow row :
+                syncRepository.findRows(key.subjectId(), key.date(), deltas.stream().map(Delta::studentId).toList())) {
+            existingByStudent.put(row.studentId(), row);
+        }
+
+        Map<Long, Delta> deltaByStudent = new HashMap<>();
+        List<AttendanceBatchRepository.AttendanceRow> inserts = new ArrayList<>();
+        List<AttendanceBatchRepository.VersionedRow> versionedUpdates = new ArrayList<>();
+        List<AttendanceBatchRepository.AttendanceRow> legacyUpdates = new ArrayList<>();
+        for (Delta delta : deltas) {
+            deltaByStudent.put(delta.studentId(), delta);
+            AttendanceSyncRepository.SyncRow existing = existingByStudent.get(delta.studentId());
+            AttendanceBatchRepository.AttendanceRow row = new AttendanceBatchRepository.AttendanceRow(
+                    existing != null ? existing.id() : null, delta.studentId(), delta.status().name(), delta.remarks());
+            if (existing == null) {
+                if (delta.baseUpdatedAt() != null) {
+                    result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.CONFLICT,
+                            "Attendance was deleted on the server", null);
+                } else {
+                    inserts.add(row);
+                }
+            } else if (existing.status() == delta.status()
+                    && Objects.equals(Objects.toString(existing.remarks(), ""), delta.remarks())) {
+                // Already in the requested state, whoever wrote it
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.APPLIED, "Unchanged", existing);
+                appliedChangeIds.add(delta.changeId());
+            } else if (existing.updatedAt() == null) {
+                legacyUpdates.add(row);
+            } else if (existing.updatedAt().equals(delta.baseUpdatedAt())) {
+                versionedUpdates.add(new AttendanceBatchRepository.VersionedRow(row, existing.updatedAt()));
+            } else {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.CONFLICT,
+                        "Attendance was changed on the server", existing);
+            }
+        }
+
+        Set<Long> written = new HashSet<>();
+        for (AttendanceBatchRepository.AttendanceRow row :
+                attendanceBatchRepository.batchInsertIfAbsent(inserts, key.subjectId(), key.date(), teacherId)) {
+            written.add(row.studentId());
+        }
+        for (AttendanceBatchRepository.VersionedRow row :
+                attendanceBatchRepository.batchUpdateIfUnchanged(versionedUpdates, teacherId)) {
+            written.add(row.row().studentId());
+        }
+        attendanceBatchRepository.batchUpdate(legacyUpdates, teacherId);
+        legacyUpdates.forEach(row -> written.add(row.studentId()));
+
+        // Rows that lost a race with another writer between our read and our write
+        List<Long> attempted = new ArrayList<>();
+        inserts.forEach(row -> attempted.add(row.studentId()));
+        versionedUpdates.forEach(row -> attempted.add(row.row().studentId()));
+        legacyUpdates.forEach(row -> attempted.add(row.studentId()));
+        for (Long studentId : attempted) {
+            Delta delta = deltaByStudent.get(studentId);
+            if (written.contains(studentId)) {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.APPLIED, null, null);
+                appliedChangeIds.add(delta.changeId());
+            } else {
+                result.addResult(delta.changeId(), AttendanceSyncResult.Outcome.CONFLICT,
+                        "Attendance was changed on the server", null);
+            }
+        }
+
+        if (!written.isEmpty()) {
+            eventPublisher.publishEvent(new AttendanceChangedEvent(key.subjectId(), key.date(), Set.copyOf(written)));
+        }
+    }
+
+    private void pullChanges(TeacherRoster roster, SyncPosition position, LocalDateTime startedAt,
+                             AttendanceSyncResult result) {
+        LocalDate fromDate = startedAt.toLocalDate().minusDays(windowDays);
+        boolean reset = position == null || position.issuedAt().isBefore(startedAt.minusDays(retentionDays));
+        LocalDateTime since = reset ? BEGINNING : position.since();
+        long afterId = reset ? 0 : position.afterId();
+
+        List<AttendanceSyncRepository.SyncRow> rows =
+                syncRepository.findChangedSince(roster.subjectIds(), fromDate, since, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        result.setChanges(rows);
+        result.setHasMore(hasMore);
+        result.setReset(reset);
+        if (!reset) {
+            result.setDeleted(syncRepository.findDeletedSince(roster.subjectIds(), fromDate, position.deletedSince()));
+        }
+
+        LocalDateTime caughtUp = startedAt.minusSeconds(overlapSeconds);
+        // While paging, deletions keep being read from where the first page started
+        LocalDateTime deletedSince = hasMore && !reset ? position.deletedSince() : caughtUp;
+        SyncPosition next;
+        if (hasMore) {
+            AttendanceSyncRepository.SyncRow last = rows.get(rows.size() - 1);
+            next = new SyncPosition(startedAt, last.updatedAt(), last.id(), deletedSince);
+        } else {
+            next = new SyncPosition(startedAt, caughtUp, 0, deletedSince);
+        }
+        result.setSyncToken(next.encode());
+    }
+
+    private Delta parse(Map<String, Object> change) {
+        Object changeId = change.get("changeId");
+        if (changeId == null || changeId.toString().isBlank()) {
+            throw new IllegalArgumentException("Missing changeId");
+        }
+        if (changeId.toString().length() > MAX_CHANGE_ID_LENGTH) {
+            throw new IllegalArgumentException("changeId longer than " + MAX_CHANGE_ID_LENGTH + " characters");
+        }
+        Attendance.AttendanceStatus status;
+        try {
+            status = Attendance.AttendanceStatus.valueOf(String.valueOf(change.get("status")));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status: " + change.get("status"));
+        }
+        Object baseUpdatedAt = change.get("baseUpdatedAt");
+        return new Delta(changeId.toString(),
+                requireLong(change, "subjectId"),
+                requireLong(change, "studentId"),
+                LocalDate.parse(String.valueOf(require(change, "date"))),
+                status,
+                change.get("remarks") != null ? change.get("remarks").toString() : "",
+                baseUpdatedAt != null ? LocalDateTime.parse(baseUpdatedAt.toString()) : null);
+    }
+
+    private static Object require(Map<String, Object> change, String field) {
+        Object value = change.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return value;
+    }
+
+    private static Long requireLong(Map<String, Object> change, String field) {
+        try {
+            return Long.valueOf(require(change, field).toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + change.get(field));
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${wsims.attendance-sync.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public int purgeExpired() {
+        int removed = syncRepository.purgeBefore(LocalDateTime.now().minusDays(retentionDays));
+        System.out.println("Attendance sync purge removed " + removed + " expired change ids and tombstones");
+        return removed;
+    }
+}
@@ -0,0 +1,22 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.ClassRanking;
+
+public interface ClassRankingService {
+
+    /**
+     * Ranking of all students in a course for an exam schedule, by average percentage
+     * across subjects, or by a single subject's percentage when subjectId is given
+     */
+    ClassRanking getRanking(Long courseId, Long examScheduleId, Long subjectId);
+
+    /**
+     * A single student's rank, percentile and class size, or null if the student has no graded marks
+     */
+    ClassRanking.Standing getStanding(Long courseId, Long examScheduleId, Long subjectId, Long studentId);
+
+    /**
+     * Drop cached rankings for a course and exam schedule
+     */
+    void evict(Long courseId, Long examScheduleId);
+}
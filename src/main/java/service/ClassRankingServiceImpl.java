@@ -0,0 +1,113 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.ClassRanking;
+import com.parami.wsims.repository.GradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes class rankings from a single projection query per (course, exam[, subject])
+ * and keeps them in memory until a grade in that course and exam changes.
+ */
+@Service
+public class ClassRankingServiceImpl implements ClassRankingService {
+
+    private final GradeRepository gradeRepository;
+
+    private final Map<RankingKey, ClassRanking> cache;
+
+    // Bumped on every eviction so a ranking computed from pre-commit marks is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private record RankingKey(Long courseId, Long examScheduleId, Long subjectId) {
+    }
+
+    @Autowired
+    public ClassRankingServiceImpl(GradeRepository gradeRepository,
+                                   @Value("${wsims.class-ranking.max-entries:2000}") int maxEntries) {
+        this.gradeRepository = gradeRepository;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<RankingKey, ClassRanking>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RankingKey, ClassRanking> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Evict after commit so a concurrent reader cannot re-cache the pre-commit marks
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGradesChanged(GradesChangedEvent event) {
+        evict(event.courseId(), event.examScheduleId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClassRanking getRanking(Long courseId, Long examScheduleId, Long subjectId) {
+        RankingKey key = new RankingKey(courseId, examScheduleId, subjectId);
+        ClassRanking ranking = cache.get(key);
+        if (ranking == null) {
+            long loadedGeneration = generation.get();
+            ranking = compute(key);
+            // Checked under the same lock evict() takes, so an eviction cannot slip in between
+            synchronized (cache) {
+                if (generation.get() == loadedGeneration) {
+                    cache.put(key, ranking);
+                }
+            }
+        }
+        return ranking;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClassRanking.Standing getStanding(Long courseId, Long examScheduleId, Long subjectId, Long studentId) {
+        return getRanking(courseId, examScheduleId, subjectId).getStanding(studentId);
+    }
+
+    @Override
+    public void evict(Long courseId, Long examScheduleId) {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            if (courseId == null || examScheduleId == null) {
+                cache.clear();
+                return;
+            }
+            cache.keySet().removeIf(key -> courseId.equals(key.courseId()) && examScheduleId.equals(key.examScheduleId()));
+        }
+    }
+
+    private ClassRanking compute(RankingKey key) {
+        List<Object[]> rows = key.subjectId() == null
+                ? gradeRepository.findAveragePercentageByStudent(key.courseId(), key.examScheduleId())
+                : gradeRepository.findSubjectPercentageByStudent(key.courseId(), key.examScheduleId(), key.subjectId());
+
+        long[] studentIds = new long[rows.size()];
+        double[] scores = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            studentIds[i] = ((Number) row[0]).longValue();
+            scores[i] = toDouble(row[1]);
+        }
+        return new ClassRanking(key.courseId(), key.examScheduleId(), key.subjectId(), studentIds, scores);
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.doubleValue();
+        }
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+}
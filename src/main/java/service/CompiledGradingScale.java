@@ -0,0 +1,136 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.Grade;
+import com.parami.wsims.entity.GradingScale;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A grading scale flattened into a lookup table indexed by percentage in basis
+ * points (0.00% .. 100.00% -> 0 .. 10000), so resolving a letter grade is one
+ * array read instead of a chain of BigDecimal comparisons.
+ */
+public final class CompiledGradingScale {
+
+    public static final int MAX_BASIS_POINTS = 10_000;
+
+    // Letters a band may use. Exam aggregates, snapshot summaries and analytics count grades
+    // by these letters (F failing, A excellent), so a scale varies thresholds and grade points
+    // but not the letters themselves.
+    public static final Set<String> LETTERS = letters();
+
+    public static final CompiledGradingScale DEFAULT = compile(defaultBands());
+
+    /**
+     * Letter grade and grade point for one band
+     */
+    public record Result(String letterGrade, BigDecimal gradePoint) {
+    }
+
+    private final List<GradingScale.Band> bands;
+    private final Result[] results;
+    private final byte[] bandByBasisPoint;
+
+    private CompiledGradingScale(List<GradingScale.Band> bands, Result[] results, byte[] bandByBasisPoint) {
+        this.bands = bands;
+        this.results = results;
+        this.bandByBasisPoint = bandByBasisPoint;
+    }
+
+    /**
+     * Build the lookup table; bands must include one starting at 0% and may be given in any order
+     */
+    public static CompiledGradingScale compile(List<GradingScale.Band> bands) {
+        List<GradingScale.Band> ordered = new ArrayList<>(bands);
+        ordered.sort(Comparator.comparing(GradingScale.Band::getMinPercentage).reversed());
+        validate(ordered);
+
+        Result[] results = new Result[ordered.size()];
+        byte[] table = new byte[MAX_BASIS_POINTS + 1];
+        int upper = MAX_BASIS_POINTS;
+        for (int i = 0; i < ordered.size(); i++) {
+            GradingScale.Band band = ordered.get(i);
+            results[i] = new Result(band.getLetterGrade(), band.getGradePoint().setScale(2, RoundingMode.HALF_UP));
+            int lower = toBasisPoints(band.getMinPercentage());
+            for (int bp = lower; bp <= upper; bp++) {
+                table[bp] = (byte) i;
+            }
+            upper = lower - 1;
+        }
+        return new CompiledGradingScale(List.copyOf(ordered), results, table);
+    }
+
+    /**
+     * Resolve a percentage; null when no percentage is known yet
+     */
+    public Result lookup(BigDecimal percentage) {
+        if (percentage == null) {
+            return null;
+        }
+        int bp = Math.max(0, Math.min(MAX_BASIS_POINTS, toBasisPoints(percentage)));
+        return results[bandByBasisPoint[bp]];
+    }
+
+    /**
+     * Bands ordered from the highest minimum percentage down
+     */
+    public List<GradingScale.Band> getBands() {
+        return bands;
+    }
+
+    private static int toBasisPoints(BigDecimal percentage) {
+        return percentage.movePointRight(2).setScale(0, RoundingMode.FLOOR).intValue();
+    }
+
+    private static void validate(List<GradingScale.Band> ordered) {
+        if (ordered.isEmpty()) {
+            throw new IllegalArgumentException("A grading scale needs at least one band");
+        }
+        if (ordered.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A grading scale can have at most " + Byte.MAX_VALUE + " bands");
+        }
+        BigDecimal previous = null;
+        for (GradingScale.Band band : ordered) {
+            if (band.getMinPercentage() == null || band.getLetterGrade() == null || band.getLetterGrade().isBlank()
+                    || band.getGradePoint() == null) {
+                throw new IllegalArgumentException("Every band needs a minimum percentage, letter grade and grade point");
+            }
+            if (band.getMinPercentage().signum() < 0 || band.getMinPercentage().compareTo(new BigDecimal("100")) > 0) {
+                throw new IllegalArgumentException("Band minimum must be between 0 and 100: " + band.getMinPercentage());
+            }
+            if (!LETTERS.contains(band.getLetterGrade())) {
+                throw new IllegalArgumentException("Letter grade must be one of " + LETTERS + ": " + band.getLetterGrade());
+            }
+            if (previous != null && previous.compareTo(band.getMinPercentage()) == 0) {
+                throw new IllegalArgumentException("Two bands start at " + band.getMinPercentage() + "%");
+            }
+            previous = band.getMinPercentage();
+        }
+        if (ordered.get(ordered.size() - 1).getMinPercentage().signum() != 0) {
+            throw new IllegalArgumentException("The lowest band must start at 0%");
+        }
+    }
+
+    private static Set<String> letters() {
+        Set<String> letters = new TreeSet<>();
+        for (Grade.LetterGrade letter : Grade.LetterGrade.values()) {
+            letters.add(letter.getDisplayName());
+        }
+        return Collections.unmodifiableSet(letters);
+    }
+
+    private static List<GradingScale.Band> defaultBands() {
+        List<GradingScale.Band> bands = new ArrayList<>();
+        for (Grade.LetterGrade letter : Grade.LetterGrade.values()) {
+            bands.add(new GradingScale.Band(letter.getMinPercentage(), letter.getDisplayName(), letter.getPointValue()));
+        }
+        return bands;
+    }
+}
@@ -25,16 +25,19 @@ public class CourseServiceImpl implements CourseService {
     private final CourseSubjectLinkRepository courseSubjectLinkRepository;
     private final SubjectRepository subjectRepository;
     private final CourseValidationContext validationContext;
+    private final TeachingAssignmentService teachingAssignmentService;
 
     @Autowired
     public CourseServiceImpl(CourseRepository courseRepository,
                            CourseSubjectLinkRepository courseSubjectLinkRepository,
                            SubjectRepository subjectRepository,
-                           CourseValidationContext validationContext) {
+                           CourseValidationContext validationContext,
+                           TeachingAssignmentService teachingAssignmentService) {
         this.courseRepository = courseRepository;
         this.courseSubjectLinkRepository = courseSubjectLinkRepository;
         this.subjectRepository = subjectRepository;
         this.validationContext = validationContext;
+        this.teachingAssignmentService = teachingAssignmentService;
     }
 
     @Override
@@ -69,7 +72,8 @@ public class CourseServiceImpl implements CourseService {
             throw new IllegalArgumentException("Course not found with id: " + id);
         }
         
-        // Delete all course-subject links first to avoid foreign key constraints
+        // Delete teaching assignments and course-subject links first to avoid foreign key constraints
+        teachingAssignmentService.removeAssignments(id, null);
         List<CourseSubjectLink> courseSubjectLinks = courseSubjectLinkRepository.findByCourseId(id);
         if (!courseSubjectLinks.isEmpty()) {
             courseSubjectLinkRepository.deleteAll(courseSubjectLinks);
@@ -143,6 +147,7 @@ public class CourseServiceImpl implements CourseService {
     public void removeSubjectFromCourse(Long courseId, Long subjectId) {
         Optional<CourseSubjectLink> link = courseSubjectLinkRepository.findByCourseIdAndSubjectId(courseId, subjectId);
         if (link.isPresent()) {
+            teachingAssignmentService.removeAssignments(courseId, subjectId);
             courseSubjectLinkRepository.delete(link.get());
         } else {
             throw new IllegalArgumentException("Subject is not assigned to this course");
@@ -161,8 +166,7 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     public List<Course> getCoursesByTeacher(Long teacherId) {
-        // For now, return all courses - in a real implementation, this would filter by teacher
-        return courseRepository.findAll();
+        return teachingAssignmentService.getRoster(teacherId).courses();
     }
 
     @Override
@@ -0,0 +1,16 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.GradeDistribution;
+
+import java.util.List;
+
+public interface GradeAnalyticsService {
+
+    enum Dimension { SUBJECT, EXAM, GRADE_LEVEL }
+
+    /**
+     * Letter-grade distribution grouped by the given dimension, optionally
+     * narrowed to one exam schedule and/or subject
+     */
+    List<GradeDistribution> getDistribution(Dimension dimension, Long examScheduleId, Long subjectId);
+}
@@ -0,0 +1,130 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.GradeDistribution;
+import com.parami.wsims.entity.Grade;
+import com.parami.wsims.repository.GradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grade distributions computed entirely in the database: each request runs one
+ * GROUP BY (group, letter_grade) query returning count, sum, sum of squares,
+ * min and max, and the per-letter rows are folded into one result per group.
+ * Results are cached for a short TTL since dashboards re-query frequently and
+ * a few seconds of staleness is acceptable.
+ */
+@Service
+public class GradeAnalyticsServiceImpl implements GradeAnalyticsService {
+
+    private final GradeRepository gradeRepository;
+    private final long cacheTtlMillis;
+
+    private final Map<CacheKey, CachedDistribution> cache = new ConcurrentHashMap<>();
+
+    private record CacheKey(Dimension dimension, Long examScheduleId, Long subjectId) {
+    }
+
+    private record CachedDistribution(long loadedAt, List<GradeDistribution> rows) {
+    }
+
+    @Autowired
+    public GradeAnalyticsServiceImpl(GradeRepository gradeRepository,
+                                     @Value("${wsims.analytics.cache-ttl-seconds:60}") long cacheTtlSeconds) {
+        this.gradeRepository = gradeRepository;
+        this.cacheTtlMillis = cacheTtlSeconds * 1000L;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GradeDistribution> getDistribution(Dimension dimension, Long examScheduleId, Long subjectId) {
+        CacheKey key = new CacheKey(dimension, examScheduleId, subjectId);
+        long now = System.currentTimeMillis();
+        CachedDistribution cached = cache.get(key);
+        if (cached != null && now - cached.loadedAt() < cacheTtlMillis) {
+            return cached.rows();
+        }
+
+        List<Object[]> rows = switch (dimension) {
+            case SUBJECT -> gradeRepository.findDistributionBySubject(examScheduleId, subjectId);
+            case EXAM -> gradeRepository.findDistributionByExam(examScheduleId, subjectId);
+            case GRADE_LEVEL -> gradeRepository.findDistributionByGradeLevel(examScheduleId, subjectId);
+        };
+        List<GradeDistribution> result = Collections.unmodifiableList(fold(rows));
+        cache.put(key, new CachedDistribution(now, result));
+        return result;
+    }
+
+    /**
+     * Combine the per-letter rows of each group; count, sums, min and max all merge exactly
+     */
+    private List<GradeDistribution> fold(List<Object[]> rows) {
+        Map<List<Object>, Accumulator> groups = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long groupId = row[0] != null ? ((Number) row[0]).longValue() : null;
+            String label = row[1] != null ? row[1].toString() : "Unassigned";
+            Accumulator acc = groups.computeIfAbsent(Arrays.asList(groupId, label), k -> new Accumulator(groupId, label));
+            acc.add((String) row[2], ((Number) row[3]).longValue(), toDouble(row[4]), toDouble(row[5]),
+                    toDouble(row[6]), toDouble(row[7]));
+        }
+        List<GradeDistribution> result = new ArrayList<>(groups.size());
+        for (Accumulator acc : groups.values()) {
+            result.add(acc.toDistribution());
+        }
+        result.sort((a, b) -> Objects.compare(a.label(), b.label(), String::compareTo));
+        return result;
+    }
+
+    private static double toDouble(Object value) {
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+
+    private static final class Accumulator {
+        private final Long groupId;
+        private final String label;
+        private final Map<String, Long> letterCounts = new LinkedHashMap<>();
+        private long count;
+        private double sum;
+        private double sumSquares;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        Accumulator(Long groupId, String label) {
+            this.groupId = groupId;
+            this.label = label;
+            for (Grade.LetterGrade letter : Grade.LetterGrade.values()) {
+                letterCounts.putIfAbsent(letter.getDisplayName(), 0L);
+            }
+        }
+
+        void add(String letter, long rowCount, double rowSum, double rowSumSquares, double rowMin, double rowMax) {
+            letterCounts.merge(letter != null ? letter : "Ungraded", rowCount, Long::sum);
+            count += rowCount;
+            sum += rowSum;
+            sumSquares += rowSumSquares;
+            min = Math.min(min, rowMin);
+            max = Math.max(max, rowMax);
+        }
+
+        GradeDistribution toDistribution() {
+            double mean = count > 0 ? sum / count : 0.0;
+            double variance = count > 0 ? Math.max(0.0, sumSquares / count - mean * mean) : 0.0;
+            return new GradeDistribution(groupId, label, count, letterCounts,
+                    round(mean), count > 0 ? round(min) : 0.0, count > 0 ? round(max) : 0.0, round(Math.sqrt(variance)));
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.GradeImportJob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface GradeImportService {
+
+    /**
+     * Store the uploaded marks sheet (CSV or XLSX) and start importing it in the
+     * background. Returns the job immediately so callers can poll its progress.
+     */
+    GradeImportJob submitImport(MultipartFile file, Long authorId) throws IOException;
+
+    /**
+     * Get the progress of an import job. Jobs are kept in memory for a day after they
+     * finish and are not persisted, so after a restart this is empty for every job.
+     */
+    Optional<GradeImportJob> getJob(String jobId);
+}
@@ -0,0 +1,356 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.GradeImportJob;
+import com.parami.wsims.dto.GradeUpsertReport;
+import com.parami.wsims.entity.Grade;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports school-wide marks sheets. The file is read row by row into fixed-size
+ * chunks; chunks are validated in parallel on a small pool and written in file
+ * order through the batched grade upsert. At most {@link #MAX_CHUNKS_IN_FLIGHT}
+ * chunks exist at any time, so memory use does not depend on the file size.
+ * Each (course, exam schedule) is resolved once per import, with its existing
+ * grade keys, and reused by every chunk that touches it.
+ *
+ * Job status is held in memory only: it is lost on restart, and a job that was
+ * running then is left half-applied. Re-uploading the same sheet is safe since
+ * rows are upserted on their (student, course, subject, exam) key.
+ */
+@Service
+public class GradeImportServiceImpl implements GradeImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_CHUNKS_IN_FLIGHT = 4;
+    // Resolved (course, exam schedule) targets kept per import, least recently used dropped first
+    static final int MAX_TARGETS = 64;
+    private static final long FINISHED_JOB_RETENTION_HOURS = 24;
+
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("studentid", "courseid", "subjectid", "examscheduleid", "marksobtained");
+
+    private final GradeService gradeService;
+    private final Map<String, GradeImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService validationExecutor =
+            Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() - 1));
+
+    @Autowired
+    public GradeImportServiceImpl(GradeService gradeService) {
+        this.gradeService = gradeService;
+    }
+
+    @Override
+    public GradeImportJob submitImport(MultipartFile file, Long authorId) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("No file uploaded");
+        }
+        String filename = file.getOriginalFilename();
+        if (!GradebookFileReader.isCsv(filename) && !GradebookFileReader.isXlsx(filename)) {
+            throw new IllegalArgumentException("Only .csv and .xlsx marks sheets are supported");
+        }
+
+        // The multipart upload is removed when the request ends, so keep our own copy
+        Path tempFile = Files.createTempFile("grade-import-", GradebookFileReader.isXlsx(filename) ? ".xlsx" : ".csv");
+        file.transferTo(tempFile);
+
+        pruneFinishedJobs();
+        GradeImportJob job = new GradeImportJob(UUID.randomUUID().toString(), filename);
+        jobs.put(job.getJobId(), job);
+        jobExecutor.submit(() -> runImport(job, tempFile, filename, authorId));
+        return job;
+    }
+
+    @Override
+    public Optional<GradeImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        validationExecutor.shutdownNow();
+    }
+
+    private void runImport(GradeImportJob job, Path file, String filename, Long authorId) {
+        job.start();
+        ImportPipeline pipeline = new ImportPipeline(job, authorId);
+        try {
+            GradebookFileReader.read(file, filename, pipeline::accept);
+            pipeline.finish();
+            job.complete();
+        } catch (Exception e) {
+            System.err.println("Grade import " + job.getJobId() + " failed: " + e.getMessage());
+            job.fail(rootMessage(e));
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Could not delete import file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(FINISHED_JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    /**
+     * One raw sheet row with its 1-based row number in the file
+     */
+    private record RawRow(long rowNumber, List<String> cells) {
+    }
+
+    /**
+     * Rows of a chunk that passed validation, grouped by (course, exam schedule)
+     */
+    private static class ValidatedChunk {
+        final Map<String, ImportGroup> groups = new LinkedHashMap<>();
+        final List<RawRow> failedRows = new ArrayList<>();
+        final List<String> failureReasons = new ArrayList<>();
+        int rowCount;
+    }
+
+    private static class ImportGroup {
+        final Long courseId;
+        final Long examScheduleId;
+        final List<Map<String, Object>> entries = new ArrayList<>();
+        final List<Long> rowNumbers = new ArrayList<>();
+
+        ImportGroup(Long courseId, Long examScheduleId) {
+            this.courseId = courseId;
+            this.examScheduleId = examScheduleId;
+        }
+    }
+
+    /**
+     * Receives rows from the reader thread, hands full chunks to the validation
+     * pool and writes validated chunks back in submission order.
+     */
+    private class ImportPipeline {
+        private final GradeImportJob job;
+        private final Long authorId;
+        private final Deque<Future<ValidatedChunk>> inFlight = new ArrayDeque<>();
+        private final Map<String, GradeService.BulkGradeTarget> targets =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, GradeService.BulkGradeTarget> eldest) {
+                        return size() > MAX_TARGETS;
+                    }
+                };
+        private Map<String, Integer> columns;
+        private List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private long rowNumber;
+
+        ImportPipeline(GradeImportJob job, Long authorId) {
+            this.job = job;
+            this.authorId = authorId;
+        }
+
+        void accept(List<String> cells) {
+            rowNumber++;
+            if (columns == null) {
+                columns = readHeader(cells);
+                return;
+            }
+            chunk.add(new RawRow(rowNumber, cells));
+            if (chunk.size() >= CHUNK_SIZE) {
+                submitChunk();
+            }
+        }
+
+        void finish() {
+            if (columns == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            if (!chunk.isEmpty()) {
+                submitChunk();
+            }
+            while (!inFlight.isEmpty()) {
+                writeOldest();
+            }
+        }
+
+        private void submitChunk() {
+            List<RawRow> rows = chunk;
+            Map<String, Integer> header = columns;
+            chunk = new ArrayList<>(CHUNK_SIZE);
+            inFlight.addLast(validationExecutor.submit(() -> validateChunk(rows, header)));
+            while (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+                writeOldest();
+            }
+        }
+
+        private void writeOldest() {
+            ValidatedChunk validated;
+            try {
+                validated = inFlight.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Validation failed: " + rootMessage(e), e);
+            }
+            writeChunk(validated);
+        }
+
+        private void writeChunk(ValidatedChunk validated) {
+            job.addRowsRead(validated.rowCount);
+            for (int i = 0; i < validated.failedRows.size(); i++) {
+                job.addFailure(validated.failedRows.get(i).rowNumber(), validated.failureReasons.get(i));
+            }
+            for (Map.Entry<String, ImportGroup> groupEntry : validated.groups.entrySet()) {
+                String groupKey = groupEntry.getKey();
+                ImportGroup group = groupEntry.getValue();
+                try {
+                    GradeService.BulkGradeTarget target = targets.get(groupKey);
+                    if (target == null) {
+                        target = gradeService.openBulkTarget(group.courseId, group.examScheduleId);
+                        targets.put(groupKey, target);
+                    }
+                    GradeUpsertReport report = gradeService.upsertBulkGrades(group.entries, target, authorId);
+                    job.addCreated(report.getCreatedCount());
+                    job.addUpdated(report.getUpdatedCount());
+                    for (GradeUpsertReport.RowResult row : report.getRows()) {
+                        long fileRow = group.rowNumbers.get(row.rowIndex());
+                        if (row.status() == GradeUpsertReport.RowStatus.SKIPPED) {
+                            job.addSkip(fileRow, row.message());
+                        } else if (row.status() == GradeUpsertReport.RowStatus.FAILED) {
+                            job.addFailure(fileRow, row.message());
+                        }
+                    }
+                } catch (Exception e) {
+                    // The write rolled back, so the cached keys may not match the table any more
+                    targets.remove(groupKey);
+                    String reason = rootMessage(e);
+                    for (Long fileRow : group.rowNumbers) {
+                        job.addFailure(fileRow, reason);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, Integer> readHeader(List<String> cells) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            columns.put(normalizeHeader(cells.get(i)), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing required column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static String normalizeHeader(String header) {
+        return header.toLowerCase().replaceAll("[\\s_-]", "");
+    }
+
+    /**
+     * Parse and check one chunk with the same rules as {@link Grade#isValidMarks()}.
+     * Runs on the validation pool.
+     */
+    private static ValidatedChunk validateChunk(List<RawRow> rows, Map<String, Integer> columns) {
+        ValidatedChunk validated = new ValidatedChunk();
+        validated.rowCount = rows.size();
+        for (RawRow row : rows) {
+            try {
+                Long studentId = parseId(cell(row, columns, "studentid"), "studentId");
+                Long courseId = parseId(cell(row, columns, "courseid"), "courseId");
+                Long subjectId = parseId(cell(row, columns, "subjectid"), "subjectId");
+                Long examScheduleId = parseId(cell(row, columns, "examscheduleid"), "examScheduleId");
+                String marksCell = cell(row, columns, "marksobtained");
+                if (marksCell.isEmpty()) {
+                    throw new IllegalArgumentException("marksObtained is empty");
+                }
+                BigDecimal marksObtained = parseMarks(marksCell, "marksObtained");
+                String totalCell = cell(row, columns, "totalmarks");
+                BigDecimal totalMarks = totalCell.isEmpty() ? new BigDecimal("100") : parseMarks(totalCell, "totalMarks");
+                if (!Grade.isValidMarks(marksObtained, totalMarks)) {
+                    throw new IllegalArgumentException("Invalid marks: " + marksObtained + "/" + totalMarks);
+                }
+
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("studentId", studentId);
+                entry.put("subjectId", subjectId);
+                entry.put("marksObtained", marksObtained);
+                entry.put("totalMarks", totalMarks);
+                if (columns.containsKey("comments")) {
+                    entry.put("comments", cell(row, columns, "comments"));
+                }
+
+                ImportGroup group = validated.groups.computeIfAbsent(courseId + "-" + examScheduleId,
+                        key -> new ImportGroup(courseId, examScheduleId));
+                group.entries.add(entry);
+                group.rowNumbers.add(row.rowNumber());
+            } catch (RuntimeException e) {
+                validated.failedRows.add(row);
+                validated.failureReasons.add(e.getMessage());
+            }
+        }
+        return validated;
+    }
+
+    private static String cell(RawRow row, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.cells().size()) {
+            return "";
+        }
+        String value = row.cells().get(index);
+        return value != null ? value.trim() : "";
+    }
+
+    private static BigDecimal parseMarks(String value, String column) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    private static Long parseId(String value, String column) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException(column + " is empty");
+        }
+        try {
+            // Spreadsheet exports sometimes write whole numbers as "12.0"
+            return new BigDecimal(value).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a valid id: " + value);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.wsims.service;
 
+import com.parami.wsims.dto.GradeUpsertReport;
+import com.parami.wsims.dto.GradebookMatrix;
 import com.parami.wsims.entity.Grade;
 import com.parami.wsims.entity.User;
 import org.springframework.data.domain.Page;
@@ -20,11 +22,64 @@ public interface GradeService {
      */
     List<Grade> saveBulkGrades(List<Map<String, Object>> gradeEntries, Long courseId, Long examScheduleId);
     
+    /**
+     * Insert or update grades for a course and exam schedule as JDBC batches in one
+     * transaction, reporting the outcome of every submitted row
+     */
+    GradeUpsertReport upsertBulkGrades(List<Map<String, Object>> gradeEntries, Long courseId, Long examScheduleId);
+    
+    /**
+     * Same as {@link #upsertBulkGrades(List, Long, Long)} with an explicit author, for
+     * callers running outside a request (e.g. background imports)
+     */
+    GradeUpsertReport upsertBulkGrades(List<Map<String, Object>> gradeEntries, Long courseId, Long examScheduleId, Long authorId);
+    
+    /**
+     * Resolve a course and exam schedule once for a run of bulk upserts: the exam's grading
+     * scale and the ids of the grades already recorded against them
+     */
+    BulkGradeTarget openBulkTarget(Long courseId, Long examScheduleId);
+    
+    /**
+     * Same as {@link #upsertBulkGrades(List, Long, Long, Long)} against a target opened once, so
+     * successive chunks for one course and exam neither re-resolve it nor reload its grade keys.
+     * Discard the target if a call throws, as its keys may no longer match the table.
+     */
+    GradeUpsertReport upsertBulkGrades(List<Map<String, Object>> gradeEntries, BulkGradeTarget target, Long authorId);
+    
+    /**
+     * A course and exam schedule resolved for bulk upserts. Grade ids are keyed by
+     * "studentId-subjectId" and kept current as upserts insert rows; not thread-safe.
+     */
+    final class BulkGradeTarget {
+        private final Long courseId;
+        private final Long examScheduleId;
+        private final CompiledGradingScale gradingScale;
+        private final Map<String, Long> gradeIds;
+        
+        BulkGradeTarget(Long courseId, Long examScheduleId, CompiledGradingScale gradingScale, Map<String, Long> gradeIds) {
+            this.courseId = courseId;
+            this.examScheduleId = examScheduleId;
+            this.gradingScale = gradingScale;
+            this.gradeIds = gradeIds;
+        }
+        
+        public Long getCourseId() { return courseId; }
+        public Long getExamScheduleId() { return examScheduleId; }
+        CompiledGradingScale getGradingScale() { return gradingScale; }
+        Map<String, Long> getGradeIds() { return gradeIds; }
+    }
+    
     /**
      * Get grades by student ID
      */
     List<Grade> getGradesByStudent(Long studentId);
     
+    /**
+     * Get the grades of a course and exam schedule as a students x subjects matrix
+     */
+    GradebookMatrix getGradebookMatrix(Long courseId, Long examScheduleId);
+    
     /**
      * Get grades by course ID
      */
@@ -1,8 +1,14 @@
 package com.wsims.service;
 
+import com.parami.wsims.dto.GradeUpsertReport;
+import com.parami.wsims.dto.GradebookMatrix;
 import com.parami.wsims.entity.*;
+import com.parami.wsims.repository.GradeBatchRepository;
 import com.parami.wsims.repository.GradeRepository;
+import com.parami.wsims.repository.SubjectRepository;
+import com.parami.wsims.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -10,11 +16,15 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class GradeServiceImpl implements GradeService {
@@ -33,11 +43,33 @@ public class GradeServiceImpl implements GradeService {
     
     @Autowired
     private ExamScheduleService examScheduleService;
+    
+    @Autowired
+    private GradeBatchRepository gradeBatchRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private SubjectRepository subjectRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private GradingScaleService gradingScaleService;
+    
+    // Keeps IN lists well below SQL Server's 2100 parameter limit
+    private static final int ID_LOOKUP_CHUNK = 1000;
 
     @Override
     @Transactional
     public Grade saveGrade(Grade grade) {
-        return gradeRepository.save(grade);
+        applyGradingScale(grade);
+        Grade savedGrade = gradeRepository.save(grade);
+        publishGradesChanged(savedGrade.getCourse().getId(), savedGrade.getExamSchedule().getId(),
+                Set.of(savedGrade.getStudent().getId()));
+        return savedGrade;
     }
 
     @Override
@@ -173,14 +205,241 @@ public class GradeServiceImpl implements GradeService {
         System.out.println("=== Bulk grade save completed ===");
         System.out.println("Successfully saved " + savedGrades.size() + " grades out of " + gradeEntries.size() + " entries");
         
+        Set<Long> changedStudents = new HashSet<>();
+        for (Grade savedGrade : savedGrades) {
+            changedStudents.add(savedGrade.getStudent().getId());
+        }
+        publishGradesChanged(courseId, examScheduleId, changedStudents);
+        
         return savedGrades;
     }
 
+    @Override
+    @Transactional
+    public GradeUpsertReport upsertBulkGrades(List<Map<String, Object>> gradeEntries, Long courseId, Long examScheduleId) {
+        User author = getCurrentUser();
+        return upsertBulkGrades(gradeEntries, courseId, examScheduleId, author != null ? author.getId() : null);
+    }
+
+    @Override
+    @Transactional
+    public GradeUpsertReport upsertBulkGrades(List<Map<String, Object>> gradeEntries, Long courseId, Long examScheduleId, Long authorId) {
+        if (gradeEntries == null || gradeEntries.isEmpty()) {
+            return new GradeUpsertReport();
+        }
+        return upsertBulkGrades(gradeEntries, openBulkTarget(courseId, examScheduleId), authorId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BulkGradeTarget openBulkTarget(Long courseId, Long examScheduleId) {
+        if (courseService.getCourseById(courseId) == null) {
+            throw new IllegalArgumentException("Course not found with id: " + courseId);
+        }
+        ExamSchedule examSchedule = examScheduleService.getExamScheduleById(examScheduleId);
+        if (examSchedule == null) {
+            throw new IllegalArgumentException("Exam schedule not found with id: " + examScheduleId);
+        }
+        CompiledGradingScale gradingScale = gradingScaleService.getCompiledScale(examSchedule.getAcademicYear());
+        
+        // One query for every grade already recorded against this course and exam
+        Map<String, Long> gradeIds = new HashMap<>();
+        for (Object[] row : gradeRepository.findGradeKeysByCourseAndExam(courseId, examScheduleId)) {
+            gradeIds.put(row[1] + "-" + row[2], (Long) row[0]);
+        }
+        return new BulkGradeTarget(courseId, examScheduleId, gradingScale, gradeIds);
+    }
+
+    @Override
+    @Transactional
+    public GradeUpsertReport upsertBulkGrades(List<Map<String, Object>> gradeEntries, BulkGradeTarget target, Long authorId) {
+        GradeUpsertReport report = new GradeUpsertReport();
+        if (gradeEntries == null || gradeEntries.isEmpty()) {
+            return report;
+        }
+        Long courseId = target.getCourseId();
+        Long examScheduleId = target.getExamScheduleId();
+        CompiledGradingScale gradingScale = target.getGradingScale();
+        Map<String, Long> existingGradeIds = target.getGradeIds();
+        
+        // Parse rows; the last entry for a (student, subject) pair wins
+        Map<String, ParsedGradeEntry> entriesByKey = new LinkedHashMap<>();
+        for (int i = 0; i < gradeEntries.size(); i++) {
+            Map<String, Object> entry = gradeEntries.get(i);
+            ParsedGradeEntry parsed;
+            try {
+                parsed = parseGradeEntry(i, entry);
+            } catch (RuntimeException e) {
+                report.addRow(i, null, null, GradeUpsertReport.RowStatus.FAILED, "Unreadable entry: " + e.getMessage());
+                continue;
+            }
+            ParsedGradeEntry superseded = entriesByKey.remove(parsed.key());
+            if (superseded != null) {
+                report.addRow(superseded.rowIndex(), superseded.studentId(), superseded.subjectId(),
+                        GradeUpsertReport.RowStatus.SKIPPED, "Duplicate entry, superseded by row " + i);
+            }
+            entriesByKey.put(parsed.key(), parsed);
+        }
+        
+        Set<Long> studentIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (ParsedGradeEntry parsed : entriesByKey.values()) {
+            studentIds.add(parsed.studentId());
+            subjectIds.add(parsed.subjectId());
+        }
+        Set<Long> knownStudents = findExistingIds(studentIds, userRepository::findExistingIds);
+        Set<Long> knownSubjects = findExistingIds(subjectIds, subjectRepository::findExistingIds);
+        
+        List<GradeBatchRepository.GradeRow> inserts = new ArrayList<>();
+        List<GradeBatchRepository.GradeRow> updates = new ArrayList<>();
+        List<ParsedGradeEntry> inserted = new ArrayList<>();
+        List<ParsedGradeEntry> updated = new ArrayList<>();
+        
+        for (ParsedGradeEntry parsed : entriesByKey.values()) {
+            if (!knownStudents.contains(parsed.studentId())) {
+                report.addRow(parsed.rowIndex(), parsed.studentId(), parsed.subjectId(),
+                        GradeUpsertReport.RowStatus.SKIPPED, "Student not found");
+                continue;
+            }
+            if (!knownSubjects.contains(parsed.subjectId())) {
+                report.addRow(parsed.rowIndex(), parsed.studentId(), parsed.subjectId(),
+                        GradeUpsertReport.RowStatus.SKIPPED, "Subject not found");
+                continue;
+            }
+            if (parsed.marksObtained() == null) {
+                report.addRow(parsed.rowIndex(), parsed.studentId(), parsed.subjectId(),
+                        GradeUpsertReport.RowStatus.SKIPPED, "No marks entered");
+                continue;
+            }
+            if (!Grade.isValidMarks(parsed.marksObtained(), parsed.totalMarks())) {
+                report.addRow(parsed.rowIndex(), parsed.studentId(), parsed.subjectId(),
+                        GradeUpsertReport.RowStatus.FAILED,
+                        "Invalid marks: " + parsed.marksObtained() + "/" + parsed.totalMarks());
+                continue;
+            }
+            
+            Long existingId = existingGradeIds.get(parsed.key());
+            GradeBatchRepository.GradeRow row = toGradeRow(existingId, parsed, gradingScale);
+            if (existingId != null) {
+                updates.add(row);
+                updated.add(parsed);
+            } else {
+                inserts.add(row);
+                inserted.add(parsed);
+            }
+        }
+        
+        gradeBatchRepository.batchInsert(inserts, courseId, examScheduleId, authorId);
+        gradeBatchRepository.batchUpdate(updates);
+        
+        // Learn the new ids so a later chunk repeating one of these keys updates instead of inserting
+        Set<Long> insertedStudents = new HashSet<>();
+        inserted.forEach(parsed -> insertedStudents.add(parsed.studentId()));
+        List<Long> insertedStudentIds = new ArrayList<>(insertedStudents);
+        for (int from = 0; from < insertedStudentIds.size(); from += ID_LOOKUP_CHUNK) {
+            for (Object[] row : gradeRepository.findGradeKeysByCourseAndExamAndStudentIds(courseId, examScheduleId,
+                    insertedStudentIds.subList(from, Math.min(from + ID_LOOKUP_CHUNK, insertedStudentIds.size())))) {
+                existingGradeIds.put(row[1] + "-" + row[2], (Long) row[0]);
+            }
+        }
+        
+        Set<Long> changedStudents = new HashSet<>(insertedStudents);
+        updated.forEach(parsed -> changedStudents.add(parsed.studentId()));
+        publishGradesChanged(courseId, examScheduleId, changedStudents);
+        
+        for (ParsedGradeEntry parsed : inserted) {
+            report.addRow(parsed.rowIndex(), parsed.studentId(), parsed.subjectId(), GradeUpsertReport.RowStatus.CREATED, null);
+        }
+        for (ParsedGradeEntry parsed : updated) {
+            report.addRow(parsed.rowIndex(), parsed.studentId(), parsed.subjectId(), GradeUpsertReport.RowStatus.UPDATED, null);
+        }
+        return report;
+    }
+
+    /**
+     * A grade entry parsed from the request payload
+     */
+    private record ParsedGradeEntry(int rowIndex, Long studentId, Long subjectId, BigDecimal marksObtained,
+                                    BigDecimal totalMarks, String comments, boolean commentsProvided) {
+        String key() {
+            return studentId + "-" + subjectId;
+        }
+    }
+
+    private ParsedGradeEntry parseGradeEntry(int rowIndex, Map<String, Object> entry) {
+        Long studentId = Long.valueOf(entry.get("studentId").toString());
+        Long subjectId = Long.valueOf(entry.get("subjectId").toString());
+        BigDecimal marksObtained = entry.get("marksObtained") != null
+                ? new BigDecimal(entry.get("marksObtained").toString()) : null;
+        BigDecimal totalMarks = entry.get("totalMarks") != null
+                ? new BigDecimal(entry.get("totalMarks").toString()) : new BigDecimal("100");
+        boolean commentsProvided = entry.containsKey("comments");
+        String comments = entry.get("comments") != null ? entry.get("comments").toString() : "";
+        return new ParsedGradeEntry(rowIndex, studentId, subjectId, marksObtained, totalMarks, comments, commentsProvided);
+    }
+
+    private GradeBatchRepository.GradeRow toGradeRow(Long gradeId, ParsedGradeEntry parsed, CompiledGradingScale gradingScale) {
+        BigDecimal percentage = Grade.calculatePercentage(parsed.marksObtained(), parsed.totalMarks());
+        CompiledGradingScale.Result letterGrade = gradingScale.lookup(percentage);
+        return new GradeBatchRepository.GradeRow(gradeId, parsed.studentId(), parsed.subjectId(),
+                parsed.marksObtained(), parsed.totalMarks(), percentage,
+                letterGrade.letterGrade(), letterGrade.gradePoint(),
+                parsed.comments(), parsed.commentsProvided());
+    }
+
+    private Set<Long> findExistingIds(Set<Long> ids, java.util.function.Function<List<Long>, List<Long>> lookup) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> idList = new ArrayList<>(ids);
+        for (int from = 0; from < idList.size(); from += ID_LOOKUP_CHUNK) {
+            existing.addAll(lookup.apply(idList.subList(from, Math.min(from + ID_LOOKUP_CHUNK, idList.size()))));
+        }
+        return existing;
+    }
+
     @Override
     public List<Grade> getGradesByStudent(Long studentId) {
         return gradeRepository.findByStudentIdOrderByExamScheduleStartDateDesc(studentId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public GradebookMatrix getGradebookMatrix(Long courseId, Long examScheduleId) {
+        List<Object[]> cells = gradeRepository.findGradebookCells(courseId, examScheduleId);
+        
+        // Rows arrive ordered by student, so student ids are already sorted and distinct in sequence
+        long[] studentIds = new long[cells.size()];
+        int studentCount = 0;
+        TreeSet<Long> subjectSet = new TreeSet<>();
+        for (Object[] cell : cells) {
+            long studentId = ((Number) cell[1]).longValue();
+            if (studentCount == 0 || studentIds[studentCount - 1] != studentId) {
+                studentIds[studentCount++] = studentId;
+            }
+            subjectSet.add(((Number) cell[2]).longValue());
+        }
+        studentIds = Arrays.copyOf(studentIds, studentCount);
+        long[] subjectIds = subjectSet.stream().mapToLong(Long::longValue).toArray();
+        
+        int columns = subjectIds.length;
+        BigDecimal[] marks = new BigDecimal[studentCount * columns];
+        Long[] gradeIds = new Long[marks.length];
+        String[] comments = new String[marks.length];
+        int row = -1;
+        long currentStudent = Long.MIN_VALUE;
+        for (Object[] cell : cells) {
+            long studentId = ((Number) cell[1]).longValue();
+            if (studentId != currentStudent) {
+                currentStudent = studentId;
+                row++;
+            }
+            int index = row * columns + Arrays.binarySearch(subjectIds, ((Number) cell[2]).longValue());
+            gradeIds[index] = ((Number) cell[0]).longValue();
+            marks[index] = (BigDecimal) cell[3];
+            comments[index] = (String) cell[4];
+        }
+        return new GradebookMatrix(courseId, examScheduleId, studentIds, subjectIds, marks, gradeIds, comments);
+    }
+
     @Override
     public List<Grade> getGradesByCourse(Long courseId) {
         return gradeRepository.findByCourseId(courseId);
@@ -217,8 +476,13 @@ public class GradeServiceImpl implements GradeService {
     }
 
     @Override
+    @Transactional
     public void deleteGrade(Long gradeId) {
+        List<Object[]> keys = gradeRepository.findGradeKeyById(gradeId);
         gradeRepository.deleteById(gradeId);
+        for (Object[] key : keys) {
+            publishGradesChanged((Long) key[0], (Long) key[1], Set.of((Long) key[2]));
+        }
     }
 
     @Override
@@ -277,6 +541,7 @@ public class GradeServiceImpl implements GradeService {
             System.out.println("Attempting to save grade for student " + grade.getStudent().getId() + 
                              ", subject " + grade.getSubject().getId() + 
                              ", marks: " + grade.getMarksObtained() + "/" + grade.getTotalMarks());
+            applyGradingScale(grade);
             Grade savedGrade = gradeRepository.save(grade);
             System.out.println("Successfully saved grade with ID: " + savedGrade.getId());
             return savedGrade;
@@ -288,6 +553,33 @@ public class GradeServiceImpl implements GradeService {
         }
     }
 
+    /**
+     * Derive percentage, letter grade and grade point from the grading scale of the exam's
+     * academic year, as {@link #toGradeRow} does for the JDBC bulk paths
+     */
+    private void applyGradingScale(Grade grade) {
+        BigDecimal marks = grade.getMarksObtained();
+        BigDecimal total = grade.getTotalMarks();
+        if (marks == null || total == null || total.compareTo(BigDecimal.ZERO) <= 0) {
+            return;
+        }
+        BigDecimal percentage = Grade.calculatePercentage(marks, total);
+        String academicYear = grade.getExamSchedule() != null ? grade.getExamSchedule().getAcademicYear() : null;
+        CompiledGradingScale.Result result = gradingScaleService.getCompiledScale(academicYear).lookup(percentage);
+        grade.setPercentage(percentage);
+        grade.setLetterGrade(result.letterGrade());
+        grade.setGradePoint(result.gradePoint());
+    }
+
+    /**
+     * Tell listeners maintaining derived grade data which students changed
+     */
+    private void publishGradesChanged(Long courseId, Long examScheduleId, Set<Long> studentIds) {
+        if (!studentIds.isEmpty()) {
+            eventPublisher.publishEvent(new GradesChangedEvent(courseId, examScheduleId, Set.copyOf(studentIds)));
+        }
+    }
+
     /**
      * Get the currently authenticated user
      */
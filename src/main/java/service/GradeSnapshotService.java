@@ -0,0 +1,43 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.KeysetPage;
+import com.parami.wsims.dto.PublishedGrades;
+import com.parami.wsims.dto.StudentGradeRow;
+import com.parami.wsims.entity.GradeSnapshot;
+
+import java.util.List;
+
+public interface GradeSnapshotService {
+
+    /**
+     * Freeze the current grades of an exam schedule into a new snapshot version and make it current
+     */
+    GradeSnapshot publish(Long examScheduleId, Long publishedBy);
+
+    /**
+     * Whether an exam schedule has been published
+     */
+    boolean isPublished(Long examScheduleId);
+
+    /**
+     * Whether a published exam's grades have been edited since its current snapshot; such
+     * edits stay a draft until the exam is published again
+     */
+    boolean hasUnpublishedChanges(Long examScheduleId);
+
+    /**
+     * Versions of an exam schedule's snapshot, newest first
+     */
+    List<GradeSnapshot> getVersions(Long examScheduleId);
+
+    /**
+     * A student's grades from the current snapshots of all published exams
+     */
+    PublishedGrades getPublishedGrades(Long studentId);
+
+    /**
+     * A keyset page of a student's rows in the current snapshots, newest published first,
+     * after the given cursor token
+     */
+    KeysetPage<StudentGradeRow> getPublishedGradeRows(Long studentId, String cursor, int size);
+}
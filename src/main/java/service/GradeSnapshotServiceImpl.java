@@ -0,0 +1,269 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.KeysetCursor;
+import com.parami.wsims.dto.KeysetPage;
+import com.parami.wsims.dto.PublishedGrades;
+import com.parami.wsims.dto.StudentExamGrades;
+import com.parami.wsims.dto.StudentGradeRow;
+import com.parami.wsims.entity.ExamSchedule;
+import com.parami.wsims.entity.GradeSnapshot;
+import com.parami.wsims.entity.GradeSnapshotEntry;
+import com.parami.wsims.repository.GradeRepository;
+import com.parami.wsims.repository.GradeSnapshotEntryRepository;
+import com.parami.wsims.repository.GradeSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Publish-and-freeze workflow for exam grades. Publishing copies an exam's grades
+ * into an immutable snapshot with one INSERT ... SELECT; student and parent reads
+ * are served from the current snapshots and cached in memory per student.
+ *
+ * Edits made after publishing are not visible to students or parents: they stay a
+ * draft against the live grades until someone publishes the exam again.
+ *
+ * The cache key includes a fingerprint of the current snapshot ids, so publishing
+ * (or re-publishing after an edit) swaps in a new version without touching cached
+ * entries row by row: stale entries simply stop matching.
+ */
+@Service
+public class GradeSnapshotServiceImpl implements GradeSnapshotService {
+
+    // Older versions are pruned beyond this many per exam
+    private static final int VERSIONS_KEPT = 3;
+
+    private final GradeSnapshotRepository snapshotRepository;
+    private final GradeSnapshotEntryRepository entryRepository;
+    private final GradeRepository gradeRepository;
+    private final ExamScheduleService examScheduleService;
+
+    // Current snapshot per exam schedule id, with a fingerprint of their ids; swapped as a whole
+    private record SnapshotState(Map<Long, GradeSnapshot> snapshots, String fingerprint) {
+    }
+
+    private volatile SnapshotState state = new SnapshotState(Map.of(), "0");
+
+    private final Map<Long, PublishedGrades> studentCache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GradeSnapshotServiceImpl(GradeSnapshotRepository snapshotRepository,
+                                    GradeSnapshotEntryRepository entryRepository,
+                                    GradeRepository gradeRepository,
+                                    ExamScheduleService examScheduleService) {
+        this.snapshotRepository = snapshotRepository;
+        this.entryRepository = entryRepository;
+        this.gradeRepository = gradeRepository;
+        this.examScheduleService = examScheduleService;
+    }
+
+    /**
+     * Load the current snapshot ids; repeated periodically to pick up publishes from other instances
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${wsims.grade-snapshots.reload-ms:60000}", initialDelayString = "${wsims.grade-snapshots.reload-ms:60000}")
+    public void reloadCurrentSnapshots() {
+        Map<Long, GradeSnapshot> loaded = new HashMap<>();
+        for (GradeSnapshot snapshot : snapshotRepository.findByCurrentTrue()) {
+            loaded.put(snapshot.getExamScheduleId(), snapshot);
+        }
+        setCurrentSnapshots(loaded);
+    }
+
+    @Override
+    @Transactional
+    public GradeSnapshot publish(Long examScheduleId, Long publishedBy) {
+        ExamSchedule examSchedule = examScheduleService.getExamScheduleById(examScheduleId);
+        if (examSchedule == null) {
+            throw new IllegalArgumentException("Exam schedule not found with id: " + examScheduleId);
+        }
+        // Held until commit, so a concurrent publish of the same exam waits and then sees this version
+        int version = snapshotRepository.lockLatestVersion(examScheduleId) + 1;
+
+        GradeSnapshot snapshot = new GradeSnapshot();
+        snapshot.setExamScheduleId(examScheduleId);
+        snapshot.setVersion(version);
+        snapshot.setExamName(examSchedule.getExamName());
+        snapshot.setAcademicYear(examSchedule.getAcademicYear());
+        snapshot.setExamDescription(examSchedule.getDescription());
+        snapshot.setExamStartDate(examSchedule.getStartDate());
+        snapshot.setCurrent(true);
+        snapshot.setPublishedBy(publishedBy);
+        snapshot.setPublishedAt(LocalDateTime.now());
+        snapshot = snapshotRepository.saveAndFlush(snapshot);
+
+        snapshot.setEntryCount(entryRepository.copyFromGrades(snapshot.getId(), examScheduleId));
+        snapshotRepository.supersedeOthers(examScheduleId, snapshot.getId());
+
+        if (version > VERSIONS_KEPT) {
+            entryRepository.deleteForVersionsUpTo(examScheduleId, version - VERSIONS_KEPT);
+            snapshotRepository.deleteVersionsUpTo(examScheduleId, version - VERSIONS_KEPT);
+        }
+
+        System.out.println("Published grades for exam schedule " + examScheduleId + " as version " + version +
+                " (" + snapshot.getEntryCount() + " grades)");
+
+        // Readers switch to the new version only once it is committed
+        GradeSnapshot published = snapshot;
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        Map<Long, GradeSnapshot> updated = new HashMap<>(state.snapshots());
+                        updated.put(examScheduleId, published);
+                        setCurrentSnapshots(updated);
+                    }
+                });
+        return snapshot;
+    }
+
+    @Override
+    public boolean isPublished(Long examScheduleId) {
+        return state.snapshots().containsKey(examScheduleId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean hasUnpublishedChanges(Long examScheduleId) {
+        Optional<GradeSnapshot> current = snapshotRepository.findTopByExamScheduleIdOrderByVersionDesc(examScheduleId);
+        if (current.isEmpty()) {
+            return false;
+        }
+        GradeSnapshot snapshot = current.get();
+        // Edited rows show up by timestamp; deleted or newly marked rows by a change in count
+        return gradeRepository.countByExamScheduleIdAndUpdatedAtAfter(examScheduleId, snapshot.getPublishedAt()) > 0
+                || gradeRepository.countByExamScheduleIdAndMarksObtainedIsNotNull(examScheduleId) != snapshot.getEntryCount();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GradeSnapshot> getVersions(Long examScheduleId) {
+        return snapshotRepository.findByExamScheduleIdOrderByVersionDesc(examScheduleId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PublishedGrades getPublishedGrades(Long studentId) {
+        SnapshotState current = state;
+        String etag = "\"" + studentId + "-" + current.fingerprint() + "\"";
+        PublishedGrades cached = studentCache.get(studentId);
+        if (cached != null && cached.etag().equals(etag)) {
+            return cached;
+        }
+        PublishedGrades loaded = load(studentId, etag, current.snapshots());
+        studentCache.put(studentId, loaded);
+        return loaded;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<StudentGradeRow> getPublishedGradeRows(Long studentId, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Map<Long, GradeSnapshot> bySnapshotId = new HashMap<>();
+        state.snapshots().values().forEach(snapshot -> bySnapshotId.put(snapshot.getId(), snapshot));
+        if (bySnapshotId.isEmpty()) {
+            return new KeysetPage<>(List.of(), null, false);
+        }
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<GradeSnapshotEntry> entries = position == null
+                ? entryRepository.findPageForStudent(bySnapshotId.keySet(), studentId, limit)
+                : entryRepository.findPageForStudentBefore(bySnapshotId.keySet(), studentId, position.id(), limit);
+        List<StudentGradeRow> rows = new ArrayList<>(entries.size());
+        for (GradeSnapshotEntry entry : entries) {
+            GradeSnapshot snapshot = bySnapshotId.get(entry.getSnapshotId());
+            rows.add(new StudentGradeRow(entry.getId(), snapshot.getPublishedAt(), snapshot.getExamScheduleId(),
+                    snapshot.getExamName(), snapshot.getAcademicYear(), snapshot.getExamDescription(),
+                    snapshot.getExamStartDate(), entry.getSubjectName(), entry.getSubjectCode(),
+                    entry.getMarksObtained(), entry.getTotalMarks(), entry.getPercentage(),
+                    entry.getLetterGrade(), entry.getGradePoint(), entry.getComments()));
+        }
+        return KeysetPage.of(rows, size, row -> KeysetCursor.of(row.entryId()));
+    }
+
+    private PublishedGrades load(Long studentId, String etag, Map<Long, GradeSnapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return new PublishedGrades(etag, List.of(), 0, 0, 0, BigDecimal.ZERO);
+        }
+        Map<Long, GradeSnapshot> bySnapshotId = new HashMap<>();
+        snapshots.values().forEach(snapshot -> bySnapshotId.put(snapshot.getId(), snapshot));
+
+        // Newest exam first, matching the live grades view
+        List<GradeSnapshot> ordered = new ArrayList<>(snapshots.values());
+        ordered.sort(Comparator.comparing(GradeSnapshot::getExamStartDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(GradeSnapshot::getExamScheduleId, Comparator.reverseOrder()));
+
+        Map<Long, List<StudentExamGrades.SubjectGrade>> gradesBySnapshot = new HashMap<>();
+        long passing = 0;
+        long excellent = 0;
+        long graded = 0;
+        BigDecimal gradePointSum = BigDecimal.ZERO;
+        for (GradeSnapshotEntry entry : entryRepository.findForStudent(bySnapshotId.keySet(), studentId)) {
+            gradesBySnapshot.computeIfAbsent(entry.getSnapshotId(), id -> new ArrayList<>())
+                    .add(new StudentExamGrades.SubjectGrade(entry.getSubjectName(), entry.getSubjectCode(),
+                            entry.getMarksObtained(), entry.getTotalMarks(), entry.getPercentage(),
+                            entry.getLetterGrade(), entry.getGradePoint(), entry.getComments()));
+            if (entry.getLetterGrade() != null && !"F".equals(entry.getLetterGrade())) {
+                passing++;
+            }
+            if ("A".equals(entry.getLetterGrade())) {
+                excellent++;
+            }
+            if (entry.getGradePoint() != null) {
+                graded++;
+                gradePointSum = gradePointSum.add(entry.getGradePoint());
+            }
+        }
+
+        List<StudentExamGrades> exams = new ArrayList<>();
+        long total = 0;
+        for (GradeSnapshot snapshot : ordered) {
+            List<StudentExamGrades.SubjectGrade> grades = gradesBySnapshot.get(snapshot.getId());
+            if (grades == null) {
+                continue;
+            }
+            total += grades.size();
+            exams.add(new StudentExamGrades(snapshot.getExamScheduleId(), snapshot.getExamName(),
+                    snapshot.getAcademicYear(), snapshot.getExamDescription(), List.copyOf(grades)));
+        }
+        BigDecimal average = graded > 0
+                ? gradePointSum.divide(BigDecimal.valueOf(graded), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        return new PublishedGrades(etag, List.copyOf(exams), total, passing, excellent, average);
+    }
+
+    private synchronized void setCurrentSnapshots(Map<Long, GradeSnapshot> snapshots) {
+        List<Long> ids = new ArrayList<>();
+        snapshots.values().forEach(snapshot -> ids.add(snapshot.getId()));
+        ids.sort(Comparator.naturalOrder());
+        CRC32 crc = new CRC32();
+        crc.update(ids.toString().getBytes(StandardCharsets.UTF_8));
+
+        String next = Long.toHexString(crc.getValue()) + Integer.toHexString(ids.size());
+        boolean changed = !Objects.equals(next, state.fingerprint());
+        state = new SnapshotState(Map.copyOf(snapshots), next);
+        if (changed) {
+            // Entries for the old fingerprint can never match again
+            studentCache.clear();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.wsims.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads marks sheets (CSV or XLSX) one row at a time and hands each row to a
+ * consumer, so the whole sheet is never materialised in memory. XLSX files are
+ * read straight from the zip with StAX; only the shared-strings table is kept,
+ * and it is capped at {@link #MAX_SHARED_STRINGS} entries and
+ * {@link #MAX_SHARED_STRING_CHARS} characters. CSV records may span lines inside
+ * quoted fields, up to {@link #MAX_CSV_RECORD_CHARS} characters per record.
+ */
+class GradebookFileReader {
+
+    // A marks sheet repeats names and codes, so its distinct strings stay far below these
+    static final int MAX_SHARED_STRINGS = 200_000;
+    static final long MAX_SHARED_STRING_CHARS = 16_000_000L;
+
+    // Bounds a record with an unterminated quote instead of reading the rest of the file into it
+    static final int MAX_CSV_RECORD_CHARS = 64_000;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private GradebookFileReader() {
+    }
+
+    static boolean isXlsx(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".xlsx");
+    }
+
+    static boolean isCsv(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".csv");
+    }
+
+    /**
+     * Stream every row of the file (header included) to {@code rowConsumer}.
+     */
+    static void read(Path file, String filename, Consumer<List<String>> rowConsumer) throws IOException {
+        if (isXlsx(filename)) {
+            readXlsx(file, rowConsumer);
+        } else {
+            readCsv(file, rowConsumer);
+        }
+    }
+
+    private static void readCsv(Path file, Consumer<List<String>> rowConsumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            boolean first = true;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (first && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                first = false;
+                if (line.isBlank()) {
+                    continue;
+                }
+                // A quoted field left open carries the record onto the next line
+                int startLine = lineNumber;
+                StringBuilder record = new StringBuilder(line);
+                while (hasOpenQuote(record)) {
+                    String next = reader.readLine();
+                    if (next == null) {
+                        throw new IOException("Unterminated quoted field in record starting at line " + startLine);
+                    }
+                    lineNumber++;
+                    record.append('\n').append(next);
+                    if (record.length() > MAX_CSV_RECORD_CHARS) {
+                        throw new IOException("Record starting at line " + startLine + " is longer than "
+                                + MAX_CSV_RECORD_CHARS + " characters; check for an unterminated quote");
+                    }
+                }
+                rowConsumer.accept(parseCsvLine(record.toString()));
+            }
+        }
+    }
+
+    // An odd number of quotes means a quoted field is still open ("" escapes count twice)
+    private static boolean hasOpenQuote(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 != 0;
+    }
+
+    // Minimal RFC 4180 field splitting for one record (quoted fields, "" escapes, line breaks inside quotes)
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString().trim());
+        return fields;
+    }
+
+    private static void readXlsx(Path file, Consumer<List<String>> rowConsumer) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<String> sharedStrings = readSharedStrings(zip);
+            ZipEntry sheet = findFirstSheet(zip);
+            if (sheet == null) {
+                throw new IOException("Workbook does not contain a worksheet");
+            }
+            try (InputStream in = zip.getInputStream(sheet)) {
+                readSheet(in, sharedStrings, rowConsumer);
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed XLSX file: " + e.getMessage(), e);
+        }
+    }
+
+    private static ZipEntry findFirstSheet(ZipFile zip) {
+        ZipEntry first = zip.getEntry("xl/worksheets/sheet1.xml");
+        if (first != null) {
+            return first;
+        }
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.getName().startsWith("xl/worksheets/") && entry.getName().endsWith(".xml")) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> readSharedStrings(ZipFile zip) throws IOException, XMLStreamException {
+        List<String> strings = new ArrayList<>();
+        ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+        if (entry == null) {
+            return strings;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            StringBuilder current = null;
+            boolean inText = false;
+            long totalChars = 0;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("si".equals(name)) {
+                        current = new StringBuilder();
+                    } else if ("t".equals(name)) {
+                        inText = true;
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && inText && current != null) {
+                    current.append(xml.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("t".equals(name)) {
+                        inText = false;
+                    } else if ("si".equals(name) && current != null) {
+                        totalChars += current.length();
+                        if (strings.size() >= MAX_SHARED_STRINGS || totalChars > MAX_SHARED_STRING_CHARS) {
+                            throw new IOException("Workbook has too much distinct text (limit " + MAX_SHARED_STRINGS
+                                    + " strings); save the sheet as CSV and import that instead");
+                        }
+                        strings.add(current.toString());
+                        current = null;
+                    }
+                }
+            }
+            xml.close();
+        }
+        return strings;
+    }
+
+    private static void readSheet(InputStream in, List<String> sharedStrings, Consumer<List<String>> rowConsumer)
+            throws XMLStreamException {
+        XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        List<String> row = null;
+        int column = 0;
+        String cellType = null;
+        StringBuilder value = new StringBuilder();
+        boolean inValue = false;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("row".equals(name)) {
+                    row = new ArrayList<>();
+                } else if ("c".equals(name)) {
+                    String ref = xml.getAttributeValue(null, "r");
+                    column = ref != null ? columnIndex(ref) : (row != null ? row.size() : 0);
+                    cellType = xml.getAttributeValue(null, "t");
+                    value.setLength(0);
+                } else if ("v".equals(name) || "t".equals(name)) {
+                    inValue = true;
+                }
+            } else if (event == XMLStreamConstants.CHARACTERS && inValue) {
+                value.append(xml.getText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("v".equals(name) || "t".equals(name)) {
+                    inValue = false;
+                } else if ("c".equals(name) && row != null) {
+                    String text = value.toString();
+                    if ("s".equals(cellType) && !text.isEmpty()) {
+                        int index = Integer.parseInt(text);
+                        if (index < 0 || index >= sharedStrings.size()) {
+                            throw new XMLStreamException("Cell refers to missing shared string " + index);
+                        }
+                        text = sharedStrings.get(index);
+                    }
+                    while (row.size() < column) {
+                        row.add("");
+                    }
+                    row.add(text.trim());
+                } else if ("row".equals(name) && row != null) {
+                    if (row.stream().anyMatch(cell -> !cell.isEmpty())) {
+                        rowConsumer.accept(row);
+                    }
+                    row = null;
+                }
+            }
+        }
+        xml.close();
+    }
+
+    // "AB12" -> 27 (zero-based column index)
+    private static int columnIndex(String cellRef) {
+        int index = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            index = index * 26 + (c - 'A' + 1);
+        }
+        return index - 1;
+    }
+}
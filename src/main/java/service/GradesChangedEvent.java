@@ -0,0 +1,11 @@
+package com.wsims.service;
+
+import java.util.Set;
+
+/**
+ * Published by {@link GradeServiceImpl} whenever grade rows for a course and exam
+ * schedule are created, updated or deleted. Listeners that keep derived data
+ * (aggregates, caches) use it to refresh only the affected students.
+ */
+public record GradesChangedEvent(Long courseId, Long examScheduleId, Set<Long> studentIds) {
+}
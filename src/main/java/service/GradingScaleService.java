@@ -0,0 +1,43 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.GradingScale;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface GradingScaleService {
+
+    /**
+     * Compiled scale for an academic year; the default scale when none is configured
+     */
+    CompiledGradingScale getCompiledScale(String academicYear);
+
+    /**
+     * All configured scales, newest academic year first
+     */
+    List<GradingScale> getAllScales();
+
+    Optional<GradingScale> getScale(String academicYear);
+
+    /**
+     * Create or replace the scale for an academic year. Once committed, stored
+     * letter grades and grade points of that year are recomputed in the background.
+     */
+    GradingScale saveScale(String academicYear, String name, List<GradingScale.Band> bands);
+
+    /**
+     * Remove an academic year's scale so it falls back to the default, then recompute its grades
+     */
+    void deleteScale(String academicYear);
+
+    /**
+     * Queue a background recompute of letter_grade and grade_point for an academic year
+     */
+    void recomputeGrades(String academicYear);
+
+    /**
+     * State of the last recompute for an academic year (state, changedRows, startedAt, finishedAt, error)
+     */
+    Map<String, Object> getRecomputeStatus(String academicYear);
+}
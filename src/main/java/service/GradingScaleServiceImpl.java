@@ -0,0 +1,205 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.GradingScale;
+import com.parami.wsims.repository.GradeBatchRepository;
+import com.parami.wsims.repository.GradingScaleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds every configured grading scale compiled in memory, so resolving a letter
+ * grade never touches the database. The snapshot is reloaded after each scale
+ * change commits and periodically, for changes made by other instances.
+ * Recompute progress and failures are reported through {@link #getRecomputeStatus}.
+ */
+@Service
+public class GradingScaleServiceImpl implements GradingScaleService {
+
+    // Grade id window per recompute batch, so no single statement locks a whole year of grades
+    private static final long RECOMPUTE_ID_WINDOW = 20_000;
+
+    // Percentage is numeric(5,2), so this is above any stored value
+    private static final BigDecimal PERCENTAGE_CEILING = new BigDecimal("1000");
+
+    private final GradingScaleRepository gradingScaleRepository;
+    private final GradeBatchRepository gradeBatchRepository;
+    private final StudentPerformanceService studentPerformanceService;
+
+    private volatile Map<String, CompiledGradingScale> compiledScales = Map.of();
+
+    private final Map<String, Map<String, Object>> recomputeStatus = new ConcurrentHashMap<>();
+
+    private final ExecutorService recomputeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "grading-scale-recompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public GradingScaleServiceImpl(GradingScaleRepository gradingScaleRepository,
+                                   GradeBatchRepository gradeBatchRepository,
+                                   StudentPerformanceService studentPerformanceService) {
+        this.gradingScaleRepository = gradingScaleRepository;
+        this.gradeBatchRepository = gradeBatchRepository;
+        this.studentPerformanceService = studentPerformanceService;
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${wsims.grading-scale.reload-ms:300000}", initialDelayString = "${wsims.grading-scale.reload-ms:300000}")
+    public void reloadScales() {
+        Map<String, CompiledGradingScale> loaded = new HashMap<>();
+        for (GradingScale scale : gradingScaleRepository.findAll()) {
+            try {
+                loaded.put(scale.getAcademicYear(), CompiledGradingScale.compile(scale.getBands()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring invalid grading scale for " + scale.getAcademicYear() + ": " + e.getMessage());
+            }
+        }
+        compiledScales = Map.copyOf(loaded);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recomputeExecutor.shutdownNow();
+    }
+
+    @Override
+    public CompiledGradingScale getCompiledScale(String academicYear) {
+        if (academicYear == null) {
+            return CompiledGradingScale.DEFAULT;
+        }
+        return compiledScales.getOrDefault(academicYear, CompiledGradingScale.DEFAULT);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<GradingScale> getAllScales() {
+        return gradingScaleRepository.findAllByOrderByAcademicYearDesc();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<GradingScale> getScale(String academicYear) {
+        return gradingScaleRepository.findByAcademicYear(academicYear);
+    }
+
+    @Override
+    @Transactional
+    public GradingScale saveScale(String academicYear, String name, List<GradingScale.Band> bands) {
+        if (academicYear == null || academicYear.isBlank()) {
+            throw new IllegalArgumentException("Academic year is required");
+        }
+        // Compiling validates the bands before anything is stored
+        CompiledGradingScale compiled = CompiledGradingScale.compile(bands);
+
+        GradingScale scale = gradingScaleRepository.findByAcademicYear(academicYear).orElseGet(GradingScale::new);
+        scale.setAcademicYear(academicYear);
+        scale.setName(name);
+        scale.getBands().clear();
+        scale.getBands().addAll(compiled.getBands());
+        GradingScale saved = gradingScaleRepository.save(scale);
+
+        afterCommit(academicYear);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void deleteScale(String academicYear) {
+        GradingScale scale = gradingScaleRepository.findByAcademicYear(academicYear)
+                .orElseThrow(() -> new IllegalArgumentException("No grading scale for academic year " + academicYear));
+        gradingScaleRepository.delete(scale);
+        afterCommit(academicYear);
+    }
+
+    @Override
+    public void recomputeGrades(String academicYear) {
+        Map<String, Object> status = new ConcurrentHashMap<>();
+        status.put("state", "QUEUED");
+        status.put("queuedAt", LocalDateTime.now());
+        recomputeStatus.put(academicYear, status);
+        recomputeExecutor.submit(() -> runRecompute(academicYear, status));
+    }
+
+    @Override
+    public Map<String, Object> getRecomputeStatus(String academicYear) {
+        Map<String, Object> status = recomputeStatus.get(academicYear);
+        return status != null ? new LinkedHashMap<>(status) : Map.of("state", "NONE");
+    }
+
+    /**
+     * Reload the compiled scales and start the recompute once the scale change is visible to other connections
+     */
+    private void afterCommit(String academicYear) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reloadScales();
+                    recomputeGrades(academicYear);
+                }
+            });
+        } else {
+            reloadScales();
+            recomputeGrades(academicYear);
+        }
+    }
+
+    private void runRecompute(String academicYear, Map<String, Object> status) {
+        status.put("state", "RUNNING");
+        status.put("startedAt", LocalDateTime.now());
+        try {
+            List<GradeBatchRepository.RescaleBand> bands = toRescaleBands(getCompiledScale(academicYear));
+            long changed = 0;
+            long[] range = gradeBatchRepository.findGradeIdRange(academicYear);
+            if (range != null) {
+                for (long from = range[0]; from <= range[1]; from += RECOMPUTE_ID_WINDOW) {
+                    long to = Math.min(from + RECOMPUTE_ID_WINDOW - 1, range[1]);
+                    changed += gradeBatchRepository.rescaleGrades(academicYear, bands, from, to);
+                    status.put("changedRows", changed);
+                }
+            }
+            status.put("changedRows", changed);
+
+            // Letter counts and GPA in the exam aggregates depend on the stored letter grades
+            if (changed > 0) {
+                studentPerformanceService.rebuildAll();
+            }
+            status.put("state", "COMPLETED");
+        } catch (Exception e) {
+            status.put("state", "FAILED");
+            status.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            status.put("finishedAt", LocalDateTime.now());
+        }
+    }
+
+    private static List<GradeBatchRepository.RescaleBand> toRescaleBands(CompiledGradingScale scale) {
+        List<GradeBatchRepository.RescaleBand> bands = new ArrayList<>();
+        BigDecimal upper = PERCENTAGE_CEILING;
+        for (GradingScale.Band band : scale.getBands()) {
+            bands.add(new GradeBatchRepository.RescaleBand(band.getMinPercentage(), upper,
+                    band.getLetterGrade(), band.getGradePoint()));
+            upper = band.getMinPercentage();
+        }
+        return bands;
+    }
+}
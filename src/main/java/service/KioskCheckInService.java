@@ -0,0 +1,48 @@
+package com.wsims.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface KioskCheckInService {
+
+    /**
+     * What happened to one scanned check-in
+     */
+    enum Outcome {
+        ACCEPTED,
+        DUPLICATE,
+        UNKNOWN_STUDENT,
+        QUEUE_FULL,
+        UNAVAILABLE
+    }
+
+    /**
+     * One scan as posted by a kiosk
+     */
+    record Scan(Long studentId, LocalDateTime scannedAt) {
+    }
+
+    /**
+     * Queue a check-in for write-behind. Returns as soon as the event is buffered;
+     * the attendance row is written by the next flush.
+     */
+    Outcome submit(Long studentId, LocalDateTime scannedAt);
+
+    /**
+     * Queue a request's scans together, returning one outcome per scan in order. Unknown
+     * students are rejected up front, and queue space is reserved for every new scan at
+     * once: if it does not fit, none of them is queued and each gets QUEUE_FULL.
+     */
+    List<Outcome> submitAll(List<Scan> scans);
+
+    /**
+     * Write everything currently buffered and return the number of attendance rows inserted
+     */
+    int flush();
+
+    /**
+     * Queue depth and counters since startup
+     */
+    Map<String, Object> getStatus();
+}
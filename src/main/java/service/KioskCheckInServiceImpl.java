@@ -0,0 +1,321 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.Attendance;
+import com.parami.wsims.entity.Subject;
+import com.parami.wsims.repository.AttendanceBatchRepository;
+import com.parami.wsims.repository.SubjectRepository;
+import com.parami.wsims.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for gate kiosk check-ins. Scans are acknowledged as soon as they
+ * are queued; a single flusher drains the queue in batches when it reaches
+ * {@code batchSize} or every {@code flushMs}, whichever comes first, and inserts one
+ * attendance row per student and day against the configured gate subject. Repeat
+ * scans of the same student on the same day are dropped in memory before they reach
+ * the queue, and rows already in the table are left alone by the insert itself.
+ * A (student, day) only counts as done once its batch has committed; until then a
+ * repeat scan is treated as a duplicate of the queued one, and a failed batch is
+ * re-queued rather than forgotten.
+ */
+@Service
+public class KioskCheckInServiceImpl implements KioskCheckInService {
+
+    private static final int ID_LOOKUP_CHUNK = 1000;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final AttendanceBatchRepository attendanceBatchRepository;
+    private final SubjectRepository subjectRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${wsims.kiosk.subject-code:HOMEROOM}")
+    private String subjectCode;
+
+    @Value("${wsims.kiosk.late-after:08:15}")
+    private LocalTime lateAfter;
+
+    @Value("${wsims.kiosk.capacity:10000}")
+    private int capacity;
+
+    @Value("${wsims.kiosk.batch-size:500}")
+    private int batchSize;
+
+    private record CheckIn(long studentId, LocalDate date, LocalTime time) {
+    }
+
+    private record StudentDay(long studentId, LocalDate date) {
+    }
+
+    private final ConcurrentLinkedQueue<CheckIn> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // Keys queued but not yet written, and keys whose row is committed
+    private final Set<StudentDay> pending = ConcurrentHashMap.newKeySet();
+    private final Set<StudentDay> seen = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "kiosk-check-in-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private volatile boolean accepting = true;
+
+    private volatile Long subjectId;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong unknown = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private volatile LocalDateTime lastFlushAt;
+
+    @Autowired
+    public KioskCheckInServiceImpl(AttendanceBatchRepository attendanceBatchRepository,
+                                   SubjectRepository subjectRepository,
+                                   UserRepository userRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager) {
+        this.attendanceBatchRepository = attendanceBatchRepository;
+        this.subjectRepository = subjectRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Outcome submit(Long studentId, LocalDateTime scannedAt) {
+        return submitAll(List.of(new Scan(studentId, scannedAt))).get(0);
+    }
+
+    @Override
+    public List<Outcome> submitAll(List<Scan> scans) {
+        List<Outcome> outcomes = new ArrayList<>(Collections.nCopies(scans.size(), (Outcome) null));
+        if (!accepting || resolveSubjectId() == null) {
+            Collections.fill(outcomes, Outcome.UNAVAILABLE);
+            return outcomes;
+        }
+        // One lookup per request keeps unknown ids out of the queue without a query per scan
+        Set<Long> knownStudents = findExistingStudents(scans.stream().map(Scan::studentId).distinct().toList());
+
+        List<Integer> fresh = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) {
+            Scan scan = scans.get(i);
+            if (!knownStudents.contains(scan.studentId())) {
+                unknown.incrementAndGet();
+                outcomes.set(i, Outcome.UNKNOWN_STUDENT);
+                continue;
+            }
+            StudentDay key = new StudentDay(scan.studentId(), scan.scannedAt().toLocalDate());
+            if (seen.contains(key) || !pending.add(key)) {
+                duplicates.incrementAndGet();
+                outcomes.set(i, Outcome.DUPLICATE);
+                continue;
+            }
+            fresh.add(i);
+        }
+        if (fresh.isEmpty()) {
+            return outcomes;
+        }
+
+        // Reserve room for every new scan of the request, or for none of them
+        int count = fresh.size();
+        int size;
+        do {
+            size = queued.get();
+            if (size + count > capacity) {
+                // Forget the keys so the kiosk can retry once the queue drains
+                for (int i : fresh) {
+                    Scan scan = scans.get(i);
+                    pending.remove(new StudentDay(scan.studentId(), scan.scannedAt().toLocalDate()));
+                    outcomes.set(i, Outcome.QUEUE_FULL);
+                }
+                rejected.addAndGet(count);
+                return outcomes;
+            }
+        } while (!queued.compareAndSet(size, size + count));
+        for (int i : fresh) {
+            Scan scan = scans.get(i);
+            queue.offer(new CheckIn(scan.studentId(), scan.scannedAt().toLocalDate(), scan.scannedAt().toLocalTime()));
+            outcomes.set(i, Outcome.ACCEPTED);
+        }
+        accepted.addAndGet(count);
+
+        if (size + count >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+        return outcomes;
+    }
+
+    @Scheduled(fixedDelayString = "${wsims.kiosk.flush-ms:2000}")
+    public void scheduledFlush() {
+        flush();
+        LocalDate today = LocalDate.now();
+        seen.removeIf(key -> key.date().isBefore(today.minusDays(1)));
+    }
+
+    @Override
+    public int flush() {
+        synchronized (flushLock) {
+            int total = 0;
+            List<CheckIn> batch = new ArrayList<>(Math.min(batchSize, Math.max(queued.get(), 1)));
+            while (true) {
+                batch.clear();
+                CheckIn checkIn;
+                while (batch.size() < batchSize && (checkIn = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    batch.add(checkIn);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    total += writeBatch(batch);
+                    // Committed: later scans of these students that day are duplicates
+                    for (CheckIn written : batch) {
+                        StudentDay key = new StudentDay(written.studentId(), written.date());
+                        seen.add(key);
+                        pending.remove(key);
+                    }
+                } catch (Exception e) {
+                    // Put the batch back so the next flush retries it, and stop draining for now
+                    System.err.println("Kiosk check-in flush failed, " + batch.size() + " events re-queued: " + e.getMessage());
+                    for (CheckIn retry : batch) {
+                        queue.offer(retry);
+                        queued.incrementAndGet();
+                    }
+                    break;
+                }
+            }
+            if (total > 0) {
+                inserted.addAndGet(total);
+                lastFlushAt = LocalDateTime.now();
+            }
+            return total;
+        }
+    }
+
+    private int writeBatch(List<CheckIn> batch) {
+        Long gateSubjectId = resolveSubjectId();
+        // Checked again in case a student was removed while the scan was queued
+        Set<Long> knownStudents = findExistingStudents(batch.stream().map(CheckIn::studentId).distinct().toList());
+
+        Map<LocalDate, List<AttendanceBatchRepository.AttendanceRow>> rowsByDate = new LinkedHashMap<>();
+        for (CheckIn checkIn : batch) {
+            if (!knownStudents.contains(checkIn.studentId())) {
+                continue;
+            }
+            Attendance.AttendanceStatus status = checkIn.time().isAfter(lateAfter)
+                    ? Attendance.AttendanceStatus.LATE
+                    : Attendance.AttendanceStatus.PRESENT;
+            rowsByDate.computeIfAbsent(checkIn.date(), d -> new ArrayList<>())
+                    .add(new AttendanceBatchRepository.AttendanceRow(null, checkIn.studentId(), status.name(),
+                            "Kiosk check-in at " + checkIn.time().format(TIME_FORMAT)));
+        }
+
+        Integer written = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (Map.Entry<LocalDate, List<AttendanceBatchRepository.AttendanceRow>> entry : rowsByDate.entrySet()) {
+                List<AttendanceBatchRepository.AttendanceRow> insertedRows =
+                        attendanceBatchRepository.batchInsertIfAbsent(entry.getValue(), gateSubjectId, entry.getKey(), null);
+                if (!insertedRows.isEmpty()) {
+                    Set<Long> studentIds = insertedRows.stream()
+                            .map(AttendanceBatchRepository.AttendanceRow::studentId)
+                            .collect(Collectors.toSet());
+                    eventPublisher.publishEvent(new AttendanceChangedEvent(gateSubjectId, entry.getKey(), studentIds));
+                    count += insertedRows.size();
+                }
+            }
+            return count;
+        });
+        return written != null ? written : 0;
+    }
+
+    private Set<Long> findExistingStudents(List<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        for (int i = 0; i < ids.size(); i += ID_LOOKUP_CHUNK) {
+            existing.addAll(userRepository.findExistingStudentIds(ids.subList(i, Math.min(i + ID_LOOKUP_CHUNK, ids.size()))));
+        }
+        return existing;
+    }
+
+    private Long resolveSubjectId() {
+        Long id = subjectId;
+        if (id == null) {
+            id = subjectRepository.findBySubjectCode(subjectCode).map(Subject::getId).orElse(null);
+            if (id == null) {
+                System.err.println("Kiosk check-in subject '" + subjectCode + "' not found; check-ins are disabled");
+            }
+            subjectId = id;
+        }
+        return id;
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("accepting", accepting);
+        status.put("subjectCode", subjectCode);
+        status.put("queued", queued.get());
+        status.put("capacity", capacity);
+        status.put("accepted", accepted.get());
+        status.put("duplicates", duplicates.get());
+        status.put("unknownStudents", unknown.get());
+        status.put("rejected", rejected.get());
+        status.put("inserted", inserted.get());
+        status.put("lastFlushAt", lastFlushAt);
+        return status;
+    }
+
+    /**
+     * Stop taking new scans, let any triggered flush finish, then write what is left
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        System.out.println("Kiosk check-in buffer drained on shutdown: " + written + " rows written, " +
+                queued.get() + " left queued");
+    }
+}
@@ -1,5 +1,6 @@
 package com.wsims.service;
 
+import com.parami.wsims.dto.KeysetPage;
 import com.parami.wsims.entity.Message;
 import com.parami.wsims.entity.User;
 import org.springframework.data.domain.Page;
@@ -58,6 +59,11 @@ public interface MessageService {
      */
     Page<Message> getReceivedMessages(Long userId, Pageable pageable);
 
+    /**
+     * Get a keyset page of messages received by a user (newest first) after the given cursor token
+     */
+    KeysetPage<Message> getReceivedMessages(Long userId, String cursor, int size);
+
     /**
      * Search messages by content for a user
      */
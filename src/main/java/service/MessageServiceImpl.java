@@ -1,10 +1,13 @@
 package com.wsims.service;
 
+import com.parami.wsims.dto.KeysetCursor;
+import com.parami.wsims.dto.KeysetPage;
 import com.parami.wsims.entity.Message;
 import com.parami.wsims.entity.User;
 import com.parami.wsims.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -100,6 +103,17 @@ public class MessageServiceImpl implements MessageService {
         return messageRepository.findByRecipientId(userId, pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Message> getReceivedMessages(Long userId, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Message> rows = position == null
+                ? messageRepository.findByRecipientIdFirstPage(userId, limit)
+                : messageRepository.findByRecipientIdBefore(userId, position.timestamp(), position.id(), limit);
+        return KeysetPage.of(rows, size, m -> KeysetCursor.of(m.getCreatedAt(), m.getId()));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<Message> searchMessages(Long userId, String searchTerm, Pageable pageable) {
@@ -0,0 +1,25 @@
+package com.wsims.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface ReportBatchService {
+
+    /**
+     * Students covered by a batch: the active enrollments of a course, or the students of a grade level
+     * @param courseId course to cover, or null to use the grade level
+     * @param gradeLevel grade level to cover when no course is given
+     * @return student (user) ids in ascending order
+     */
+    List<Long> resolveStudents(Long courseId, String gradeLevel);
+
+    /**
+     * Render report cards for the given students in parallel and write each one into a ZIP on
+     * {@code out} as soon as it is ready. Students whose report card fails are listed in an
+     * errors.txt entry at the end instead of failing the whole batch.
+     * @return number of report cards written
+     */
+    int writeReportCardZip(List<Long> studentIds, Long examScheduleId, String termName, Long templateId,
+                           OutputStream out) throws IOException;
+}
@@ -0,0 +1,161 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.ExamSchedule;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.repository.EnrollmentRepository;
+import com.parami.wsims.repository.StudentRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Batch report cards. PDFs are rendered on a fixed pool shared by all batches, so
+ * concurrent batches cannot oversubscribe the CPU, and each batch keeps at most
+ * {@code IN_FLIGHT_PER_THREAD} renders per thread outstanding. Finished PDFs are
+ * written to the ZIP in completion order and dropped, so a batch holds only a few
+ * PDFs in memory whatever its size.
+ */
+@Service
+public class ReportBatchServiceImpl implements ReportBatchService {
+
+    private static final int IN_FLIGHT_PER_THREAD = 2;
+
+    private final ReportGenerationService reportGenerationService;
+    private final ReportCardCacheService reportCardCacheService;
+    private final EnrollmentRepository enrollmentRepository;
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService renderPool;
+    private final int threads;
+
+    private record RenderedCard(String filename, byte[] pdf) {
+    }
+
+    @Autowired
+    public ReportBatchServiceImpl(ReportGenerationService reportGenerationService,
+                                  ReportCardCacheService reportCardCacheService,
+                                  EnrollmentRepository enrollmentRepository,
+                                  StudentRepository studentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${wsims.reports.batch-threads:0}") int configuredThreads) {
+        this.reportGenerationService = reportGenerationService;
+        this.reportCardCacheService = reportCardCacheService;
+        this.enrollmentRepository = enrollmentRepository;
+        this.studentRepository = studentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.threads = configuredThreads > 0 ? configuredThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "report-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<Long> resolveStudents(Long courseId, String gradeLevel) {
+        if (courseId != null) {
+            return enrollmentRepository.findActiveStudentIdsByCourseId(courseId);
+        }
+        if (gradeLevel != null && !gradeLevel.isBlank()) {
+            return studentRepository.findUserIdsByGradeLevel(gradeLevel.trim());
+        }
+        throw new IllegalArgumentException("Either courseId or gradeLevel is required");
+    }
+
+    @Override
+    public int writeReportCardZip(List<Long> studentIds, Long examScheduleId, String termName, Long templateId,
+                                  OutputStream out) throws IOException {
+        ExamSchedule examSchedule = reportGenerationService.getExamScheduleForReport(examScheduleId);
+        String examPart = examSchedule.getExamName().replaceAll("\\s+", "_");
+
+        CompletionService<RenderedCard> completion = new ExecutorCompletionService<>(renderPool);
+        List<Future<RenderedCard>> pending = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        int next = 0;
+        int inFlight = 0;
+        int written = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            while (next < studentIds.size() || inFlight > 0) {
+                while (next < studentIds.size() && inFlight < maxInFlight) {
+                    Long studentId = studentIds.get(next++);
+                    pending.add(completion.submit(() -> render(studentId, examScheduleId, termName, templateId, examPart)));
+                    inFlight++;
+                }
+
+                Future<RenderedCard> done = completion.take();
+                pending.remove(done);
+                inFlight--;
+                try {
+                    RenderedCard card = done.get();
+                    zip.putNextEntry(new ZipEntry(card.filename()));
+                    zip.write(card.pdf());
+                    zip.closeEntry();
+                    // Push each finished entry to the client rather than letting the stream buffer it
+                    zip.flush();
+                    written++;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    errors.add(cause.getMessage());
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("errors.txt"));
+                zip.write(String.join(System.lineSeparator(), errors).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+            System.out.println("Report card batch for exam schedule " + examScheduleId + ": " + written + " written, " +
+                    errors.size() + " failed");
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Report card batch interrupted", e);
+        } finally {
+            // Client disconnects and failures leave renders queued; don't let them run for nobody
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private RenderedCard render(Long studentId, Long examScheduleId, String termName, Long templateId, String examPart) {
+        try {
+            // Render threads have no open session of their own, so lazy associations need a transaction
+            return readOnlyTransaction.execute(status -> {
+                User student = reportGenerationService.getStudentForReport(studentId);
+                byte[] pdf = reportCardCacheService.getReportCard(studentId, examScheduleId, termName, templateId);
+                return new RenderedCard("ReportCard_" + student.getUsername() + "_" + examPart + ".pdf", pdf);
+            });
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Student " + studentId + ": " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+}
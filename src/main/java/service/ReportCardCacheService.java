@@ -0,0 +1,58 @@
+package com.wsims.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+public interface ReportCardCacheService {
+
+    /**
+     * Occupancy of the on-disk cache
+     */
+    record CacheStatus(int entries, long bytes, long maxBytes, long hits, long misses) {
+    }
+
+    /**
+     * A report card ready to be written to a response: either an open cached file or a
+     * render that runs when written. Must be closed once written or abandoned.
+     */
+    interface ReportCardBody extends Closeable {
+
+        /**
+         * Size of the PDF in bytes, or -1 when it is rendered as it is written
+         */
+        long contentLength();
+
+        /**
+         * Write the PDF to a stream, leaving the stream open
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * The report card PDF for a student and exam schedule, served from the disk cache when
+     * the grades and template it was rendered from are unchanged, otherwise rendered and stored
+     */
+    byte[] getReportCard(Long studentId, Long examScheduleId, String termName, Long templateId);
+
+    /**
+     * The same report card as {@link #getReportCard}, to be streamed rather than held in memory
+     */
+    ReportCardBody openReportCard(Long studentId, Long examScheduleId, String termName, Long templateId);
+
+    /**
+     * Drop every cached report card of the given students for one exam schedule
+     */
+    void evictStudents(Long examScheduleId, Collection<Long> studentIds);
+
+    /**
+     * Drop every cached report card rendered with a template
+     */
+    void evictTemplate(Long templateId);
+
+    /**
+     * Current size of the cache
+     */
+    CacheStatus getStatus();
+}
@@ -0,0 +1,522 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.ReportTemplate;
+import com.parami.wsims.entity.StudentExamPerformance;
+import com.parami.wsims.repository.ReportTemplateRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Rendered report cards kept as files in a local directory. A file is named after the
+ * student, exam schedule and template plus a digest of the grade-data version (the
+ * updated_at of the student's performance aggregate, rewritten on every grade change),
+ * the template's updated_at and the term name, so a changed grade or template simply
+ * misses. Grade and template changes also delete the superseded files straight away.
+ * The directory is LRU-bounded at {@code maxBytes}; files older than {@code maxAgeHours}
+ * are re-rendered to pick up changes the key does not cover, such as a renamed student.
+ *
+ * Downloads are streamed: a hit is copied from the open file with its length known, and
+ * a miss is rendered straight into the response while being teed into the cache file.
+ */
+@Service
+public class ReportCardCacheServiceImpl implements ReportCardCacheService {
+
+    private static final String SUFFIX = ".pdf";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ReportGenerationService reportGenerationService;
+    private final StudentPerformanceService studentPerformanceService;
+    private final ReportTemplateRepository templateRepository;
+
+    @Value("${wsims.reports.pdf-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wsims.reports.pdf-cache.dir:${java.io.tmpdir}/wsims-report-cache}")
+    private String directoryName;
+
+    @Value("${wsims.reports.pdf-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    @Value("${wsims.reports.pdf-cache.max-age-hours:24}")
+    private long maxAgeHours;
+
+    private record Entry(long size, long storedAt) {
+    }
+
+    // File name -> entry, in access order; guarded by itself together with totalBytes
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private Path directory;
+
+    @Autowired
+    public ReportCardCacheServiceImpl(ReportGenerationService reportGenerationService,
+                                      StudentPerformanceService studentPerformanceService,
+                                      ReportTemplateRepository templateRepository) {
+        this.reportGenerationService = reportGenerationService;
+        this.studentPerformanceService = studentPerformanceService;
+        this.templateRepository = templateRepository;
+    }
+
+    /**
+     * Pick up the files left by the previous run, oldest first, and drop unfinished writes
+     */
+    @PostConstruct
+    public void loadIndex() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = Files.createDirectories(Paths.get(directoryName));
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+            List<Path> cached = new ArrayList<>();
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(SUFFIX)) {
+                    cached.add(file);
+                } else if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            cached.sort(Comparator.comparingLong(this::lastModified));
+            List<String> evicted;
+            synchronized (index) {
+                for (Path file : cached) {
+                    long size = Files.size(file);
+                    index.put(file.getFileName().toString(), new Entry(size, lastModified(file)));
+                    totalBytes += size;
+                }
+                evicted = trim();
+            }
+            deleteFiles(evicted);
+            System.out.println("Report card cache at " + directory + ": " + index.size() + " files, " + totalBytes + " bytes");
+        } catch (IOException e) {
+            System.err.println("Report card cache disabled, cannot use " + directoryName + ": " + e.getMessage());
+            directory = null;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGradesChanged(GradesChangedEvent event) {
+        evictStudents(event.examScheduleId(), event.studentIds());
+    }
+
+    @Override
+    public byte[] getReportCard(Long studentId, Long examScheduleId, String termName, Long templateId) {
+        if (directory == null) {
+            return render(studentId, examScheduleId, termName, templateId);
+        }
+        String name = entryName(studentId, examScheduleId, termName, templateId);
+        byte[] cached = read(name);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        byte[] pdf = render(studentId, examScheduleId, termName, templateId);
+        store(name, pdf);
+        return pdf;
+    }
+
+    @Override
+    public ReportCardBody openReportCard(Long studentId, Long examScheduleId, String termName, Long templateId) {
+        if (directory == null) {
+            return new RenderedBody(studentId, examScheduleId, termName, templateId, null);
+        }
+        String name = entryName(studentId, examScheduleId, termName, templateId);
+        FileChannel cached = open(name);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return new CachedBody(cached);
+        }
+        misses.incrementAndGet();
+        return new RenderedBody(studentId, examScheduleId, termName, templateId, name);
+    }
+
+    @Override
+    public void evictStudents(Long examScheduleId, Collection<Long> studentIds) {
+        if (examScheduleId == null || studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        Set<String> prefixes = new HashSet<>();
+        for (Long studentId : studentIds) {
+            prefixes.add(studentPrefix(studentId, examScheduleId));
+        }
+        evict(name -> prefixes.contains(name.substring(0, name.indexOf("-t") + 1)));
+    }
+
+    @Override
+    public void evictTemplate(Long templateId) {
+        if (templateId == null) {
+            return;
+        }
+        String marker = "-t" + templateId + "-";
+        evict(name -> name.contains(marker));
+    }
+
+    @Override
+    public CacheStatus getStatus() {
+        synchronized (index) {
+            return new CacheStatus(index.size(), totalBytes, maxBytes, hits.get(), misses.get());
+        }
+    }
+
+    private byte[] render(Long studentId, Long examScheduleId, String termName, Long templateId) {
+        return reportGenerationService.generateStudentReportCard(studentId, examScheduleId, termName, templateId)
+                .toByteArray();
+    }
+
+    private String entryName(Long studentId, Long examScheduleId, String termName, Long templateId) {
+        String gradeVersion = studentPerformanceService.getPerformance(studentId, examScheduleId)
+                .map(StudentExamPerformance::getUpdatedAt)
+                .map(Object::toString)
+                .orElse("none");
+        String templateVersion = "none";
+        if (templateId != null) {
+            templateVersion = templateRepository.findById(templateId)
+                    .map(this::templateVersion)
+                    .orElse("missing");
+        }
+        String version = gradeVersion + "|" + templateVersion + "|" + (termName != null ? termName : "");
+        return studentPrefix(studentId, examScheduleId) + "t" + (templateId != null ? templateId : 0) + "-" +
+                digest(version) + SUFFIX;
+    }
+
+    private String templateVersion(ReportTemplate template) {
+        return String.valueOf(template.getUpdatedAt() != null ? template.getUpdatedAt() : template.getCreatedAt());
+    }
+
+    private static String studentPrefix(Long studentId, Long examScheduleId) {
+        return "s" + studentId + "-e" + examScheduleId + "-";
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 12; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // The file of a live entry, marking it recently used; an expired entry is dropped
+    private Path lookup(String name) {
+        Entry entry;
+        boolean expired = false;
+        synchronized (index) {
+            entry = index.get(name);
+            if (entry != null && System.currentTimeMillis() - entry.storedAt() > maxAgeHours * 3_600_000L) {
+                remove(name);
+                expired = true;
+            }
+        }
+        if (expired) {
+            deleteFiles(List.of(name));
+            return null;
+        }
+        return entry != null ? directory.resolve(name) : null;
+    }
+
+    private byte[] read(String name) {
+        Path file = lookup(name);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            // Evicted by another thread between the lookup and the read
+            forget(name);
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error reading cached report card " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // An open channel keeps the file readable even if it is evicted while being sent
+    private FileChannel open(String name) {
+        Path file = lookup(name);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            forget(name);
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error opening cached report card " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String name, byte[] pdf) {
+        if (pdf.length > maxBytes) {
+            return;
+        }
+        try {
+            Path temp = Files.createTempFile(directory, "render-", TEMP_SUFFIX);
+            Files.write(temp, pdf);
+            publish(name, temp, pdf.length);
+        } catch (IOException e) {
+            System.err.println("Error caching report card " + name + ": " + e.getMessage());
+        }
+    }
+
+    // Files are written aside and moved into place so readers never see a partial file
+    private void publish(String name, Path temp, long size) throws IOException {
+        if (size > maxBytes) {
+            Files.deleteIfExists(temp);
+            return;
+        }
+        Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        List<String> evicted;
+        synchronized (index) {
+            remove(name);
+            index.put(name, new Entry(size, System.currentTimeMillis()));
+            totalBytes += size;
+            evicted = trim();
+        }
+        deleteFiles(evicted);
+    }
+
+    private void forget(String name) {
+        synchronized (index) {
+            remove(name);
+        }
+    }
+
+    private void evict(Predicate<String> match) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> entry = it.next();
+                if (match.test(entry.getKey())) {
+                    totalBytes -= entry.getValue().size();
+                    evicted.add(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        deleteFiles(evicted);
+    }
+
+    // Caller holds the index lock
+    private void remove(String name) {
+        Entry previous = index.remove(name);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+    }
+
+    // Caller holds the index lock; returns the least recently used files dropped to get under budget
+    private List<String> trim() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            totalBytes -= eldest.getValue().size();
+            evicted.add(eldest.getKey());
+            it.remove();
+        }
+        return evicted;
+    }
+
+    private void deleteFiles(List<String> names) {
+        for (String name : names) {
+            try {
+                Files.deleteIfExists(directory.resolve(name));
+            } catch (IOException e) {
+                System.err.println("Error deleting cached report card " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A cached file, sent from an already open channel so its length is known up front
+     */
+    private static final class CachedBody implements ReportCardBody {
+
+        private final FileChannel channel;
+
+        CachedBody(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public long contentLength() {
+            try {
+                return channel.size();
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            long size = channel.size();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * A render written straight to the response and, when {@code name} is set, teed into
+     * a temporary file that becomes the cache entry once the PDF is complete
+     */
+    private final class RenderedBody implements ReportCardBody {
+
+        private final Long studentId;
+        private final Long examScheduleId;
+        private final String termName;
+        private final Long templateId;
+        private final String name;
+
+        RenderedBody(Long studentId, Long examScheduleId, String termName, Long templateId, String name) {
+            this.studentId = studentId;
+            this.examScheduleId = examScheduleId;
+            this.termName = termName;
+            this.templateId = templateId;
+            this.name = name;
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (name == null) {
+                reportGenerationService.writeStudentReportCard(studentId, examScheduleId, termName, templateId, out);
+                out.flush();
+                return;
+            }
+            Path temp = Files.createTempFile(directory, "render-", TEMP_SUFFIX);
+            boolean published = false;
+            try {
+                TeeOutputStream tee;
+                try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                    tee = new TeeOutputStream(out, file);
+                    reportGenerationService.writeStudentReportCard(studentId, examScheduleId, termName, templateId, tee);
+                    tee.flush();
+                }
+                try {
+                    publish(name, temp, tee.written);
+                    published = true;
+                } catch (IOException e) {
+                    System.err.println("Error caching report card " + name + ": " + e.getMessage());
+                }
+            } finally {
+                if (!published) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Copies everything written to the response into the cache file as well; closing it
+     * leaves the response open
+     */
+    private static final class TeeOutputStream extends OutputStream {
+
+        private final OutputStream primary;
+        private final OutputStream copy;
+        private long written;
+
+        TeeOutputStream(OutputStream primary, OutputStream copy) {
+            this.primary = primary;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            primary.write(b);
+            copy.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            primary.write(b, off, len);
+            copy.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            primary.flush();
+            copy.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.parami.wsims.entity.User;
 import com.parami.wsims.entity.ExamSchedule;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 public interface ReportGenerationService {
     
@@ -32,6 +33,17 @@ public interface ReportGenerationService {
      * @param templateId optional template id to use for header/footer
      */
     ByteArrayOutputStream generateStudentReportCard(Long studentId, Long examScheduleId, String termName, Long templateId);
+
+    /**
+     * Render a PDF report card straight into a stream, without buffering the document.
+     * Pages are written out as they are laid out and the stream is left open.
+     * @param studentId student identifier
+     * @param examScheduleId exam schedule identifier
+     * @param termName optional custom term name
+     * @param templateId optional template id to use for header/footer
+     * @param outputStream destination of the PDF bytes
+     */
+    void writeStudentReportCard(Long studentId, Long examScheduleId, String termName, Long templateId, OutputStream outputStream);
     
     /**
      * Get student information for report generation
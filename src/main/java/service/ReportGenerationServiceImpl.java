@@ -1,22 +1,23 @@
 package com.wsims.service;
 
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.*;
 import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
 import com.parami.wsims.entity.*;
 import com.parami.wsims.repository.GradeRepository;
 import com.parami.wsims.repository.UserRepository;
 import com.parami.wsims.repository.ExamScheduleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ReportGenerationServiceImpl implements ReportGenerationService {
@@ -25,16 +26,22 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
     private final UserRepository userRepository;
     private final ExamScheduleRepository examScheduleRepository;
     private final com.parami.wsims.repository.ReportTemplateRepository templateRepository;
+    private final StudentPerformanceService studentPerformanceService;
+    private final ReportRenderingContext renderingContext;
 
     @Autowired
     public ReportGenerationServiceImpl(GradeRepository gradeRepository,
                                      UserRepository userRepository,
                                      ExamScheduleRepository examScheduleRepository,
-                                     com.parami.wsims.repository.ReportTemplateRepository templateRepository) {
+                                     com.parami.wsims.repository.ReportTemplateRepository templateRepository,
+                                     StudentPerformanceService studentPerformanceService,
+                                     ReportRenderingContext renderingContext) {
         this.gradeRepository = gradeRepository;
         this.userRepository = userRepository;
         this.examScheduleRepository = examScheduleRepository;
         this.templateRepository = templateRepository;
+        this.studentPerformanceService = studentPerformanceService;
+        this.renderingContext = renderingContext;
     }
 
     @Override
@@ -44,6 +51,20 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
 
     @Override
     public ByteArrayOutputStream generateStudentReportCard(Long studentId, Long examScheduleId, String termName) {
+        return generateStudentReportCard(studentId, examScheduleId, termName, null);
+    }
+
+    @Override
+    public ByteArrayOutputStream generateStudentReportCard(Long studentId, Long examScheduleId, String termName, Long templateId) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeStudentReportCard(studentId, examScheduleId, termName, templateId, outputStream);
+        return outputStream;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeStudentReportCard(Long studentId, Long examScheduleId, String termName, Long templateId,
+                                       OutputStream outputStream) {
         try {
             // Get student and exam schedule information
             User student = getStudentForReport(studentId);
@@ -51,64 +72,28 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
             
             // Get grades for the student and exam schedule
             List<Grade> grades = gradeRepository.findByStudentIdAndExamScheduleId(studentId, examScheduleId);
+
+            com.parami.wsims.entity.ReportTemplate template = templateId != null
+                    ? templateRepository.findById(templateId).orElse(null) : null;
             
-            // Create PDF
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(outputStream);
-            PdfDocument pdfDocument = new PdfDocument(writer);
-            Document document = new Document(pdfDocument);
+            // Create PDF; the caller owns the stream, so closing the document must not close it
+            Document document = renderingContext.newDocument(outputStream);
 
             // Add content to PDF
             addReportHeader(document, student, examSchedule, termName);
+            renderingContext.addTemplateHeader(document, template);
             addStudentInfo(document, student);
-            addGradesTable(document, grades);
+            addGradesTable(document, grades, getPerformanceForReport(studentId, examScheduleId));
+            renderingContext.addTemplateFooter(document, template);
             addFooter(document);
 
             document.close();
-            return outputStream;
 
         } catch (Exception e) {
             throw new RuntimeException("Error generating report card: " + e.getMessage(), e);
         }
     }
 
-    @Override
-    public ByteArrayOutputStream generateStudentReportCard(Long studentId, Long examScheduleId, String termName, Long templateId) {
-        if (templateId == null) {
-            return generateStudentReportCard(studentId, examScheduleId, termName);
-        }
-        try {
-            User student = getStudentForReport(studentId);
-            ExamSchedule examSchedule = getExamScheduleForReport(examScheduleId);
-            List<Grade> grades = gradeRepository.findByStudentIdAndExamScheduleId(studentId, examScheduleId);
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            PdfWriter writer = new PdfWriter(outputStream);
-            PdfDocument pdfDocument = new PdfDocument(writer);
-            Document document = new Document(pdfDocument);
-
-            com.parami.wsims.entity.ReportTemplate template = templateRepository.findById(templateId).orElse(null);
-            String headerOverride = template != null ? template.getHeaderText() : null;
-            String footerOverride = template != null ? template.getFooterText() : null;
-
-            addReportHeader(document, student, examSchedule, termName);
-            if (headerOverride != null && !headerOverride.isBlank()) {
-                document.add(new Paragraph(headerOverride).setTextAlignment(TextAlignment.CENTER).setMarginBottom(10));
-            }
-            addStudentInfo(document, student);
-            addGradesTable(document, grades);
-            if (footerOverride != null && !footerOverride.isBlank()) {
-                document.add(new Paragraph(footerOverride).setTextAlignment(TextAlignment.CENTER).setMarginTop(20));
-            }
-            addFooter(document);
-
-            document.close();
-            return outputStream;
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating report card with template: " + e.getMessage(), e);
-        }
-    }
-
     @Override
     public User getStudentForReport(Long studentId) {
         return userRepository.findById(studentId)
@@ -121,22 +106,21 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
                 .orElseThrow(() -> new RuntimeException("Exam schedule not found with ID: " + examScheduleId));
     }
 
-    private void addReportHeader(Document document, User student, ExamSchedule examSchedule, String termName) {
-        // School header
-        Paragraph schoolHeader = new Paragraph("WEB-BASED SCHOOL MANAGEMENT SYSTEM")
-                .setTextAlignment(TextAlignment.CENTER)
-                .setFontSize(18)
-                .setBold()
-                .setMarginBottom(10);
-
-        Paragraph reportTitle = new Paragraph("ACADEMIC REPORT CARD")
-                .setTextAlignment(TextAlignment.CENTER)
-                .setFontSize(16)
-                .setBold()
-                .setMarginBottom(20);
+    /**
+     * Summary figures come from the per-exam aggregate; a missing row (e.g. grades
+     * written before the aggregate existed) is recomputed on the spot.
+     */
+    private StudentExamPerformance getPerformanceForReport(Long studentId, Long examScheduleId) {
+        return studentPerformanceService.getPerformance(studentId, examScheduleId)
+                .orElseGet(() -> {
+                    studentPerformanceService.refresh(examScheduleId, Set.of(studentId));
+                    return studentPerformanceService.getPerformance(studentId, examScheduleId).orElse(null);
+                });
+    }
 
-        document.add(schoolHeader);
-        document.add(reportTitle);
+    private void addReportHeader(Document document, User student, ExamSchedule examSchedule, String termName) throws IOException {
+        // School header and report title, pre-rendered once
+        renderingContext.addTitle(document);
 
         // Academic year and term information
         String academicYear = examSchedule.getAcademicYear();
@@ -165,9 +149,7 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
         document.add(studentSection);
 
         // Create a table for student information
-        Table studentTable = new Table(UnitValue.createPercentArray(new float[]{30, 70}))
-                .setWidth(UnitValue.createPercentValue(100))
-                .setMarginBottom(20);
+        Table studentTable = renderingContext.studentInfoTable();
 
         // Student details
         addStudentInfoRow(studentTable, "Student ID", student.getUsername());
@@ -185,7 +167,7 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
         table.addCell(valueCell);
     }
 
-    private void addGradesTable(Document document, List<Grade> grades) {
+    private void addGradesTable(Document document, List<Grade> grades, StudentExamPerformance performance) {
         if (grades.isEmpty()) {
             Paragraph noGrades = new Paragraph("No grades available for this term.")
                     .setTextAlignment(TextAlignment.CENTER)
@@ -204,17 +186,8 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
 
         document.add(gradesSection);
 
-        // Create grades table
-        Table gradesTable = new Table(UnitValue.createPercentArray(new float[]{25, 15, 15, 15, 15, 15}))
-                .setWidth(UnitValue.createPercentValue(100))
-                .setMarginBottom(20);
-
-        // Table headers
-        String[] headers = {"Subject", "Marks Obtained", "Total Marks", "Percentage", "Letter Grade", "Comments"};
-        for (String header : headers) {
-            Cell headerCell = new Cell().add(new Paragraph(header).setBold()).setPadding(8);
-            gradesTable.addHeaderCell(headerCell);
-        }
+        // Create grades table with its header row
+        Table gradesTable = renderingContext.gradesTable();
 
         // Add grade data
         for (Grade grade : grades) {
@@ -229,27 +202,20 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
         document.add(gradesTable);
 
         // Add summary statistics
-        addGradesSummary(document, grades);
+        if (performance != null) {
+            addGradesSummary(document, performance);
+        }
     }
 
     private Cell createCell(String content) {
         return new Cell().add(new Paragraph(content)).setPadding(8);
     }
 
-    private void addGradesSummary(Document document, List<Grade> grades) {
-        // Calculate summary statistics
-        double totalPercentage = grades.stream()
-                .mapToDouble(grade -> grade.getPercentage().doubleValue())
-                .average()
-                .orElse(0.0);
-
-        long passingGrades = grades.stream()
-                .filter(Grade::isPassing)
-                .count();
-
-        long excellentGrades = grades.stream()
-                .filter(Grade::isExcellent)
-                .count();
+    private void addGradesSummary(Document document, StudentExamPerformance performance) {
+        // Summary statistics from the per-exam aggregate
+        double totalPercentage = performance.getAveragePercentage();
+        long passingGrades = performance.getPassingCount();
+        long excellentGrades = performance.getExcellentCount();
 
         // Summary section
         Paragraph summarySection = new Paragraph("PERFORMANCE SUMMARY")
@@ -261,15 +227,13 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
         document.add(summarySection);
 
         // Create summary table
-        Table summaryTable = new Table(UnitValue.createPercentArray(new float[]{50, 50}))
-                .setWidth(UnitValue.createPercentValue(100))
-                .setMarginBottom(20);
+        Table summaryTable = renderingContext.summaryTable();
 
         summaryTable.addCell(createCell("Overall Average"));
         summaryTable.addCell(createCell(String.format("%.2f%%", totalPercentage)));
 
         summaryTable.addCell(createCell("Passing Grades"));
-        summaryTable.addCell(createCell(String.valueOf(passingGrades) + "/" + grades.size()));
+        summaryTable.addCell(createCell(String.valueOf(passingGrades) + "/" + performance.getGradeCount()));
 
         summaryTable.addCell(createCell("Excellent Grades (A)"));
         summaryTable.addCell(createCell(String.valueOf(excellentGrades)));
@@ -289,7 +253,7 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
         else return "Below Expectations";
     }
 
-    private void addFooter(Document document) {
+    private void addFooter(Document document) throws IOException {
         // Add footer
         Paragraph footer = new Paragraph()
                 .add("This report was generated on " + LocalDate.now().format(DateTimeFormatter.ofPattern("dd MMMM yyyy")))
@@ -299,13 +263,7 @@ public class ReportGenerationServiceImpl implements ReportGenerationService {
 
         document.add(footer);
 
-        // Add signature lines
-        Paragraph signatures = new Paragraph()
-                .add("Class Teacher Signature: ________________________\n\n")
-                .add("Principal Signature: ________________________\n\n")
-                .setFontSize(12)
-                .setMarginTop(40);
-
-        document.add(signatures);
+        // Add signature lines, pre-rendered once
+        renderingContext.addSignatures(document);
     }
 }
@@ -0,0 +1,24 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.ReportJob;
+
+import java.util.Optional;
+
+public interface ReportJobService {
+
+    /**
+     * Queue one student's report card; single reports run ahead of batches
+     */
+    ReportJob submitSingle(Long studentId, Long examScheduleId, String termName, Long templateId, String requestedBy);
+
+    /**
+     * Queue a ZIP of report cards for a course or a grade level
+     */
+    ReportJob submitBatch(Long courseId, String gradeLevel, Long examScheduleId, String termName, Long templateId,
+                          String requestedBy);
+
+    /**
+     * Get a job by ID
+     */
+    Optional<ReportJob> getJob(Long jobId);
+}
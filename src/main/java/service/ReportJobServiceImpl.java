@@ -0,0 +1,453 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.ExamSchedule;
+import com.parami.wsims.entity.ReportJob;
+import com.parami.wsims.entity.ReportJob.JobStatus;
+import com.parami.wsims.entity.ReportJob.JobType;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.repository.ReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Report cards rendered off the request thread. Jobs are rows in report_jobs; a fixed
+ * pool of workers takes job ids from two in-memory queues, single reports before
+ * batches, and at most {@code batchWorkers} workers run batches so one student's report
+ * never waits behind a whole grade level. A worker claims its job with a conditional
+ * UPDATE, writes the output to a file under {@code directoryName} and records the path
+ * on the row. Failed jobs are re-queued with exponential back-off until {@code maxAttempts}.
+ * The database is the source of truth: a poller re-queues due jobs (retries, and jobs
+ * queued before a restart) and jobs left RUNNING by a worker that died. A running job
+ * counts as alive while its worker refreshes {@code heartbeat_at}, so a long batch is
+ * not re-queued just for taking longer than {@code staleMinutes}. Each attempt writes
+ * its own file and only records it if it still holds the claim, so a worker that lost
+ * its job never overwrites the result of the one that took over. On start every
+ * RUNNING job is re-queued, which assumes one application instance runs the workers.
+ */
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private static final int SINGLE_PRIORITY = 10;
+    private static final int BATCH_PRIORITY = 0;
+    private static final int POLL_LIMIT = 200;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final ReportJobRepository jobRepository;
+    private final ReportGenerationService reportGenerationService;
+    private final ReportCardCacheService reportCardCacheService;
+    private final ReportBatchService reportBatchService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workerPool;
+    private final int workers;
+    private final int batchWorkers;
+
+    @Value("${wsims.reports.jobs.dir:${java.io.tmpdir}/wsims-report-jobs}")
+    private String directoryName;
+
+    @Value("${wsims.reports.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${wsims.reports.jobs.retry-delay-ms:10000}")
+    private long retryDelayMillis;
+
+    // A running job whose heartbeat is older than this is treated as abandoned
+    @Value("${wsims.reports.jobs.stale-minutes:5}")
+    private long staleMinutes;
+
+    @Value("${wsims.reports.jobs.retention-hours:24}")
+    private long retentionHours;
+
+    private record QueuedJob(Long id, boolean batch) {
+    }
+
+    // Guards the two queues, the queued id set and runningBatches
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<Long> singles = new ArrayDeque<>();
+    private final ArrayDeque<Long> batches = new ArrayDeque<>();
+    private final Set<Long> queued = new HashSet<>();
+    private int runningBatches;
+
+    // Job id to the attempt this instance is running, for the heartbeat
+    private final Map<Long, Integer> running = new ConcurrentHashMap<>();
+
+    private volatile boolean started;
+
+    @Autowired
+    public ReportJobServiceImpl(ReportJobRepository jobRepository,
+                                ReportGenerationService reportGenerationService,
+                                ReportCardCacheService reportCardCacheService,
+                                ReportBatchService reportBatchService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${wsims.reports.jobs.workers:4}") int workers,
+                                @Value("${wsims.reports.jobs.batch-workers:0}") int configuredBatchWorkers) {
+        this.jobRepository = jobRepository;
+        this.reportGenerationService = reportGenerationService;
+        this.reportCardCacheService = reportCardCacheService;
+        this.reportBatchService = reportBatchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Math.max(1, workers);
+        // By default one worker is always left free for single reports
+        this.batchWorkers = configuredBatchWorkers > 0 ? Math.min(configuredBatchWorkers, this.workers)
+                : Math.max(1, this.workers - 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workerPool = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread thread = new Thread(r, "report-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start the workers and pick up the jobs the previous run left behind
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        deleteUnfinishedOutput();
+        LocalDateTime now = LocalDateTime.now();
+        Integer requeued = transactionTemplate.execute(status ->
+                jobRepository.requeueRunning(JobStatus.QUEUED, JobStatus.RUNNING, now, now));
+        if (requeued != null && requeued > 0) {
+            System.out.println("Re-queued " + requeued + " report jobs interrupted by the last shutdown");
+        }
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workLoop);
+        }
+        started = true;
+        poll();
+    }
+
+    @Override
+    public ReportJob submitSingle(Long studentId, Long examScheduleId, String termName, Long templateId, String requestedBy) {
+        ReportJob job = newJob(JobType.SINGLE, SINGLE_PRIORITY, examScheduleId, termName, templateId, requestedBy);
+        job.setStudentId(studentId);
+        return enqueue(job);
+    }
+
+    @Override
+    public ReportJob submitBatch(Long courseId, String gradeLevel, Long examScheduleId, String termName, Long templateId,
+                                 String requestedBy) {
+        if (courseId == null && (gradeLevel == null || gradeLevel.isBlank())) {
+            throw new IllegalArgumentException("Either courseId or gradeLevel is required");
+        }
+        ReportJob job = newJob(JobType.BATCH, BATCH_PRIORITY, examScheduleId, termName, templateId, requestedBy);
+        job.setCourseId(courseId);
+        job.setGradeLevel(courseId == null ? gradeLevel.trim() : null);
+        return enqueue(job);
+    }
+
+    @Override
+    public Optional<ReportJob> getJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Queue due jobs the workers do not know about: retries whose back-off has passed,
+     * jobs queued before a restart, and jobs whose worker died mid-run
+     */
+    @Scheduled(fixedDelayString = "${wsims.reports.jobs.poll-ms:5000}")
+    public void poll() {
+        if (!started) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.execute(status ->
+                jobRepository.requeueRunning(JobStatus.QUEUED, JobStatus.RUNNING, now.minusMinutes(staleMinutes), now));
+        List<ReportJob> due = jobRepository.findDue(JobStatus.QUEUED, now, PageRequest.of(0, POLL_LIMIT));
+        for (ReportJob job : due) {
+            offer(job.getId(), job.getJobType());
+        }
+    }
+
+    /**
+     * Keep the claims of the jobs running here alive so the poller leaves them alone
+     */
+    @Scheduled(fixedDelayString = "${wsims.reports.jobs.heartbeat-ms:60000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Integer> entry : running.entrySet()) {
+            Integer extended = transactionTemplate.execute(status ->
+                    jobRepository.heartbeat(entry.getKey(), entry.getValue(), JobStatus.RUNNING, now));
+            if (extended == null || extended == 0) {
+                System.err.println("Report job " + entry.getKey() + " attempt " + entry.getValue() +
+                        " lost its claim; its output will be discarded");
+            }
+        }
+    }
+
+    /**
+     * Delete the output of finished jobs past retention, together with their rows
+     */
+    @Scheduled(cron = "${wsims.reports.jobs.purge-cron:0 20 * * * *}")
+    public void purgeExpired() {
+        List<ReportJob> expired = jobRepository.findCompletedBefore(LocalDateTime.now().minusHours(retentionHours));
+        for (ReportJob job : expired) {
+            if (job.getResultPath() != null) {
+                try {
+                    Files.deleteIfExists(Paths.get(job.getResultPath()));
+                } catch (IOException e) {
+                    System.err.println("Error deleting report job output " + job.getResultPath() + ": " + e.getMessage());
+                    continue;
+                }
+            }
+            jobRepository.delete(job);
+        }
+        if (!expired.isEmpty()) {
+            System.out.println("Purged " + expired.size() + " expired report jobs");
+        }
+    }
+
+    // Output files a worker was still writing when the application stopped
+    private void deleteUnfinishedOutput() {
+        Path directory = Paths.get(directoryName);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : listing.filter(f -> f.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Error clearing unfinished report job output in " + directoryName + ": " + e.getMessage());
+        }
+    }
+
+    private ReportJob newJob(JobType type, int priority, Long examScheduleId, String termName, Long templateId,
+                             String requestedBy) {
+        if (examScheduleId == null) {
+            throw new IllegalArgumentException("examScheduleId is required");
+        }
+        ReportJob job = new ReportJob();
+        job.setJobType(type);
+        job.setPriority(priority);
+        job.setStatus(JobStatus.QUEUED);
+        job.setExamScheduleId(examScheduleId);
+        job.setTermName(termName != null && !termName.isBlank() ? termName : null);
+        job.setTemplateId(templateId);
+        job.setRequestedBy(requestedBy);
+        job.setAttempts(0);
+        job.setMaxAttempts(Math.max(1, maxAttempts));
+        return job;
+    }
+
+    private ReportJob enqueue(ReportJob job) {
+        ReportJob saved = jobRepository.save(job);
+        // A worker must not look for the row before it is committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            offer(saved.getId(), saved.getJobType());
+                        }
+                    });
+        } else {
+            offer(saved.getId(), saved.getJobType());
+        }
+        return saved;
+    }
+
+    private void offer(Long jobId, JobType type) {
+        lock.lock();
+        try {
+            if (queued.add(jobId)) {
+                (type == JobType.BATCH ? batches : singles).add(jobId);
+                available.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private QueuedJob take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Long id = singles.poll();
+                if (id != null) {
+                    queued.remove(id);
+                    return new QueuedJob(id, false);
+                }
+                if (runningBatches < batchWorkers && (id = batches.poll()) != null) {
+                    queued.remove(id);
+                    runningBatches++;
+                    return new QueuedJob(id, true);
+                }
+                available.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedJob next;
+            try {
+                next = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                run(next.id());
+            } catch (RuntimeException e) {
+                System.err.println("Report job " + next.id() + " worker error: " + e.getMessage());
+            } finally {
+                if (next.batch()) {
+                    lock.lock();
+                    try {
+                        runningBatches--;
+                        available.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    private void run(Long jobId) {
+        Integer claimed = transactionTemplate.execute(status ->
+                jobRepository.claim(jobId, JobStatus.QUEUED, JobStatus.RUNNING, LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            // Taken by another worker, already finished, or its retry is not due yet
+            return;
+        }
+        ReportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        // The claim incremented attempts, so this number identifies our attempt
+        Integer attempt = job.getAttempts();
+        running.put(jobId, attempt);
+
+        long started = System.currentTimeMillis();
+        Path temp = null;
+        Path result = null;
+        try {
+            Path directory = Files.createDirectories(Paths.get(directoryName));
+            temp = Files.createTempFile(directory, "job-" + jobId + "-", ".tmp");
+            String downloadName;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                downloadName = job.getJobType() == JobType.BATCH ? writeBatch(job, out) : writeSingle(job, out);
+            }
+            result = directory.resolve(jobId + "-" + attempt + (job.getJobType() == JobType.BATCH ? ".zip" : ".pdf"));
+            Files.move(temp, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            String resultPath = result.toString();
+            long size = Files.size(result);
+            Integer completed = transactionTemplate.execute(status -> jobRepository.complete(jobId, attempt,
+                    JobStatus.RUNNING, JobStatus.COMPLETED, downloadName, resultPath, size, LocalDateTime.now()));
+            if (completed == null || completed == 0) {
+                System.err.println("Report job " + jobId + " attempt " + attempt +
+                        " finished after losing its claim; output discarded");
+                deleteQuietly(result);
+                return;
+            }
+            System.out.println("Report job " + jobId + " (" + job.getJobType() + ") completed in " +
+                    (System.currentTimeMillis() - started) + " ms");
+        } catch (Exception e) {
+            deleteQuietly(temp);
+            deleteQuietly(result);
+            fail(job, attempt, e);
+        } finally {
+            running.remove(jobId, attempt);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting report job output " + file + ": " + e.getMessage());
+        }
+    }
+
+    private String writeSingle(ReportJob job, OutputStream out) throws IOException {
+        User student = reportGenerationService.getStudentForReport(job.getStudentId());
+        ExamSchedule examSchedule = reportGenerationService.getExamScheduleForReport(job.getExamScheduleId());
+        try (ReportCardCacheService.ReportCardBody card = reportCardCacheService.openReportCard(
+                job.getStudentId(), job.getExamScheduleId(), job.getTermName(), job.getTemplateId())) {
+            card.writeTo(out);
+        }
+        return String.format("ReportCard_%s_%s_%s.pdf",
+                student.getUsername(),
+                examSchedule.getExamName().replaceAll("\\s+", "_"),
+                LocalDate.now().format(FILE_DATE));
+    }
+
+    private String writeBatch(ReportJob job, OutputStream out) throws IOException {
+        ExamSchedule examSchedule = reportGenerationService.getExamScheduleForReport(job.getExamScheduleId());
+        List<Long> studentIds = reportBatchService.resolveStudents(job.getCourseId(), job.getGradeLevel());
+        if (studentIds.isEmpty()) {
+            throw new IllegalStateException("No students found for this course or grade level");
+        }
+        reportBatchService.writeReportCardZip(studentIds, job.getExamScheduleId(), job.getTermName(),
+                job.getTemplateId(), out);
+        return String.format("ReportCards_%s_%s_%s.zip",
+                job.getCourseId() != null ? "course" + job.getCourseId() : job.getGradeLevel().replaceAll("\\s+", "_"),
+                examSchedule.getExamName().replaceAll("\\s+", "_"),
+                LocalDate.now().format(FILE_DATE));
+    }
+
+    private void fail(ReportJob job, Integer attempt, Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        String error = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        LocalDateTime now = LocalDateTime.now();
+        boolean retry = attempt < job.getMaxAttempts();
+        long delay = retryDelayMillis << Math.min(attempt - 1, 10);
+        Integer ended = transactionTemplate.execute(status -> retry
+                ? jobRepository.endAttempt(job.getId(), attempt, JobStatus.RUNNING, JobStatus.QUEUED, error,
+                        now.plusNanos(delay * 1_000_000L), null)
+                : jobRepository.endAttempt(job.getId(), attempt, JobStatus.RUNNING, JobStatus.FAILED, error,
+                        job.getNextAttemptAt(), now));
+        if (ended == null || ended == 0) {
+            System.err.println("Report job " + job.getId() + " attempt " + attempt + " failed after losing its claim: " + error);
+            return;
+        }
+        System.err.println("Report job " + job.getId() + " attempt " + attempt + " failed: " + error);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+}
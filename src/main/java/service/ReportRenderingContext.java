@@ -0,0 +1,227 @@
+package com.wsims.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.layout.LayoutArea;
+import com.itextpdf.layout.layout.LayoutContext;
+import com.itextpdf.layout.layout.LayoutResult;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import com.itextpdf.layout.renderer.IRenderer;
+import com.parami.wsims.entity.ReportTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Rendering resources shared by every report card: the font program, loaded once, the
+ * column layouts of the report tables, and the static blocks of the page (school title,
+ * signature lines and each template's header and footer text). A static block is laid
+ * out once into a one-page PDF cut to its height; each report card imports that page as
+ * a form XObject instead of laying the paragraphs out again. Blocks are kept as PDF bytes
+ * rather than as live objects because a form XObject is bound to the document that
+ * created it. Template blocks are rebuilt when the template's updated_at changes.
+ */
+@Component
+public class ReportRenderingContext {
+
+    // Content width of an A4 page with the layout's default 36pt margins
+    private static final float CONTENT_WIDTH = PageSize.A4.getWidth() - 72;
+
+    private static final UnitValue[] STUDENT_INFO_COLUMNS = UnitValue.createPercentArray(new float[]{30, 70});
+    private static final UnitValue[] GRADES_COLUMNS = UnitValue.createPercentArray(new float[]{25, 15, 15, 15, 15, 15});
+    private static final UnitValue[] SUMMARY_COLUMNS = UnitValue.createPercentArray(new float[]{50, 50});
+    private static final String[] GRADES_HEADERS = {"Subject", "Marks Obtained", "Total Marks", "Percentage", "Letter Grade", "Comments"};
+
+    private final boolean reuseStaticBlocks;
+    private final FontProgram fontProgram;
+    private final byte[] titleBlock;
+    private final byte[] signatureBlock;
+
+    private record TemplateBlocks(String version, byte[] header, byte[] footer) {
+    }
+
+    private final Map<Long, TemplateBlocks> templateBlocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReportRenderingContext(@Value("${wsims.reports.reuse-static-blocks:true}") boolean reuseStaticBlocks) {
+        this.reuseStaticBlocks = reuseStaticBlocks;
+        try {
+            this.fontProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load report font: " + e.getMessage(), e);
+        }
+        this.titleBlock = reuseStaticBlocks ? renderBlock(ReportRenderingContext::title) : null;
+        this.signatureBlock = reuseStaticBlocks ? renderBlock(ReportRenderingContext::signatures) : null;
+    }
+
+    /**
+     * Open a report document on a stream the caller owns; closing the document leaves it open
+     */
+    public Document newDocument(OutputStream outputStream) {
+        PdfWriter writer = new PdfWriter(outputStream);
+        writer.setCloseStream(false);
+        Document document = new Document(new PdfDocument(writer));
+        if (reuseStaticBlocks) {
+            document.setFont(PdfFontFactory.createFont(fontProgram, PdfEncodings.WINANSI));
+        }
+        return document;
+    }
+
+    public void addTitle(Document document) throws IOException {
+        addBlock(document, titleBlock, ReportRenderingContext::title);
+    }
+
+    public void addSignatures(Document document) throws IOException {
+        addBlock(document, signatureBlock, ReportRenderingContext::signatures);
+    }
+
+    public void addTemplateHeader(Document document, ReportTemplate template) throws IOException {
+        if (template != null && !isBlank(template.getHeaderText())) {
+            addBlock(document, blocksFor(template).header(), () -> templateHeader(template.getHeaderText()));
+        }
+    }
+
+    public void addTemplateFooter(Document document, ReportTemplate template) throws IOException {
+        if (template != null && !isBlank(template.getFooterText())) {
+            addBlock(document, blocksFor(template).footer(), () -> templateFooter(template.getFooterText()));
+        }
+    }
+
+    public Table studentInfoTable() {
+        return new Table(STUDENT_INFO_COLUMNS)
+                .setWidth(UnitValue.createPercentValue(100))
+                .setMarginBottom(20);
+    }
+
+    public Table gradesTable() {
+        Table table = new Table(GRADES_COLUMNS)
+                .setWidth(UnitValue.createPercentValue(100))
+                .setMarginBottom(20);
+        for (String header : GRADES_HEADERS) {
+            table.addHeaderCell(new Cell().add(new Paragraph(header).setBold()).setPadding(8));
+        }
+        return table;
+    }
+
+    public Table summaryTable() {
+        return new Table(SUMMARY_COLUMNS)
+                .setWidth(UnitValue.createPercentValue(100))
+                .setMarginBottom(20);
+    }
+
+    private static Div title() {
+        return new Div()
+                .add(new Paragraph("WEB-BASED SCHOOL MANAGEMENT SYSTEM")
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setFontSize(18)
+                        .setBold()
+                        .setMarginBottom(10))
+                .add(new Paragraph("ACADEMIC REPORT CARD")
+                        .setTextAlignment(TextAlignment.CENTER)
+                        .setFontSize(16)
+                        .setBold()
+                        .setMarginBottom(20));
+    }
+
+    private static Div signatures() {
+        return new Div()
+                .add(new Paragraph()
+                        .add("Class Teacher Signature: ________________________\n\n")
+                        .add("Principal Signature: ________________________\n\n")
+                        .setFontSize(12)
+                        .setMarginTop(40));
+    }
+
+    private static Div templateHeader(String text) {
+        return new Div().add(new Paragraph(text).setTextAlignment(TextAlignment.CENTER).setMarginBottom(10));
+    }
+
+    private static Div templateFooter(String text) {
+        return new Div().add(new Paragraph(text).setTextAlignment(TextAlignment.CENTER).setMarginTop(20));
+    }
+
+    private TemplateBlocks blocksFor(ReportTemplate template) {
+        if (!reuseStaticBlocks) {
+            return new TemplateBlocks(null, null, null);
+        }
+        String version = String.valueOf(template.getUpdatedAt() != null ? template.getUpdatedAt() : template.getCreatedAt());
+        TemplateBlocks blocks = templateBlocks.get(template.getId());
+        if (blocks == null || !blocks.version().equals(version)) {
+            String header = template.getHeaderText();
+            String footer = template.getFooterText();
+            blocks = new TemplateBlocks(version,
+                    isBlank(header) ? null : renderBlock(() -> templateHeader(header)),
+                    isBlank(footer) ? null : renderBlock(() -> templateFooter(footer)));
+            templateBlocks.put(template.getId(), blocks);
+        }
+        return blocks;
+    }
+
+    private void addBlock(Document document, byte[] block, Supplier<Div> elements) throws IOException {
+        if (block == null) {
+            document.add(elements.get());
+            return;
+        }
+        PdfReader reader = new PdfReader(new RandomAccessSourceFactory().createSource(block), new ReaderProperties());
+        try (PdfDocument source = new PdfDocument(reader)) {
+            PdfFormXObject xObject = source.getFirstPage().copyAsFormXObject(document.getPdfDocument());
+            document.add(new Image(xObject));
+        }
+    }
+
+    // Lays the block out once to find its height, then renders it onto a page of exactly that size.
+    // A block taller than a page is left to be laid out in each document.
+    private byte[] renderBlock(Supplier<Div> elements) {
+        PageSize scratchSize = new PageSize(CONTENT_WIDTH, PageSize.A4.getHeight());
+        Document scratch = new Document(new PdfDocument(new PdfWriter(OutputStream.nullOutputStream())), scratchSize);
+        scratch.setMargins(0, 0, 0, 0);
+        scratch.setFont(PdfFontFactory.createFont(fontProgram, PdfEncodings.WINANSI));
+        IRenderer renderer = elements.get().createRendererSubTree().setParent(scratch.getRenderer());
+        LayoutResult result = renderer.layout(new LayoutContext(new LayoutArea(1,
+                new Rectangle(scratchSize.getWidth(), scratchSize.getHeight()))));
+        // Rounded up so the second layout cannot spill onto another page
+        float height = (float) Math.ceil(result.getOccupiedArea().getBBox().getHeight());
+        scratch.getPdfDocument().addNewPage();
+        scratch.close();
+        if (result.getStatus() != LayoutResult.FULL) {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(new PdfDocument(new PdfWriter(out)), new PageSize(CONTENT_WIDTH, height));
+        document.setMargins(0, 0, 0, 0);
+        document.setFont(PdfFontFactory.createFont(fontProgram, PdfEncodings.WINANSI));
+        document.add(elements.get());
+        document.close();
+        return out.toByteArray();
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.isBlank();
+    }
+}
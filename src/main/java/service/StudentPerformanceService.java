@@ -0,0 +1,30 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.StudentExamPerformance;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StudentPerformanceService {
+
+    /**
+     * Recompute the aggregate rows of the given students for one exam schedule
+     */
+    void refresh(Long examScheduleId, Collection<Long> studentIds);
+
+    /**
+     * Rebuild the whole aggregate table from the grades table
+     */
+    int rebuildAll();
+
+    /**
+     * Get the aggregate for a student in an exam schedule
+     */
+    Optional<StudentExamPerformance> getPerformance(Long studentId, Long examScheduleId);
+
+    /**
+     * Get the aggregates of a student across all exam schedules
+     */
+    List<StudentExamPerformance> getPerformanceForStudent(Long studentId);
+}
@@ -0,0 +1,90 @@
+package com.wsims.service;
+
+import com.parami.wsims.entity.StudentExamPerformance;
+import com.parami.wsims.repository.StudentExamPerformanceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps student_exam_performance in step with the grades table. Every grade write
+ * publishes a {@link GradesChangedEvent}; only the (student, exam) rows named in the
+ * event are recomputed, inside the writer's transaction. A nightly rebuild repairs
+ * any drift from writes made outside the service layer.
+ */
+@Service
+public class StudentPerformanceServiceImpl implements StudentPerformanceService {
+
+    // Keeps IN lists well below SQL Server's 2100 parameter limit
+    private static final int ID_CHUNK = 1000;
+
+    private final StudentExamPerformanceRepository performanceRepository;
+
+    @Autowired
+    public StudentPerformanceServiceImpl(StudentExamPerformanceRepository performanceRepository) {
+        this.performanceRepository = performanceRepository;
+    }
+
+    @EventListener
+    @Transactional
+    public void onGradesChanged(GradesChangedEvent event) {
+        refresh(event.examScheduleId(), event.studentIds());
+    }
+
+    @Override
+    @Transactional
+    public void refresh(Long examScheduleId, Collection<Long> studentIds) {
+        if (examScheduleId == null || studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(studentIds);
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ID_CHUNK, ids.size()));
+            performanceRepository.deleteForStudents(examScheduleId, chunk);
+            performanceRepository.insertForStudents(examScheduleId, chunk, now);
+        }
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(cron = "${wsims.performance.rebuild-cron:0 30 2 * * *}")
+    public int rebuildAll() {
+        performanceRepository.deleteAllRows();
+        int rows = performanceRepository.insertAllRows(LocalDateTime.now());
+        System.out.println("Rebuilt student performance aggregates: " + rows + " rows");
+        return rows;
+    }
+
+    /**
+     * Populate the table on first start against a database that already has grades
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialiseIfEmpty() {
+        if (performanceRepository.count() == 0) {
+            performanceRepository.insertAllRows(LocalDateTime.now());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StudentExamPerformance> getPerformance(Long studentId, Long examScheduleId) {
+        return performanceRepository.findByStudentIdAndExamScheduleId(studentId, examScheduleId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentExamPerformance> getPerformanceForStudent(Long studentId) {
+        return performanceRepository.findByStudentId(studentId);
+    }
+}
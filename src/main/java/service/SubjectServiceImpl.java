@@ -18,12 +18,15 @@ public class SubjectServiceImpl implements SubjectService {
 
     private final SubjectRepository subjectRepository;
     private final CourseSubjectLinkRepository courseSubjectLinkRepository;
+    private final TeachingAssignmentService teachingAssignmentService;
 
     @Autowired
     public SubjectServiceImpl(SubjectRepository subjectRepository,
-                            CourseSubjectLinkRepository courseSubjectLinkRepository) {
+                            CourseSubjectLinkRepository courseSubjectLinkRepository,
+                            TeachingAssignmentService teachingAssignmentService) {
         this.subjectRepository = subjectRepository;
         this.courseSubjectLinkRepository = courseSubjectLinkRepository;
+        this.teachingAssignmentService = teachingAssignmentService;
     }
 
     @Override
@@ -44,7 +47,8 @@ public class SubjectServiceImpl implements SubjectService {
             throw new IllegalArgumentException("Subject not found with id: " + id);
         }
         
-        // Delete all course-subject links first to avoid foreign key constraints
+        // Delete teaching assignments and course-subject links first to avoid foreign key constraints
+        teachingAssignmentService.removeAssignments(null, id);
         List<com.parami.wsims.entity.CourseSubjectLink> courseSubjectLinks =
             courseSubjectLinkRepository.findBySubjectId(id);
         if (!courseSubjectLinks.isEmpty()) {
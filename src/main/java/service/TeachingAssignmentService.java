@@ -0,0 +1,35 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.TeacherRoster;
+import com.parami.wsims.entity.TeachingAssignment;
+
+import java.util.List;
+
+public interface TeachingAssignmentService {
+
+    /**
+     * Assign a teacher to a subject within a course. The subject must be linked to the course.
+     */
+    TeachingAssignment assign(Long teacherId, Long courseId, Long subjectId, Long assignedBy);
+
+    /**
+     * Remove one assignment
+     */
+    void unassign(Long assignmentId);
+
+    /**
+     * Remove the assignments that refer to a course, a subject, or one subject within a course.
+     * Called before those links or rows are deleted; a null id matches any.
+     */
+    void removeAssignments(Long courseId, Long subjectId);
+
+    /**
+     * Every assignment, or only those of one teacher when teacherId is given
+     */
+    List<TeachingAssignment> getAssignments(Long teacherId);
+
+    /**
+     * The teacher's courses and subjects, served from cache
+     */
+    TeacherRoster getRoster(Long teacherId);
+}
@@ -0,0 +1,165 @@
+package com.wsims.service;
+
+import com.parami.wsims.dto.TeacherRoster;
+import com.parami.wsims.entity.Course;
+import com.parami.wsims.entity.Subject;
+import com.parami.wsims.entity.TeachingAssignment;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.repository.CourseRepository;
+import com.parami.wsims.repository.CourseSubjectLinkRepository;
+import com.parami.wsims.repository.SubjectRepository;
+import com.parami.wsims.repository.TeachingAssignmentRepository;
+import com.parami.wsims.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teacher to course/subject assignments. Rosters are cached per teacher and evicted
+ * when that teacher's assignments change; a time limit also bounds how long renamed
+ * courses or subjects can show their old names.
+ */
+@Service
+public class TeachingAssignmentServiceImpl implements TeachingAssignmentService {
+
+    private final TeachingAssignmentRepository teachingAssignmentRepository;
+    private final CourseRepository courseRepository;
+    private final SubjectRepository subjectRepository;
+    private final CourseSubjectLinkRepository courseSubjectLinkRepository;
+    private final UserRepository userRepository;
+
+    @Value("${wsims.teaching-assignments.roster-ttl-ms:300000}")
+    private long rosterTtlMillis;
+
+    private record CachedRoster(TeacherRoster roster, long loadedAt) {
+    }
+
+    private final Map<Long, CachedRoster> rosterCache = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a load that raced with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public TeachingAssignmentServiceImpl(TeachingAssignmentRepository teachingAssignmentRepository,
+                                         CourseRepository courseRepository,
+                                         SubjectRepository subjectRepository,
+                                         CourseSubjectLinkRepository courseSubjectLinkRepository,
+                                         UserRepository userRepository) {
+        this.teachingAssignmentRepository = teachingAssignmentRepository;
+        this.courseRepository = courseRepository;
+        this.subjectRepository = subjectRepository;
+        this.courseSubjectLinkRepository = courseSubjectLinkRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    @Transactional
+    public TeachingAssignment assign(Long teacherId, Long courseId, Long subjectId, Long assignedBy) {
+        User teacher = userRepository.findById(teacherId)
+                .orElseThrow(() -> new IllegalArgumentException("Teacher not found with id: " + teacherId));
+        if (teacher.getRole() == null || !"TEACHER".equals(teacher.getRole().getName())) {
+            throw new IllegalArgumentException("User " + teacherId + " is not a teacher");
+        }
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found with id: " + courseId));
+        Subject subject = subjectRepository.findById(subjectId)
+                .orElseThrow(() -> new IllegalArgumentException("Subject not found with id: " + subjectId));
+        if (!courseSubjectLinkRepository.existsByCourseIdAndSubjectId(courseId, subjectId)) {
+            throw new IllegalArgumentException("Subject " + subject.getSubjectCode() +
+                    " is not part of course " + course.getCourseCode());
+        }
+        if (teachingAssignmentRepository.existsByTeacherIdAndCourseIdAndSubjectId(teacherId, courseId, subjectId)) {
+            throw new IllegalStateException("Teacher is already assigned to this course and subject");
+        }
+
+        TeachingAssignment assignment = new TeachingAssignment();
+        assignment.setTeacherId(teacherId);
+        assignment.setCourse(course);
+        assignment.setSubject(subject);
+        assignment.setAssignedBy(assignedBy);
+        TeachingAssignment saved = teachingAssignmentRepository.save(assignment);
+        evictAfterCommit(teacherId);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void unassign(Long assignmentId) {
+        TeachingAssignment assignment = teachingAssignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new IllegalArgumentException("Assignment not found with id: " + assignmentId));
+        teachingAssignmentRepository.delete(assignment);
+        evictAfterCommit(assignment.getTeacherId());
+    }
+
+    @Override
+    @Transactional
+    public void removeAssignments(Long courseId, Long subjectId) {
+        List<TeachingAssignment> assignments = teachingAssignmentRepository.findByCourseAndSubject(courseId, subjectId);
+        if (assignments.isEmpty()) {
+            return;
+        }
+        teachingAssignmentRepository.deleteAll(assignments);
+        assignments.stream().map(TeachingAssignment::getTeacherId).distinct().forEach(this::evictAfterCommit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TeachingAssignment> getAssignments(Long teacherId) {
+        if (teacherId != null) {
+            return teachingAssignmentRepository.findByTeacherIdWithCourseAndSubject(teacherId);
+        }
+        return teachingAssignmentRepository.findAllWithCourseAndSubject();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TeacherRoster getRoster(Long teacherId) {
+        CachedRoster cached = rosterCache.get(teacherId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < rosterTtlMillis) {
+            return cached.roster();
+        }
+
+        long loadedGeneration = generation.get();
+        Map<Long, Course> courses = new LinkedHashMap<>();
+        Map<Long, Subject> subjects = new LinkedHashMap<>();
+        for (TeachingAssignment assignment : teachingAssignmentRepository.findByTeacherIdWithCourseAndSubject(teacherId)) {
+            courses.putIfAbsent(assignment.getCourse().getId(), assignment.getCourse());
+            subjects.putIfAbsent(assignment.getSubject().getId(), assignment.getSubject());
+        }
+        TeacherRoster roster = new TeacherRoster(teacherId, List.copyOf(courses.values()), List.copyOf(subjects.values()),
+                Set.copyOf(courses.keySet()), Set.copyOf(subjects.keySet()));
+
+        if (generation.get() == loadedGeneration) {
+            rosterCache.put(teacherId, new CachedRoster(roster, System.currentTimeMillis()));
+        }
+        return roster;
+    }
+
+    private void evictAfterCommit(Long teacherId) {
+        Runnable evict = () -> {
+            generation.incrementAndGet();
+            rosterCache.remove(teacherId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        evict.run();
+                    }
+                });
+    }
+}
@@ -0,0 +1,14 @@
+-- One-off cleanup for databases created before uk_attendance_student_subject_date existed.
+-- Keeps the most recently updated row for each (student, subject, date) and adds the constraint.
+-- AttendanceConstraintCheck refuses to start the application until this has been run.
+
+WITH ranked AS (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY student_id, subject_id, attendance_date
+                              ORDER BY updated_at DESC, id DESC) AS rn
+    FROM attendance
+)
+DELETE FROM ranked WHERE rn > 1;
+
+ALTER TABLE attendance
+    ADD CONSTRAINT uk_attendance_student_subject_date UNIQUE (student_id, subject_id, attendance_date);
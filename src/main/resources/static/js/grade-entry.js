@@ -6,7 +6,9 @@ const gradeEntry = {
     selectedExamId: null,
     students: [],
     subjects: [],
-    existingGrades: [],
+    gradebookMatrix: null,
+    matrixRequestSeq: 0,
+    tableRendered: false,
     
     init() {
         this.setupEventListeners();
@@ -71,13 +73,16 @@ const gradeEntry = {
         }
         
         this.selectedExamId = examId;
+        // Only the latest request may install its matrix; older responses can arrive later
+        const requestSeq = ++this.matrixRequestSeq;
         
         try {
-            const response = await fetch(`/teacher/grades/api/course/${this.selectedCourseId}/exam/${examId}/grades`);
+            const response = await fetch(`/teacher/grades/api/course/${this.selectedCourseId}/exam/${examId}/matrix`);
             const data = await response.json();
+            if (requestSeq !== this.matrixRequestSeq) return;
             
             if (data.success) {
-                this.existingGrades = data.grades;
+                this.gradebookMatrix = data.matrix;
                 this.populateExistingGrades();
             } else {
                 console.error('Error loading existing grades:', data.message);
@@ -191,66 +196,71 @@ const gradeEntry = {
         
         // Show the table
         this.showGradesTable();
+        this.tableRendered = true;
 
         // If existing grades already loaded (exam selected), populate now
-        if (this.existingGrades && this.existingGrades.length > 0) {
-            this.populateExistingGrades();
-        }
+        this.populateExistingGrades();
     },
     
-    populateExistingGrades(retryCount = 0) {
-        // Populate existing grades into the form
-        if (!this.existingGrades || this.existingGrades.length === 0) return;
-        let populated = 0;
-        this.existingGrades.forEach(grade => {
-            const studentId = grade.studentId || (grade.student && grade.student.id);
-            const subjectId = grade.subjectId || (grade.subject && grade.subject.id);
-            const marksInput = document.querySelector(
-                `input[data-student-id="${studentId}"][data-subject-id="${subjectId}"][data-type="marks"]`
-            );
-            
-            if (marksInput) {
-                marksInput.value = grade.marksObtained || '';
-                this.calculateGrade(marksInput);
-                populated++;
-            }
-            
-            const commentInput = document.querySelector(
-                `textarea[data-student-id="${studentId}"][data-subject-id="${subjectId}"][class*="comments-input"]`
-            );
-            
-            if (commentInput && grade.comments) {
-                commentInput.value = grade.comments;
-            }
+    populateExistingGrades() {
+        // Populate existing grades into the form once both the table and the matrix are ready
+        const matrix = this.gradebookMatrix;
+        if (!matrix || !this.tableRendered
+            || String(matrix.courseId) !== String(this.selectedCourseId)
+            || String(matrix.examScheduleId) !== String(this.selectedExamId)) return;
 
-            // Attach grade id to inputs for potential delete/update operations
-            if (marksInput) {
-                marksInput.dataset.gradeId = grade.id;
-            }
-            if (commentInput) {
-                commentInput.dataset.gradeId = grade.id;
-            }
+        // Index the inputs once instead of running a selector per grade
+        const marksInputs = new Map();
+        document.querySelectorAll('input.marks-input[data-type="marks"]').forEach(input => {
+            marksInputs.set(`${input.dataset.studentId}-${input.dataset.subjectId}`, input);
+        });
+        const commentInputs = new Map();
+        document.querySelectorAll('textarea.comments-input').forEach(input => {
+            commentInputs.set(`${input.dataset.studentId}-${input.dataset.subjectId}`, input);
+        });
 
-            // Add a delete button in the same subject cell to clear this grade
-            if (marksInput && grade.id) {
-                const td = marksInput.closest('td');
-                if (td && !td.querySelector('.grade-delete-btn')) {
-                    const btn = document.createElement('button');
-                    btn.type = 'button';
-                    btn.className = 'btn btn-sm btn-outline-danger grade-delete-btn';
-                    btn.style.marginTop = '6px';
-                    btn.innerHTML = '<i class="fas fa-trash"></i>';
-                    btn.title = 'Delete this grade';
-                    btn.addEventListener('click', () => this.deleteGrade(grade.id, marksInput, commentInput));
-                    td.appendChild(btn);
+        const columns = matrix.subjectIds.length;
+        matrix.studentIds.forEach((studentId, row) => {
+            for (let col = 0; col < columns; col++) {
+                const index = row * columns + col;
+                const gradeId = matrix.gradeIds[index];
+                if (gradeId === null) continue;
+
+                const key = `${studentId}-${matrix.subjectIds[col]}`;
+                const marksInput = marksInputs.get(key);
+                const commentInput = commentInputs.get(key);
+                const marks = matrix.marks[index];
+                const comments = matrix.comments[index];
+
+                if (marksInput) {
+                    marksInput.value = marks !== null ? marks : '';
+                    this.calculateGrade(marksInput);
+                    // Attach grade id to inputs for potential delete/update operations
+                    marksInput.dataset.gradeId = gradeId;
+                }
+                if (commentInput) {
+                    if (comments) {
+                        commentInput.value = comments;
+                    }
+                    commentInput.dataset.gradeId = gradeId;
+                }
+
+                // Add a delete button in the same subject cell to clear this grade
+                if (marksInput) {
+                    const td = marksInput.closest('td');
+                    if (td && !td.querySelector('.grade-delete-btn')) {
+                        const btn = document.createElement('button');
+                        btn.type = 'button';
+                        btn.className = 'btn btn-sm btn-outline-danger grade-delete-btn';
+                        btn.style.marginTop = '6px';
+                        btn.innerHTML = '<i class="fas fa-trash"></i>';
+                        btn.title = 'Delete this grade';
+                        btn.addEventListener('click', () => this.deleteGrade(gradeId, marksInput, commentInput));
+                        td.appendChild(btn);
+                    }
                 }
             }
         });
-
-        // If nothing populated yet (table may not be ready), retry a few times
-        if (populated === 0 && retryCount < 5) {
-            setTimeout(() => this.populateExistingGrades(retryCount + 1), 200);
-        }
     },
 
     async deleteGrade(gradeId, marksInput, commentInput) {
@@ -425,7 +435,13 @@ const gradeEntry = {
             const data = await response.json();
             
             if (data.success) {
-                this.showAlert(`Successfully saved ${data.savedCount} grades!`, 'success');
+                const notSaved = (data.skippedCount || 0) + (data.failedCount || 0);
+                if (notSaved > 0) {
+                    console.warn('Rows not saved:', (data.results || []).filter(r => r.status === 'SKIPPED' || r.status === 'FAILED'));
+                    this.showAlert(`Saved ${data.savedCount} grades; ${notSaved} entries were not saved.`, 'warning');
+                } else {
+                    this.showAlert(`Successfully saved ${data.savedCount} grades!`, 'success');
+                }
                 // Reload existing grades to update the form
                 await this.loadExistingGrades();
             } else {
@@ -475,6 +491,7 @@ const gradeEntry = {
     },
     
     hideGradesTable() {
+        this.tableRendered = false;
         document.getElementById('gradesTableContainer').style.display = 'none';
         document.getElementById('actionsContainer').style.display = 'none';
     },
@@ -398,7 +398,7 @@ class ChildDetail {
             console.log('Grades response data:', data);
             
             if (data.success) {
-                this.displayGrades(data.grades, data.gradesByExam, data.student);
+                this.displayGrades(data.exams, data);
             } else {
                 throw new Error(data.message || 'Failed to load grades');
             }
@@ -416,8 +416,8 @@ class ChildDetail {
         document.getElementById('gradesSummary').style.display = 'none';
     }
 
-    displayGrades(grades, gradesByExam, student) {
-        if (!grades || grades.length === 0) {
+    displayGrades(exams, summary) {
+        if (!exams || exams.length === 0) {
             this.showNoGrades();
             return;
         }
@@ -430,34 +430,30 @@ class ChildDetail {
         document.getElementById('gradesSummary').style.display = 'block';
 
         // Update summary
-        this.updateGradesSummary(grades);
+        this.updateGradesSummary(summary);
 
         // Generate grades content
         const gradesContent = document.getElementById('gradesContent');
-        gradesContent.innerHTML = this.generateGradesHTML(gradesByExam);
+        gradesContent.innerHTML = this.generateGradesHTML(exams);
     }
 
-    updateGradesSummary(grades) {
-        const totalGrades = grades.length;
-        const passingGrades = grades.filter(grade => grade.letterGrade !== 'F').length;
-        const excellentGrades = grades.filter(grade => grade.letterGrade === 'A').length;
-        const averageGrade = grades.reduce((sum, grade) => sum + parseFloat(grade.gradePoint), 0) / totalGrades;
-
-        document.getElementById('totalGrades').textContent = totalGrades;
-        document.getElementById('passingGrades').textContent = passingGrades;
-        document.getElementById('excellentGrades').textContent = excellentGrades;
-        document.getElementById('averageGrade').textContent = averageGrade.toFixed(2);
+    updateGradesSummary(summary) {
+        document.getElementById('totalGrades').textContent = summary.totalGrades;
+        document.getElementById('passingGrades').textContent = summary.passingGradesCount;
+        document.getElementById('excellentGrades').textContent = summary.excellentGradesCount;
+        document.getElementById('averageGrade').textContent = parseFloat(summary.averageGradePoint).toFixed(2);
     }
 
-    generateGradesHTML(gradesByExam) {
+    generateGradesHTML(exams) {
         let html = '';
         
-        for (const [examName, examGrades] of Object.entries(gradesByExam)) {
+        for (const exam of exams) {
+            const examGrades = exam.grades || [];
             html += `
                 <div class="exam-section">
                     <div class="exam-header">
-                        <h4>${examName}</h4>
-                        <p>${(examGrades && examGrades.length && examGrades[0] && examGrades[0].examSchedule && examGrades[0].examSchedule.description) ? examGrades[0].examSchedule.description : 'No description available'}</p>
+                        <h4>${exam.examName} (${exam.academicYear})</h4>
+                        <p>${exam.description || 'No description available'}</p>
                     </div>
                     <table class="grades-table">
                         <thead>
@@ -474,9 +470,8 @@ class ChildDetail {
             `;
             
             examGrades.forEach(grade => {
-                const subjectObj = grade.subject || {};
-                const subjectName = subjectObj.subjectName || subjectObj.name || 'Subject';
-                const subjectCode = subjectObj.subjectCode || subjectObj.code || '';
+                const subjectName = grade.subjectName || 'Subject';
+                const subjectCode = grade.subjectCode || '';
                 html += `
                     <tr>
                         <td>
@@ -487,7 +482,7 @@ class ChildDetail {
                         <td class="marks-cell">${grade.marksObtained}/${grade.totalMarks}</td>
                         <td class="percentage-cell">${grade.percentage}%</td>
                         <td>
-                            <span class="grade-badge grade-${grade.letterGrade.toLowerCase()}">${grade.letterGrade}</span>
+                            <span class="grade-badge grade-${(grade.letterGrade || '').toLowerCase()}">${grade.letterGrade || '-'}</span>
                         </td>
                         <td class="comments-cell">${grade.comments || 'No comments'}</td>
                         <td><strong>${grade.gradePoint}</strong></td>
@@ -313,49 +313,29 @@ class TeacherAttendance {
         }
 
         try {
-            // Split into creations and updates
-            const createArray = [];
-            const updateArray = [];
+            // One roll-call request; the server creates, updates or skips each student
+            const attendance = [];
             this.attendanceData.forEach((data, studentId) => {
                 if (!data.status) return;
-                const payload = {
+                attendance.push({
                     studentId: studentId,
                     status: data.status,
                     remarks: data.remarks || ''
-                };
-                if (data.attendanceId) {
-                    updateArray.push({ attendanceId: data.attendanceId, status: data.status, remarks: data.remarks || '' });
-                } else {
-                    createArray.push(payload);
-                }
+                });
             });
 
-            // Perform updates first
-            if (updateArray.length > 0) {
-                await Promise.all(updateArray.map(u => fetch(`/teacher/attendance/api/${u.attendanceId}` , {
-                    method: 'PUT',
-                    headers: { 'Content-Type': 'application/json' },
-                    body: JSON.stringify({ status: u.status, remarks: u.remarks })
-                })));
-            }
-
-            // Then create new ones
-            if (createArray.length > 0) {
-                const requestData = {
+            const response = await fetch('/teacher/attendance/api/roll-call', {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify({
                     subjectId: this.selectedSubjectId,
                     date: this.selectedDate,
-                    teacherId: this.getTeacherId(),
-                    attendance: createArray
-                };
-                const response = await fetch('/teacher/attendance/api/mark', {
-                    method: 'POST',
-                    headers: { 'Content-Type': 'application/json' },
-                    body: JSON.stringify(requestData)
-                });
-                if (!response.ok) {
-                    const errorText = await response.text();
-                    throw new Error('Create failed: ' + errorText);
-                }
+                    attendance: attendance
+                })
+            });
+            if (!response.ok) {
+                const errorText = await response.text();
+                throw new Error('Save failed: ' + errorText);
             }
 
             this.showSuccess('Attendance saved successfully!');
@@ -0,0 +1,381 @@
+package com.wsims.controller;
+
+import com.parami.wsims.entity.ExamSchedule;
+import com.parami.wsims.entity.Grade;
+import com.parami.wsims.entity.GradeSnapshot;
+import com.parami.wsims.entity.GradeSnapshotEntry;
+import com.parami.wsims.entity.Role;
+import com.parami.wsims.entity.Subject;
+import com.parami.wsims.entity.User;
+import com.parami.wsims.repository.GradeRepository;
+import com.parami.wsims.repository.GradeSnapshotEntryRepository;
+import com.parami.wsims.repository.GradeSnapshotRepository;
+import com.parami.wsims.service.ExamScheduleService;
+import com.parami.wsims.service.GradeService;
+import com.parami.wsims.service.GradeSnapshotServiceImpl;
+import com.parami.wsims.service.ParentLinkService;
+import com.parami.wsims.service.StudentPerformanceService;
+import com.parami.wsims.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Response shape and query count of /student/api/grades/{studentId}, served from the
+ * published snapshots, and its size and latency against the entity payload the
+ * endpoint used to return. Repositories are mocked, so each repository call stands
+ * for one query.
+ */
+class StudentGradesPayloadTest {
+
+    private static final long STUDENT_ID = 42L;
+    private static final int SUBJECTS = 3;
+
+    // A few years of exams for one student, for the payload comparison
+    private static final int COMPARISON_EXAMS = 12;
+    private static final int COMPARISON_SUBJECTS = 8;
+    private static final int WARM_UP_REQUESTS = 200;
+    private static final int TIMED_REQUESTS = 500;
+
+    private GradeSnapshotEntryRepository entryRepository;
+    private GradeService gradeService;
+    private ParentLinkService parentLinkService;
+    private UserService userService;
+    private User student;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        GradeSnapshotRepository snapshotRepository = mock(GradeSnapshotRepository.class);
+        entryRepository = mock(GradeSnapshotEntryRepository.class);
+        gradeService = mock(GradeService.class);
+        parentLinkService = mock(ParentLinkService.class);
+        userService = mock(UserService.class);
+
+        Role role = new Role();
+        role.setName("STUDENT");
+        student = new User();
+        student.setId(STUDENT_ID);
+        student.setUsername("student42");
+        student.setEmail("student42@example.com");
+        student.setFirstName("Test");
+        student.setLastName("Student");
+        student.setPhone("0770000000");
+        student.setAddress("1 School Lane");
+        student.setRole(role);
+        when(userService.findByUsername("student42")).thenReturn(Optional.of(student));
+        when(userService.getUserById(STUDENT_ID)).thenReturn(student);
+
+        // Exam 2 started after exam 1, so it is listed first
+        GradeSnapshot older = snapshot(10L, 1L, "Term 1 Exam", LocalDate.of(2026, 3, 10));
+        GradeSnapshot newer = snapshot(20L, 2L, "Term 2 Exam", LocalDate.of(2026, 7, 10));
+        when(snapshotRepository.findByCurrentTrue()).thenReturn(List.of(older, newer));
+
+        List<GradeSnapshotEntry> entries = new ArrayList<>();
+        for (GradeSnapshot snapshot : List.of(older, newer)) {
+            for (int s = 1; s <= SUBJECTS; s++) {
+                entries.add(entry(snapshot.getId(), s, s == SUBJECTS ? "F" : "A"));
+            }
+        }
+        when(entryRepository.findForStudent(anyCollection(), eq(STUDENT_ID))).thenReturn(entries);
+
+        GradeSnapshotServiceImpl snapshotService = new GradeSnapshotServiceImpl(snapshotRepository, entryRepository,
+                mock(GradeRepository.class), mock(ExamScheduleService.class));
+        snapshotService.reloadCurrentSnapshots();
+        mockMvc = MockMvcBuilders.standaloneSetup(controllerFor(snapshotService)).build();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "student42", null, List.of(new SimpleGrantedAuthority("STUDENT"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void returnsPublishedGradesGroupedByExamWithoutEntities() throws Exception {
+        mockMvc.perform(get("/student/api/grades/{studentId}", STUDENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.exams.length()").value(2))
+                .andExpect(jsonPath("$.exams[0].examScheduleId").value(2))
+                .andExpect(jsonPath("$.exams[0].examName").value("Term 2 Exam"))
+                .andExpect(jsonPath("$.exams[0].grades.length()").value(SUBJECTS))
+                .andExpect(jsonPath("$.exams[0].grades[0].subjectName").value("Subject 1"))
+                .andExpect(jsonPath("$.exams[0].grades[0].letterGrade").value("A"))
+                .andExpect(jsonPath("$.exams[1].examScheduleId").value(1))
+                .andExpect(jsonPath("$.totalGrades").value(2 * SUBJECTS))
+                .andExpect(jsonPath("$.passingGradesCount").value(2 * (SUBJECTS - 1)))
+                .andExpect(jsonPath("$.excellentGradesCount").value(2 * (SUBJECTS - 1)))
+                .andExpect(jsonPath("$.student.id").value(STUDENT_ID))
+                .andExpect(jsonPath("$.student.username").value("student42"))
+                .andExpect(jsonPath("$.student.email").doesNotExist())
+                .andExpect(jsonPath("$.student.phone").doesNotExist())
+                .andExpect(jsonPath("$.grades").doesNotExist())
+                .andExpect(jsonPath("$.gradesByExam").doesNotExist());
+
+        // One query for the student's snapshot rows; live grade entities are never loaded
+        verify(entryRepository, times(1)).findForStudent(anyCollection(), eq(STUDENT_ID));
+        verifyNoInteractions(gradeService);
+    }
+
+    @Test
+    void repeatRequestsAreServedFromCacheAndRevalidateByEtag() throws Exception {
+        String etag = mockMvc.perform(get("/student/api/grades/{studentId}", STUDENT_ID))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/student/api/grades/{studentId}", STUDENT_ID).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/student/api/grades/{studentId}", STUDENT_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verify(entryRepository, times(1)).findForStudent(anyCollection(), eq(STUDENT_ID));
+    }
+
+    @Test
+    void cursorPagesComeFromTheCurrentSnapshots() throws Exception {
+        GradeSnapshotEntry latest = entry(20L, 1, "A");
+        latest.setId(7L);
+        when(entryRepository.findPageForStudent(anyCollection(), eq(STUDENT_ID), any(Pageable.class)))
+                .thenReturn(List.of(latest));
+
+        mockMvc.perform(get("/student/api/grades/{studentId}", STUDENT_ID).param("cursor", "").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.grades.length()").value(1))
+                .andExpect(jsonPath("$.grades[0].entryId").value(7))
+                .andExpect(jsonPath("$.grades[0].examScheduleId").value(2))
+                .andExpect(jsonPath("$.grades[0].examName").value("Term 2 Exam"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        // Post-publish edits live only in the grades table, which this path never reads
+        verifyNoInteractions(gradeService);
+    }
+
+    @Test
+    void otherStudentsGradesAreForbidden() throws Exception {
+        when(parentLinkService.isParentLinkedToStudent(anyLong(), anyLong())).thenReturn(false);
+
+        mockMvc.perform(get("/student/api/grades/{studentId}", 43L))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verifyNoInteractions(entryRepository);
+    }
+
+    @Test
+    void snapshotPayloadIsSmallerThanTheEntityPayload(TestReporter reporter) throws Exception {
+        GradeSnapshotRepository snapshotRepository = mock(GradeSnapshotRepository.class);
+        GradeSnapshotEntryRepository comparisonEntries = mock(GradeSnapshotEntryRepository.class);
+        List<GradeSnapshot> snapshots = new ArrayList<>();
+        List<GradeSnapshotEntry> entries = new ArrayList<>();
+        List<Grade> grades = new ArrayList<>();
+        for (int e = COMPARISON_EXAMS; e >= 1; e--) {
+            ExamSchedule exam = new ExamSchedule();
+            exam.setId((long) e);
+            exam.setExamName("Term " + ((e - 1) % 3 + 1) + " Exam");
+            exam.setAcademicYear(String.valueOf(2020 + (e - 1) / 3));
+            exam.setDescription("End of term examination");
+            exam.setStartDate(LocalDate.of(2020 + (e - 1) / 3, 1 + ((e - 1) % 3) * 4, 10));
+            GradeSnapshot snapshot = snapshot(100L + e, exam.getId(), exam.getExamName(), exam.getStartDate());
+            snapshot.setAcademicYear(exam.getAcademicYear());
+            snapshot.setEntryCount(COMPARISON_SUBJECTS);
+            snapshots.add(snapshot);
+
+            for (int s = 1; s <= COMPARISON_SUBJECTS; s++) {
+                Subject subject = new Subject();
+                subject.setId((long) s);
+                subject.setSubjectName("Subject " + s);
+                subject.setSubjectCode("SUB" + s);
+                BigDecimal marks = BigDecimal.valueOf(40 + (e * 7 + s * 5) % 60);
+                BigDecimal total = BigDecimal.valueOf(100);
+                BigDecimal percentage = marks.multiply(BigDecimal.valueOf(100)).divide(total, 2, RoundingMode.HALF_UP);
+                Grade.LetterGrade letter = Grade.calculateLetterGrade(percentage);
+
+                Grade grade = new Grade();
+                grade.setId((long) (e * 100 + s));
+                grade.setStudent(student);
+                grade.setSubject(subject);
+                grade.setExamSchedule(exam);
+                grade.setMarksObtained(marks);
+                grade.setTotalMarks(total);
+                grade.setPercentage(percentage);
+                grade.setLetterGrade(letter.getDisplayName());
+                grade.setGradePoint(letter.getPointValue());
+                grade.setComments("Keep up the effort");
+                grade.setCreatedAt(LocalDateTime.now());
+                grade.setUpdatedAt(LocalDateTime.now());
+                grades.add(grade);
+
+                GradeSnapshotEntry entry = entry(snapshot.getId(), s, letter.getDisplayName());
+                entry.setMarksObtained(marks);
+                entry.setTotalMarks(total);
+                entry.setPercentage(percentage);
+                entry.setGradePoint(letter.getPointValue());
+                entries.add(entry);
+            }
+        }
+        when(snapshotRepository.findByCurrentTrue()).thenReturn(snapshots);
+        when(comparisonEntries.findForStudent(anyCollection(), eq(STUDENT_ID))).thenReturn(entries);
+        when(gradeService.getGradesByStudent(STUDENT_ID)).thenReturn(grades);
+
+        GradeSnapshotServiceImpl snapshotService = new GradeSnapshotServiceImpl(snapshotRepository, comparisonEntries,
+                mock(GradeRepository.class), mock(ExamScheduleService.class));
+        snapshotService.reloadCurrentSnapshots();
+        MockMvc comparison = MockMvcBuilders
+                .standaloneSetup(controllerFor(snapshotService), new EntityGradesEndpoint(gradeService, userService))
+                .build();
+
+        String current = "/student/api/grades/" + STUDENT_ID;
+        String legacy = "/legacy/api/grades/" + STUDENT_ID;
+        int currentBytes = comparison.perform(get(current)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray().length;
+        int legacyBytes = comparison.perform(get(legacy)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray().length;
+
+        // Both go through the same MockMvc and Jackson stack, so the difference is the payload itself
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            comparison.perform(get(current));
+            comparison.perform(get(legacy));
+        }
+        double currentMicros = meanMicros(comparison, current);
+        double legacyMicros = meanMicros(comparison, legacy);
+
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("grades", String.valueOf(grades.size()));
+        report.put("entityPayloadBytes", String.valueOf(legacyBytes));
+        report.put("snapshotPayloadBytes", String.valueOf(currentBytes));
+        report.put("entityPayloadMeanMicros", String.format("%.1f", legacyMicros));
+        report.put("snapshotPayloadMeanMicros", String.format("%.1f", currentMicros));
+        reporter.publishEntry(report);
+
+        assertTrue(currentBytes < legacyBytes,
+                "snapshot payload (" + currentBytes + " bytes) should be smaller than the entity payload (" + legacyBytes + " bytes)");
+    }
+
+    private double meanMicros(MockMvc mvc, String path) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_REQUESTS; i++) {
+            mvc.perform(get(path));
+        }
+        return (System.nanoTime() - start) / 1000.0 / TIMED_REQUESTS;
+    }
+
+    private StudentGradesController controllerFor(GradeSnapshotServiceImpl snapshotService) {
+        StudentGradesController controller = new StudentGradesController();
+        ReflectionTestUtils.setField(controller, "gradeService", gradeService);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "parentLinkService", parentLinkService);
+        ReflectionTestUtils.setField(controller, "studentPerformanceService", mock(StudentPerformanceService.class));
+        ReflectionTestUtils.setField(controller, "gradeSnapshotService", snapshotService);
+        return controller;
+    }
+
+    /**
+     * The payload /student/api/grades returned before the projection and snapshots:
+     * every Grade entity twice (flat and grouped by exam) plus the full User
+     */
+    @RestController
+    static class EntityGradesEndpoint {
+
+        private final GradeService gradeService;
+        private final UserService userService;
+
+        EntityGradesEndpoint(GradeService gradeService, UserService userService) {
+            this.gradeService = gradeService;
+            this.userService = userService;
+        }
+
+        @GetMapping("/legacy/api/grades/{studentId}")
+        ResponseEntity<Map<String, Object>> getStudentGrades(@PathVariable Long studentId) {
+            List<Grade> grades = gradeService.getGradesByStudent(studentId);
+            Map<String, List<Grade>> gradesByExam = grades.stream()
+                    .collect(Collectors.groupingBy(
+                            grade -> grade.getExamSchedule().getExamName() + " (" + grade.getExamSchedule().getAcademicYear() + ")",
+                            Collectors.toList()
+                    ));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("grades", grades);
+            response.put("gradesByExam", gradesByExam);
+            response.put("student", userService.getUserById(studentId));
+            response.put("passingGradesCount", 0L);
+            response.put("excellentGradesCount", 0L);
+            return ResponseEntity.ok(response);
+        }
+    }
+
+    private static GradeSnapshot snapshot(Long id, Long examScheduleId, String examName, LocalDate startDate) {
+        GradeSnapshot snapshot = new GradeSnapshot();
+        snapshot.setId(id);
+        snapshot.setExamScheduleId(examScheduleId);
+        snapshot.setVersion(1);
+        snapshot.setExamName(examName);
+        snapshot.setAcademicYear("2026");
+        snapshot.setExamDescription("End of term examination");
+        snapshot.setExamStartDate(startDate);
+        snapshot.setEntryCount(SUBJECTS);
+        snapshot.setCurrent(true);
+        snapshot.setPublishedAt(LocalDateTime.now());
+        return snapshot;
+    }
+
+    private static GradeSnapshotEntry entry(Long snapshotId, int subject, String letterGrade) {
+        GradeSnapshotEntry entry = new GradeSnapshotEntry();
+        entry.setSnapshotId(snapshotId);
+        entry.setStudentId(STUDENT_ID);
+        entry.setSubjectId((long) subject);
+        entry.setSubjectName("Subject " + subject);
+        entry.setSubjectCode("SUB" + subject);
+        entry.setMarksObtained(new BigDecimal("85"));
+        entry.setTotalMarks(new BigDecimal("100"));
+        entry.setPercentage(new BigDecimal("85.00"));
+        entry.setLetterGrade(letterGrade);
+        entry.setGradePoint("F".equals(letterGrade) ? new BigDecimal("0.00") : new BigDecimal("4.00"));
+        entry.setComments("Keep up the effort");
+        return entry;
+    }
+}